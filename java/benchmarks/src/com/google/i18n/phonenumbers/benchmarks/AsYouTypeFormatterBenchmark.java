@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.AsYouTypeFormatter;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AsYouTypeFormatter#inputDigit} by typing the example numbers of all regions, as a
+ * local user would enter them, into a formatter for their region. Each operation types one whole
+ * number, so the time per digit is roughly a tenth of the reported time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AsYouTypeFormatterBenchmark {
+  private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+  private String[] numbers;
+  // The formatter for the region of each number. Formatters are not thread-safe, so each thread
+  // has its own.
+  private AsYouTypeFormatter[] formatters;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    List<PhoneNumber> exampleNumbers = ExampleNumbers.getAll(phoneUtil);
+    Map<String, AsYouTypeFormatter> formatterForRegion = new HashMap<String, AsYouTypeFormatter>();
+    numbers = new String[exampleNumbers.size()];
+    formatters = new AsYouTypeFormatter[exampleNumbers.size()];
+    for (int i = 0; i < numbers.length; i++) {
+      PhoneNumber number = exampleNumbers.get(i);
+      numbers[i] = ExampleNumbers.formatAsEntered(phoneUtil, number);
+      String regionCode = ExampleNumbers.getRegionCode(phoneUtil, number);
+      if (!formatterForRegion.containsKey(regionCode)) {
+        formatterForRegion.put(regionCode, phoneUtil.getAsYouTypeFormatter(regionCode));
+      }
+      formatters[i] = formatterForRegion.get(regionCode);
+    }
+  }
+
+  @Benchmark
+  public String inputDigits() {
+    int i = next;
+    next = (i + 1) % numbers.length;
+    AsYouTypeFormatter formatter = formatters[i];
+    formatter.clear();
+    String number = numbers[i];
+    String result = "";
+    for (int j = 0; j < number.length(); j++) {
+      char c = number.charAt(j);
+      if (Character.isDigit(c) || c == '+') {
+        result = formatter.inputDigit(c);
+      }
+    }
+    return result;
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String inputDigitsMultiThreaded() {
+    return inputDigits();
+  }
+}
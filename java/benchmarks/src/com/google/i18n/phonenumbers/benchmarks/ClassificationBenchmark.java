@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.ClassificationCache;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures looking up the region, type and validity of each number in turn, as when enriching
+ * call records, with and without a {@link ClassificationCache}. The example numbers of all regions
+ * are used; with a cache size of 0 no cache is used, and a cache large enough to hold them all
+ * shows the cost once every number has been seen before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassificationBenchmark {
+  @Param({"0", "4096"})
+  private int cacheSize;
+
+  private PhoneNumberUtil phoneUtil;
+  private PhoneNumber[] numbers;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    PhoneNumberUtil.Builder builder = PhoneNumberUtil.newBuilder();
+    if (cacheSize > 0) {
+      builder.setClassificationCache(new ClassificationCache(cacheSize));
+    }
+    phoneUtil = builder.build();
+    numbers = ExampleNumbers.getAll(phoneUtil).toArray(new PhoneNumber[0]);
+  }
+
+  @Benchmark
+  public void classify(Blackhole blackhole) {
+    PhoneNumber number = numbers[next];
+    next = (next + 1) % numbers.length;
+    blackhole.consume(phoneUtil.getRegionCodeForNumber(number));
+    blackhole.consume(phoneUtil.getNumberType(number));
+    blackhole.consume(phoneUtil.isValidNumber(number));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void classifyMultiThreaded(Blackhole blackhole) {
+    classify(blackhole);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the ways of formatting the example numbers of all regions in E164 format: as a new
+ * string, into a reused StringBuilder, char array or ByteBuffer, and with the result kept on the
+ * PhoneNumber.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class E164FormatBenchmark {
+  private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+  private final StringBuilder stringBuilder = new StringBuilder(20);
+  private final char[] chars = new char[20];
+  private final ByteBuffer bytes = ByteBuffer.allocate(20);
+  private PhoneNumber[] numbers;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    numbers = ExampleNumbers.getAll(phoneUtil).toArray(new PhoneNumber[0]);
+  }
+
+  private PhoneNumber nextNumber() {
+    int i = next;
+    next = (i + 1) % numbers.length;
+    return numbers[i];
+  }
+
+  @Benchmark
+  public String format() {
+    return phoneUtil.format(nextNumber(), PhoneNumberFormat.E164);
+  }
+
+  @Benchmark
+  public StringBuilder formatIntoStringBuilder() {
+    phoneUtil.format(nextNumber(), PhoneNumberFormat.E164, stringBuilder);
+    return stringBuilder;
+  }
+
+  @Benchmark
+  public int formatIntoChars() {
+    return phoneUtil.formatE164(nextNumber(), chars, 0);
+  }
+
+  @Benchmark
+  public ByteBuffer formatIntoByteBuffer() {
+    bytes.clear();
+    phoneUtil.formatE164(nextNumber(), bytes);
+    return bytes;
+  }
+
+  @Benchmark
+  public String formatKept() {
+    return phoneUtil.formatE164(nextNumber());
+  }
+}
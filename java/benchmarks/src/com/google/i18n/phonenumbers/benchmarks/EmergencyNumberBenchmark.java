@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+import com.google.i18n.phonenumbers.ShortNumberUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ShortNumberUtil#isEmergencyNumber} and
+ * {@link ShortNumberUtil#connectsToEmergencyNumber} on what a dialer would check for each call: the
+ * common emergency numbers and the example numbers of all regions, dialed in their regions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EmergencyNumberBenchmark {
+  private static final String[] EMERGENCY_NUMBERS = {"112", "911", "999", "000", "110"};
+
+  private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+  private final ShortNumberUtil shortNumberUtil = new ShortNumberUtil();
+  private String[] dialed;
+  private String[] regionCodes;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    List<String> numbers = new ArrayList<String>();
+    List<String> regions = new ArrayList<String>();
+    for (PhoneNumber number : ExampleNumbers.getAll(phoneUtil)) {
+      String regionCode = ExampleNumbers.getRegionCode(phoneUtil, number);
+      numbers.add(ExampleNumbers.formatAsEntered(phoneUtil, number));
+      regions.add(regionCode);
+      String emergencyNumber = EMERGENCY_NUMBERS[numbers.size() % EMERGENCY_NUMBERS.length];
+      numbers.add(emergencyNumber);
+      regions.add(regionCode);
+    }
+    dialed = numbers.toArray(new String[0]);
+    regionCodes = regions.toArray(new String[0]);
+  }
+
+  private int nextIndex() {
+    int i = next;
+    next = (i + 1) % dialed.length;
+    return i;
+  }
+
+  @Benchmark
+  public boolean isEmergencyNumber() {
+    int i = nextIndex();
+    return shortNumberUtil.isEmergencyNumber(dialed[i], regionCodes[i]);
+  }
+
+  @Benchmark
+  public boolean connectsToEmergencyNumber() {
+    int i = nextIndex();
+    return shortNumberUtil.connectsToEmergencyNumber(dialed[i], regionCodes[i]);
+  }
+}
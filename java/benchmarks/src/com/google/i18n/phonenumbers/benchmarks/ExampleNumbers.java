@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The inputs the benchmarks run on, built from the example numbers of every supported region and
+ * non-geographical entity for every number type. The numbers are shuffled with a fixed seed, so
+ * that consecutive numbers come from different regions but every run sees the same sequence.
+ */
+final class ExampleNumbers {
+  // The region that numbers are parsed and found with when they are given in international format.
+  static final String DEFAULT_REGION = "US";
+
+  private ExampleNumbers() {
+  }
+
+  /**
+   * Returns all example numbers in a fixed, shuffled order.
+   */
+  static List<PhoneNumber> getAll(PhoneNumberUtil phoneUtil) {
+    List<PhoneNumber> numbers = new ArrayList<PhoneNumber>();
+    for (String regionCode : phoneUtil.getSupportedRegions()) {
+      for (PhoneNumberType type : PhoneNumberType.values()) {
+        PhoneNumber number = phoneUtil.getExampleNumberForType(regionCode, type);
+        if (number != null) {
+          numbers.add(number);
+        }
+      }
+    }
+    for (int countryCallingCode : phoneUtil.getSupportedGlobalNetworkCallingCodes()) {
+      PhoneNumber number = phoneUtil.getExampleNumberForNonGeoEntity(countryCallingCode);
+      if (number != null) {
+        numbers.add(number);
+      }
+    }
+    // The supported regions are a HashSet, so sort before shuffling for a stable order.
+    Collections.sort(numbers, new Comparator<PhoneNumber>() {
+      public int compare(PhoneNumber first, PhoneNumber second) {
+        return first.toString().compareTo(second.toString());
+      }
+    });
+    Collections.shuffle(numbers, new Random(42));
+    return numbers;
+  }
+
+  /**
+   * Returns the region that {@code number} would be entered in by a local user, or
+   * {@link #DEFAULT_REGION} for numbers of non-geographical entities.
+   */
+  static String getRegionCode(PhoneNumberUtil phoneUtil, PhoneNumber number) {
+    String regionCode = phoneUtil.getRegionCodeForNumber(number);
+    return regionCode == null || PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCode)
+        ? DEFAULT_REGION
+        : regionCode;
+  }
+
+  /**
+   * Returns {@code number} as a local user of the region from {@link #getRegionCode} would write
+   * it: in national format, except for numbers of non-geographical entities, which can only be
+   * written in international format.
+   */
+  static String formatAsEntered(PhoneNumberUtil phoneUtil, PhoneNumber number) {
+    boolean isNonGeographical = PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY.equals(
+        phoneUtil.getRegionCodeForNumber(number));
+    return phoneUtil.format(
+        number, isNonGeographical ? PhoneNumberFormat.INTERNATIONAL : PhoneNumberFormat.NATIONAL);
+  }
+
+  /**
+   * Returns prose that mentions {@code count} of the numbers, in national format if they are from
+   * {@link #DEFAULT_REGION} and in international format otherwise, as they might appear in an
+   * email or on a web page.
+   */
+  static String createText(PhoneNumberUtil phoneUtil, List<PhoneNumber> numbers, int count) {
+    String[] sentences = {
+        "Please call our office on %s between 9am and 5pm. ",
+        "For orders over 100 items, reach the sales team at %s or by email. ",
+        "Tel: %s / Fax: none. Reference 2013-05-17, ticket 884422. ",
+        "If you are abroad, dial %s and ask for extension 12. ",
+    };
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      PhoneNumber number = numbers.get(i % numbers.size());
+      String formatted = phoneUtil.format(number,
+          DEFAULT_REGION.equals(phoneUtil.getRegionCodeForNumber(number))
+              ? PhoneNumberFormat.NATIONAL
+              : PhoneNumberFormat.INTERNATIONAL);
+      text.append(String.format(sentences[i % sentences.length], formatted));
+    }
+    return text.toString();
+  }
+
+  /**
+   * Creates a text like {@link #createText}, but with {@code proseSentences} sentences of prose
+   * without any numbers after each sentence that mentions a number, as in mail or documents where
+   * phone numbers are rare.
+   */
+  static String createProse(PhoneNumberUtil phoneUtil, List<PhoneNumber> numbers, int count,
+                            int proseSentences) {
+    String[] prose = {
+        "The meeting was moved to the large room on the third floor, next to the library. ",
+        "Everyone agreed that the draft needs another review before it is sent out. ",
+        "As discussed last week, the budget for the project has not changed. ",
+        "Let me know whether the new schedule works for your team (or not). ",
+        "The attached report covers the results of the survey in some detail. ",
+    };
+    String numberSentences = createText(phoneUtil, numbers, count);
+    StringBuilder text = new StringBuilder();
+    int sentence = 0;
+    for (int i = 0; i < numberSentences.length(); ) {
+      int end = numberSentences.indexOf(". ", i) + 2;
+      text.append(numberSentences, i, end);
+      for (int j = 0; j < proseSentences; j++) {
+        text.append(prose[sentence++ % prose.length]);
+      }
+      i = end;
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.PhoneNumberMatch;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.Leniency;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PhoneNumberUtil#findNumbers} on a text of about 6 KB that mentions 100 of the
+ * example numbers among other digits, such as dates and reference numbers, and on prose of about
+ * 190 KB that has 20 sentences without numbers after each of its sentences. Each operation finds
+ * all numbers in the text, at the default leniency or at one that also checks how they are
+ * grouped.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindNumbersBenchmark {
+  private static final int NUMBERS_IN_TEXT = 100;
+  private static final int PROSE_SENTENCES_BETWEEN_NUMBERS = 20;
+
+  private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+  private String text;
+  private String prose;
+
+  @Setup
+  public void setUp() {
+    text = ExampleNumbers.createText(
+        phoneUtil, ExampleNumbers.getAll(phoneUtil), NUMBERS_IN_TEXT);
+    prose = ExampleNumbers.createProse(phoneUtil, ExampleNumbers.getAll(phoneUtil),
+        NUMBERS_IN_TEXT, PROSE_SENTENCES_BETWEEN_NUMBERS);
+  }
+
+  @Benchmark
+  public int findNumbers() {
+    int found = 0;
+    for (PhoneNumberMatch match : phoneUtil.findNumbers(text, ExampleNumbers.DEFAULT_REGION)) {
+      found++;
+    }
+    return found;
+  }
+
+  @Benchmark
+  @Threads(4)
+  public int findNumbersMultiThreaded() {
+    return findNumbers();
+  }
+
+  @Benchmark
+  public int findNumbersInProse() {
+    int found = 0;
+    for (PhoneNumberMatch match : phoneUtil.findNumbers(prose, ExampleNumbers.DEFAULT_REGION)) {
+      found++;
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int findNumbersExactGrouping() {
+    int found = 0;
+    for (PhoneNumberMatch match : phoneUtil.findNumbers(
+             text, ExampleNumbers.DEFAULT_REGION, Leniency.EXACT_GROUPING, Long.MAX_VALUE)) {
+      found++;
+    }
+    return found;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+import com.google.i18n.phonenumbers.geocoding.PhoneNumberOfflineGeocoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PhoneNumberOfflineGeocoder#getDescriptionForNumber} on the example numbers of
+ * all regions, in a language with a lot of geocoding data and in one that mostly falls back to
+ * region names.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GeocoderBenchmark {
+  @Param({"en", "ko"})
+  public String language;
+
+  private final PhoneNumberOfflineGeocoder geocoder = PhoneNumberOfflineGeocoder.getInstance();
+  private PhoneNumber[] numbers;
+  private Locale locale;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    numbers = ExampleNumbers.getAll(PhoneNumberUtil.getInstance()).toArray(new PhoneNumber[0]);
+    locale = new Locale(language);
+  }
+
+  @Benchmark
+  public String getDescriptionForNumber() {
+    int i = next;
+    next = (i + 1) % numbers.length;
+    return geocoder.getDescriptionForNumber(numbers[i], locale);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String getDescriptionForNumberMultiThreaded() {
+    return getDescriptionForNumber();
+  }
+}
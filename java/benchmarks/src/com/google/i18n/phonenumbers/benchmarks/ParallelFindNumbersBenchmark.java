@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.PhoneNumberMatch;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.Leniency;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how {@link PhoneNumberUtil#findNumbers(CharSequence, String, Leniency,
+ * java.util.concurrent.ExecutorService)} scales with the number of threads on a text of about
+ * 600 KB that mentions 10000 of the example numbers, compared with iterating over the matches of
+ * the sequential search. Each operation finds all numbers in the text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelFindNumbersBenchmark {
+  private static final int NUMBERS_IN_TEXT = 10000;
+
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+  private String text;
+  private ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    text = ExampleNumbers.createText(
+        phoneUtil, ExampleNumbers.getAll(phoneUtil), NUMBERS_IN_TEXT);
+    pool = new ForkJoinPool(threads);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public int findNumbersSequentially() {
+    int found = 0;
+    for (PhoneNumberMatch match :
+         phoneUtil.findNumbers(text, ExampleNumbers.DEFAULT_REGION, Leniency.VALID,
+                               Long.MAX_VALUE)) {
+      found++;
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int findNumbersInParallel() throws InterruptedException {
+    return phoneUtil.findNumbers(text, ExampleNumbers.DEFAULT_REGION, Leniency.VALID, pool).size();
+  }
+}
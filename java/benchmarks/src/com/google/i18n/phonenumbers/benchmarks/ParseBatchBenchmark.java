@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.BatchParseResult;
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how {@link PhoneNumberUtil#parseBatch} scales with the number of threads, compared with
+ * calling {@link PhoneNumberUtil#parse(String, String)} in a loop. The batch is a mix of national
+ * and international numbers from every supported region, in several formats, with a share of
+ * inputs that do not parse.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBatchBenchmark {
+  private static final int BATCH_SIZE = 100000;
+  private static final String DEFAULT_REGION = ExampleNumbers.DEFAULT_REGION;
+
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+  private String[] batch;
+  private ExecutorService executor;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    batch = createBatch(phoneUtil, BATCH_SIZE);
+    executor = Executors.newFixedThreadPool(threads);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  public int parseInLoop() {
+    int parsed = 0;
+    for (String number : batch) {
+      try {
+        phoneUtil.parse(number, DEFAULT_REGION);
+        parsed++;
+      } catch (NumberParseException e) {
+        // Counted as not parsed.
+      }
+    }
+    return parsed;
+  }
+
+  @Benchmark
+  public BatchParseResult parseBatch() throws InterruptedException {
+    return phoneUtil.parseBatch(batch, DEFAULT_REGION, executor);
+  }
+
+  /**
+   * Returns {@code size} inputs built from {@link ExampleNumbers}: numbers from the default region
+   * in national format, other numbers in international format or E164, and every tenth input cut
+   * down to its first three characters so that it does not parse.
+   */
+  static String[] createBatch(PhoneNumberUtil phoneUtil, int size) {
+    List<String> samples = new ArrayList<String>();
+    for (PhoneNumber number : ExampleNumbers.getAll(phoneUtil)) {
+      if (DEFAULT_REGION.equals(phoneUtil.getRegionCodeForNumber(number))) {
+        samples.add(phoneUtil.format(number, PhoneNumberFormat.NATIONAL));
+      } else {
+        samples.add(phoneUtil.format(number, PhoneNumberFormat.INTERNATIONAL));
+        samples.add(phoneUtil.format(number, PhoneNumberFormat.E164));
+      }
+    }
+    Random random = new Random(42);
+    String[] batch = new String[size];
+    for (int i = 0; i < size; i++) {
+      String sample = samples.get(random.nextInt(samples.size()));
+      batch[i] = (i % 10 == 0) ? sample.substring(0, 3) : sample;
+    }
+    return batch;
+  }
+}
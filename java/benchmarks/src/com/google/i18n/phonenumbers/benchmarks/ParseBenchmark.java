@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PhoneNumberUtil#parse} on the example numbers of all regions. Half of the inputs
+ * are in the format a local user would enter them in, parsed with their own region, and the other
+ * half are in international format, parsed with {@link ExampleNumbers#DEFAULT_REGION}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+  private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+  private String[] numbers;
+  private String[] regionCodes;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    List<PhoneNumber> exampleNumbers = ExampleNumbers.getAll(phoneUtil);
+    numbers = new String[exampleNumbers.size()];
+    regionCodes = new String[exampleNumbers.size()];
+    for (int i = 0; i < numbers.length; i++) {
+      PhoneNumber number = exampleNumbers.get(i);
+      if (i % 2 == 0) {
+        numbers[i] = ExampleNumbers.formatAsEntered(phoneUtil, number);
+        regionCodes[i] = ExampleNumbers.getRegionCode(phoneUtil, number);
+      } else {
+        numbers[i] = phoneUtil.format(number, PhoneNumberFormat.INTERNATIONAL);
+        regionCodes[i] = ExampleNumbers.DEFAULT_REGION;
+      }
+    }
+  }
+
+  @Benchmark
+  public PhoneNumber parse() throws NumberParseException {
+    int i = next;
+    next = (i + 1) % numbers.length;
+    return phoneUtil.parse(numbers[i], regionCodes[i]);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public PhoneNumber parseMultiThreaded() throws NumberParseException {
+    return parse();
+  }
+}
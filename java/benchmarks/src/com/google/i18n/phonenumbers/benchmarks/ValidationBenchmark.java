@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.i18n.phonenumbers.benchmarks;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PhoneNumberUtil#isValidNumber} and {@link PhoneNumberUtil#getNumberType} on the
+ * example numbers of all regions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationBenchmark {
+  private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+  private PhoneNumber[] numbers;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    numbers = ExampleNumbers.getAll(phoneUtil).toArray(new PhoneNumber[0]);
+  }
+
+  private PhoneNumber nextNumber() {
+    int i = next;
+    next = (i + 1) % numbers.length;
+    return numbers[i];
+  }
+
+  @Benchmark
+  public boolean isValidNumber() {
+    return phoneUtil.isValidNumber(nextNumber());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public boolean isValidNumberMultiThreaded() {
+    return isValidNumber();
+  }
+
+  @Benchmark
+  public PhoneNumberType getNumberType() {
+    return phoneUtil.getNumberType(nextNumber());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public PhoneNumberType getNumberTypeMultiThreaded() {
+    return getNumberType();
+  }
+}
@@ -23,9 +23,11 @@ import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,7 +37,9 @@ import java.util.logging.Logger;
  * @author Shaopeng Jia
  */
 public class PhoneNumberOfflineGeocoder {
-  private static PhoneNumberOfflineGeocoder instance = null;
+  // Set with compareAndSet, so that getInstance() takes no lock.
+  private static final AtomicReference<PhoneNumberOfflineGeocoder> instance =
+      new AtomicReference<PhoneNumberOfflineGeocoder>();
   private static final String MAPPING_DATA_DIRECTORY =
       "/com/google/i18n/phonenumbers/geocoding/data/";
   private static final Logger LOGGER = Logger.getLogger(PhoneNumberOfflineGeocoder.class.getName());
@@ -48,8 +52,12 @@ public class PhoneNumberOfflineGeocoder {
   private MappingFileProvider mappingFileProvider = new MappingFileProvider();
 
   // A mapping from countryCallingCode_lang to the corresponding phone prefix map that has been
-  // loaded.
-  private Map<String, AreaCodeMap> availablePhonePrefixMaps = new HashMap<String, AreaCodeMap>();
+  // loaded. It is concurrent so that maps which have been loaded are looked up without a lock,
+  // while each file is loaded under its own lock from fileLoadLocks.
+  private final ConcurrentMap<String, AreaCodeMap> availablePhonePrefixMaps =
+      new ConcurrentHashMap<String, AreaCodeMap>();
+  private final ConcurrentMap<String, ReentrantLock> fileLoadLocks =
+      new ConcurrentHashMap<String, ReentrantLock>();
 
   // @VisibleForTesting
   PhoneNumberOfflineGeocoder(String phonePrefixDataDirectory) {
@@ -77,12 +85,34 @@ public class PhoneNumberOfflineGeocoder {
     if (fileName.length() == 0) {
       return null;
     }
-    if (!availablePhonePrefixMaps.containsKey(fileName)) {
-      loadAreaCodeMapFromFile(fileName);
+    AreaCodeMap map = availablePhonePrefixMaps.get(fileName);
+    if (map != null) {
+      return map;
+    }
+    ReentrantLock lock = getFileLoadLock(fileName);
+    lock.lock();
+    try {
+      if (!availablePhonePrefixMaps.containsKey(fileName)) {
+        loadAreaCodeMapFromFile(fileName);
+      }
+    } finally {
+      lock.unlock();
     }
     return availablePhonePrefixMaps.get(fileName);
   }
 
+  private ReentrantLock getFileLoadLock(String fileName) {
+    ReentrantLock lock = fileLoadLocks.get(fileName);
+    if (lock == null) {
+      ReentrantLock newLock = new ReentrantLock();
+      lock = fileLoadLocks.putIfAbsent(fileName, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
   private void loadAreaCodeMapFromFile(String fileName) {
     InputStream source =
         PhoneNumberOfflineGeocoder.class.getResourceAsStream(phonePrefixDataDirectory + fileName);
@@ -114,15 +144,19 @@ public class PhoneNumberOfflineGeocoder {
    * geocoding.
    *
    * <p> The {@link PhoneNumberOfflineGeocoder} is implemented as a singleton. Therefore, calling
-   * this method multiple times will only result in one instance being created.
+   * this method multiple times will only result in one instance being created, although threads
+   * that call it for the first time concurrently may each read the mapping configuration.
    *
    * @return  a {@link PhoneNumberOfflineGeocoder} instance
    */
-  public static synchronized PhoneNumberOfflineGeocoder getInstance() {
-    if (instance == null) {
-      instance = new PhoneNumberOfflineGeocoder(MAPPING_DATA_DIRECTORY);
+  public static PhoneNumberOfflineGeocoder getInstance() {
+    PhoneNumberOfflineGeocoder geocoder = instance.get();
+    if (geocoder == null) {
+      PhoneNumberOfflineGeocoder newGeocoder =
+          new PhoneNumberOfflineGeocoder(MAPPING_DATA_DIRECTORY);
+      geocoder = instance.compareAndSet(null, newGeocoder) ? newGeocoder : instance.get();
     }
-    return instance;
+    return geocoder;
   }
 
   /**
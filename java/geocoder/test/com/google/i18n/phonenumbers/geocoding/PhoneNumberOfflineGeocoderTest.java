@@ -16,10 +16,15 @@
 
 package com.google.i18n.phonenumbers.geocoding;
 
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
 import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
 import junit.framework.TestCase;
 
 import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Unit tests for PhoneNumberOfflineGeocoder.java
@@ -144,4 +149,57 @@ public class PhoneNumberOfflineGeocoderTest extends TestCase {
     assertEquals("", geocoder.getDescriptionForNumber(KO_INVALID_NUMBER, Locale.ENGLISH));
     assertEquals("", geocoder.getDescriptionForNumber(US_INVALID_NUMBER, Locale.ENGLISH));
   }
+
+  public void testConcurrentParsingFormattingAndGeocoding() throws Exception {
+    final int threadCount = 64;
+    final int operationCount = 100000;
+    final PhoneNumber[] numbers = {KO_NUMBER1, KO_NUMBER2, KO_NUMBER3, US_NUMBER1, US_NUMBER2,
+        US_NUMBER3, US_NUMBER4, BS_NUMBER1, AU_NUMBER, INTERNATIONAL_TOLL_FREE};
+    final Locale[] locales = {Locale.ENGLISH, Locale.KOREAN, Locale.GERMAN, Locale.ITALIAN,
+        Locale.SIMPLIFIED_CHINESE};
+    // What each thread should see, worked out by the geocoder shared by the other tests.
+    final String[] expected = new String[numbers.length * locales.length];
+    PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+    for (int i = 0; i < expected.length; i++) {
+      PhoneNumber number = numbers[i / locales.length];
+      expected[i] = phoneUtil.format(number, PhoneNumberFormat.INTERNATIONAL) + " " +
+          geocoder.getDescriptionForNumber(number, locales[i % locales.length]);
+    }
+    // A new geocoder, so that the threads also race to load its data files.
+    final PhoneNumberOfflineGeocoder newGeocoder =
+        new PhoneNumberOfflineGeocoder(TEST_MAPPING_DATA_DIRECTORY);
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicInteger nextOperation = new AtomicInteger();
+    final AtomicReference<String> failure = new AtomicReference<String>();
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      threads[t] = new Thread(new Runnable() {
+        public void run() {
+          try {
+            start.await();
+            for (int i = nextOperation.getAndIncrement(); i < operationCount;
+                 i = nextOperation.getAndIncrement()) {
+              int index = i % expected.length;
+              PhoneNumberUtil util = PhoneNumberUtil.getInstance();
+              PhoneNumber number = util.parse(
+                  util.format(numbers[index / locales.length], PhoneNumberFormat.E164), "ZZ");
+              String actual = util.format(number, PhoneNumberFormat.INTERNATIONAL) + " " +
+                  newGeocoder.getDescriptionForNumber(number, locales[index % locales.length]);
+              if (!expected[index].equals(actual)) {
+                failure.compareAndSet(null, "Expected " + expected[index] + " but was " + actual);
+              }
+            }
+          } catch (Exception e) {
+            failure.compareAndSet(null, e.toString());
+          }
+        }
+      });
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertNull(failure.get(), failure.get());
+  }
 }
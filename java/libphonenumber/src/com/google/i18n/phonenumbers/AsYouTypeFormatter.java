@@ -55,7 +55,7 @@ public class AsYouTypeFormatter {
   // true, we will no longer use local number formatting patterns.
   private boolean isCompleteNumber = false;
   private boolean isExpectingCountryCallingCode = false;
-  private final PhoneNumberUtil phoneUtil = PhoneNumberUtil.getInstance();
+  private final PhoneNumberUtil phoneUtil;
   private String defaultCountry;
 
   // Character used when appropriate to separate a prefix, such as a long NDD or a country calling
@@ -115,16 +115,34 @@ public class AsYouTypeFormatter {
   private StringBuilder nationalNumber = new StringBuilder();
   private List<NumberFormat> possibleFormats = new ArrayList<NumberFormat>();
 
-    // A cache for frequently used country-specific regular expressions.
-  private RegexCache regexCache = new RegexCache(64);
+  // The size of the default cache for country-specific regular expressions.
+  private static final int DEFAULT_REGEX_CACHE_SIZE = 64;
+
+  // A cache for frequently used country-specific regular expressions.
+  private final RegexCache regexCache;
 
   /**
    * Constructs an as-you-type formatter. Should be obtained from {@link
    * PhoneNumberUtil#getAsYouTypeFormatter}.
    *
+   * @param phoneUtil  the PhoneNumberUtil instance providing metadata
+   * @param regionCode  the country/region where the phone number is being entered
+   */
+  AsYouTypeFormatter(PhoneNumberUtil phoneUtil, String regionCode) {
+    this(phoneUtil, regionCode, new RegexCache(DEFAULT_REGEX_CACHE_SIZE));
+  }
+
+  /**
+   * Constructs an as-you-type formatter which uses {@code phoneUtil} for metadata and compiles its
+   * regular expressions through {@code regexCache}.
+   *
+   * @param phoneUtil  the PhoneNumberUtil instance providing metadata
    * @param regionCode  the country/region where the phone number is being entered
+   * @param regexCache  the cache used for country-specific regular expressions
    */
-  AsYouTypeFormatter(String regionCode) {
+  AsYouTypeFormatter(PhoneNumberUtil phoneUtil, String regionCode, RegexCache regexCache) {
+    this.phoneUtil = phoneUtil;
+    this.regexCache = regexCache;
     defaultCountry = regionCode;
     currentMetadata = getMetadataForRegion(defaultCountry);
     defaultMetadata = currentMetadata;
@@ -201,8 +219,7 @@ public class AsYouTypeFormatter {
       NumberFormat format = it.next();
       if (format.leadingDigitsPatternSize() > indexOfLeadingDigitsPattern) {
         Pattern leadingDigitsPattern =
-            regexCache.getPatternForRegex(
-                format.getLeadingDigitsPattern(indexOfLeadingDigitsPattern));
+            format.getCompiledLeadingDigitsPattern(indexOfLeadingDigitsPattern);
         Matcher m = leadingDigitsPattern.matcher(leadingDigits);
         if (!m.lookingAt()) {
           it.remove();
@@ -417,7 +434,7 @@ public class AsYouTypeFormatter {
    */
   String attemptToFormatAccruedDigits() {
     for (NumberFormat numberFormat : possibleFormats) {
-      Matcher m = regexCache.getPatternForRegex(numberFormat.getPattern()).matcher(nationalNumber);
+      Matcher m = numberFormat.getCompiledPattern().matcher(nationalNumber);
       if (m.matches()) {
         shouldAddSpaceAfterNationalPrefix =
             NATIONAL_PREFIX_SEPARATORS_PATTERN.matcher(
@@ -521,8 +538,7 @@ public class AsYouTypeFormatter {
       prefixBeforeNationalNumber.append('1').append(SEPARATOR_BEFORE_NATIONAL_NUMBER);
       isCompleteNumber = true;
     } else if (currentMetadata.hasNationalPrefixForParsing()) {
-      Pattern nationalPrefixForParsing =
-          regexCache.getPatternForRegex(currentMetadata.getNationalPrefixForParsing());
+      Pattern nationalPrefixForParsing = currentMetadata.getCompiledNationalPrefixForParsing();
       Matcher m = nationalPrefixForParsing.matcher(nationalNumber);
       if (m.lookingAt()) {
         // When the national prefix is detected, we use international formatting rules instead of
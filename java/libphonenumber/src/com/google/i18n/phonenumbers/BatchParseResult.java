@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+/**
+ * The result of parsing a batch of numbers with {@link PhoneNumberUtil#parseBatch}. For every
+ * input, in the order given, it holds either the parsed phone number or the type of the error that
+ * {@link PhoneNumberUtil#parse(String, String)} would have thrown for it.
+ */
+public final class BatchParseResult {
+  private final PhoneNumber[] phoneNumbers;
+  private final NumberParseException.ErrorType[] errorTypes;
+
+  BatchParseResult(int size) {
+    phoneNumbers = new PhoneNumber[size];
+    errorTypes = new NumberParseException.ErrorType[size];
+  }
+
+  /**
+   * Returns the number of inputs in the batch.
+   */
+  public int size() {
+    return phoneNumbers.length;
+  }
+
+  /**
+   * Returns true if the input at {@code index} was parsed successfully.
+   */
+  public boolean isParsed(int index) {
+    return phoneNumbers[index] != null;
+  }
+
+  /**
+   * Returns the phone number parsed from the input at {@code index}, or null if it could not be
+   * parsed.
+   */
+  public PhoneNumber getPhoneNumber(int index) {
+    return phoneNumbers[index];
+  }
+
+  /**
+   * Returns the reason the input at {@code index} could not be parsed, or null if it was parsed
+   * successfully.
+   */
+  public NumberParseException.ErrorType getErrorType(int index) {
+    return errorTypes[index];
+  }
+
+  /**
+   * Returns how many inputs in the batch were parsed successfully.
+   */
+  public int getParsedCount() {
+    int count = 0;
+    for (PhoneNumber phoneNumber : phoneNumbers) {
+      if (phoneNumber != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  void setPhoneNumber(int index, PhoneNumber phoneNumber) {
+    phoneNumbers[index] = phoneNumber;
+  }
+
+  void setErrorType(int index, NumberParseException.ErrorType errorType) {
+    errorTypes[index] = errorType;
+  }
+}
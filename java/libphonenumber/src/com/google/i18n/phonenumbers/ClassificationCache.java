@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+/**
+ * Cache for the region, type and validity of phone numbers, for use by a {@link PhoneNumberUtil}
+ * created with {@link PhoneNumberUtil.Builder#setClassificationCache}. Numbers are keyed by their
+ * country calling code, national number and Italian leading zero, which is everything these
+ * results depend on, so a number that is classified again, or a different PhoneNumber object for
+ * the same number, is answered without matching any patterns.
+ *
+ * <p>This is useful when the same numbers are looked up many times, for example when enriching
+ * call records where a few busy numbers make up much of the traffic. The cache holds at most the
+ * given number of entries and evicts with the CLOCK approximation of LRU, so lookups take no
+ * locks. Its counters can be used to tune its size.
+ *
+ * <p>A cache holds results computed with the metadata of the instance it was given to, so it must
+ * not be shared between instances.
+ */
+public class ClassificationCache {
+  private final ClockCache<Key, Classification> cache;
+
+  /**
+   * Creates a cache that holds the classification of at most {@code size} numbers.
+   */
+  public ClassificationCache(int size) {
+    cache = new ClockCache<Key, Classification>(size);
+  }
+
+  Classification get(PhoneNumber number) {
+    return cache.get(new Key(number));
+  }
+
+  void put(PhoneNumber number, Classification classification) {
+    cache.put(new Key(number), classification);
+  }
+
+  /**
+   * Returns the number of lookups that found the number already classified.
+   */
+  public long getHitCount() {
+    return cache.hitCount();
+  }
+
+  /**
+   * Returns the number of lookups that had to classify the number.
+   */
+  public long getMissCount() {
+    return cache.missCount();
+  }
+
+  /**
+   * Returns the number of entries removed from the cache to make room for new ones.
+   */
+  public long getEvictionCount() {
+    return cache.evictionCount();
+  }
+
+  /**
+   * Returns the fraction of lookups that found the number already classified, or 0 if there have
+   * been no lookups.
+   */
+  public double getHitRate() {
+    long hits = getHitCount();
+    long lookups = hits + getMissCount();
+    return lookups == 0 ? 0.0 : (double) hits / lookups;
+  }
+
+  /**
+   * The results cached for a number. The type and validity are those for the region the number
+   * belongs to.
+   */
+  static final class Classification {
+    private final String regionCode;
+    private final PhoneNumberType numberType;
+    private final boolean isValid;
+
+    Classification(String regionCode, PhoneNumberType numberType, boolean isValid) {
+      this.regionCode = regionCode;
+      this.numberType = numberType;
+      this.isValid = isValid;
+    }
+
+    String getRegionCode() {
+      return regionCode;
+    }
+
+    PhoneNumberType getNumberType() {
+      return numberType;
+    }
+
+    boolean isValid() {
+      return isValid;
+    }
+  }
+
+  private static final class Key {
+    private final int countryCode;
+    private final long nationalNumber;
+    private final boolean italianLeadingZero;
+
+    Key(PhoneNumber number) {
+      countryCode = number.getCountryCode();
+      nationalNumber = number.getNationalNumber();
+      italianLeadingZero = number.isItalianLeadingZero();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return countryCode == key.countryCode && nationalNumber == key.nationalNumber &&
+          italianLeadingZero == key.italianLeadingZero;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = 31 * countryCode + (int) (nationalNumber ^ (nationalNumber >>> 32));
+      return italianLeadingZero ? ~hash : hash;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded concurrent cache that evicts with the CLOCK (second chance) approximation of LRU.
+ * Lookups take no locks; only insertions take one, to pick a victim. Used by
+ * {@link RegexCache} and {@link ClassificationCache}.
+ */
+final class ClockCache<K, V> implements RegexCache.Cache<K, V> {
+  // Hits are counted in a striped array so that threads reading different stripes do not keep
+  // invalidating the same cache line. Each stripe is padded to 8 longs (64 bytes).
+  private static final int HIT_STRIPES = 16;
+  private static final int STRIPE_PADDING = 8;
+
+  private final ConcurrentHashMap<K, Node<K, V>> map;
+  // The clock: a fixed ring of slots, swept by hand. Guarded by lock.
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Node<K, V>[] slots;
+  private int hand = 0;
+
+  private final AtomicLongArray hits = new AtomicLongArray(HIT_STRIPES * STRIPE_PADDING);
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  private static final class Node<K, V> {
+    final K key;
+    final V value;
+    // Set on every hit and cleared when the clock hand passes over the node.
+    volatile boolean referenced;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public ClockCache(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + size);
+    }
+    map = new ConcurrentHashMap<K, Node<K, V>>(size * 4 / 3 + 1);
+    slots = (Node<K, V>[]) new Node[size];
+  }
+
+  public V get(K key) {
+    Node<K, V> node = map.get(key);
+    if (node == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    // Only write when the bit is clear, so hot entries do not cause cache-line traffic.
+    if (!node.referenced) {
+      node.referenced = true;
+    }
+    int stripe = (System.identityHashCode(Thread.currentThread()) & (HIT_STRIPES - 1));
+    hits.incrementAndGet(stripe * STRIPE_PADDING);
+    return node.value;
+  }
+
+  public void put(K key, V value) {
+    lock.lock();
+    try {
+      if (map.containsKey(key)) {
+        // Another thread compiled the same pattern concurrently.
+        return;
+      }
+      Node<K, V> node = new Node<K, V>(key, value);
+      while (true) {
+        Node<K, V> current = slots[hand];
+        if (current == null) {
+          break;
+        }
+        if (current.referenced) {
+          // Give this entry a second chance.
+          current.referenced = false;
+          hand = (hand + 1) % slots.length;
+        } else {
+          map.remove(current.key);
+          evictions.incrementAndGet();
+          break;
+        }
+      }
+      slots[hand] = node;
+      hand = (hand + 1) % slots.length;
+      map.put(key, node);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean containsKey(K key) {
+    return map.containsKey(key);
+  }
+
+  public long hitCount() {
+    long total = 0;
+    for (int i = 0; i < HIT_STRIPES; i++) {
+      total += hits.get(i * STRIPE_PADDING);
+    }
+    return total;
+  }
+
+  public long missCount() {
+    return misses.get();
+  }
+
+  public long evictionCount() {
+    return evictions.get();
+  }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.NotSerializableException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metadata for all regions stored in a single file, which can be memory-mapped and from which the
+ * metadata of each region is only deserialized when it is first needed. This avoids looking up
+ * one resource per region and the overhead of Java serialization.
+ *
+ * <p>The file starts with a header of three big-endian ints: the magic number {@link #MAGIC}, the
+ * format version and the number of entries. An index follows with one 16-byte record per entry:
+ * the country calling code (int), the region code in ASCII, padded with zero bytes to 4 bytes,
+ * and the offset from the start of the file (int) and length (int) of the entry's data. For
+ * non-geographical entities the region code is "001". The entries for each country calling code
+ * are consecutive, with the main region for the code first. The data of each entry is
+ * {@link PhoneMetadata#writeExternal} written without any Java serialization framing.
+ *
+ * <p>Instances are thread-safe.
+ */
+final class CompactMetadataFile {
+  // "LPNM" in ASCII.
+  static final int MAGIC = 0x4c504e4d;
+  static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 12;
+  private static final int INDEX_ENTRY_SIZE = 16;
+  private static final int REGION_CODE_SIZE = 4;
+
+  // The file contents. Never read through directly, only through duplicates, so that concurrent
+  // readers do not share a position.
+  private final ByteBuffer buffer;
+  // The index of the entry for each region code and non-geographical country calling code.
+  private final Map<String, Integer> regionCodeToEntry = new HashMap<String, Integer>();
+  private final Map<Integer, Integer> nonGeoCountryCodeToEntry = new HashMap<Integer, Integer>();
+  private final Map<Integer, List<String>> countryCallingCodeToRegionCodeMap =
+      new LinkedHashMap<Integer, List<String>>();
+
+  /**
+   * Creates an instance from the file contents in {@code buffer}, from its position onwards. Only
+   * the index is read; the metadata of each region is read when requested.
+   *
+   * @throws IOException  if the buffer does not hold metadata in a supported version of the format
+   */
+  CompactMetadataFile(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer.slice().asReadOnlyBuffer();
+    if (this.buffer.remaining() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC) {
+      throw new IOException("not a compact metadata file");
+    }
+    int version = this.buffer.getInt(4);
+    if (version != VERSION) {
+      throw new IOException("unsupported compact metadata version: " + version);
+    }
+    int entryCount = this.buffer.getInt(8);
+    if (entryCount < 0 ||
+        HEADER_SIZE + (long) entryCount * INDEX_ENTRY_SIZE > this.buffer.limit()) {
+      throw new IOException("truncated compact metadata index");
+    }
+    for (int i = 0; i < entryCount; i++) {
+      int entryStart = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+      int countryCallingCode = this.buffer.getInt(entryStart);
+      String regionCode = readRegionCode(entryStart + 4);
+      int offset = this.buffer.getInt(entryStart + 8);
+      int length = this.buffer.getInt(entryStart + 12);
+      if (offset < 0 || length < 0 || (long) offset + length > this.buffer.limit()) {
+        throw new IOException("invalid compact metadata entry for " + regionCode);
+      }
+      if (PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCode)) {
+        nonGeoCountryCodeToEntry.put(countryCallingCode, i);
+      } else {
+        regionCodeToEntry.put(regionCode, i);
+      }
+      List<String> regionCodes = countryCallingCodeToRegionCodeMap.get(countryCallingCode);
+      if (regionCodes == null) {
+        regionCodes = new ArrayList<String>(1);
+        countryCallingCodeToRegionCodeMap.put(countryCallingCode, regionCodes);
+      }
+      regionCodes.add(regionCode);
+    }
+  }
+
+  /**
+   * Memory-maps {@code file}, which must have been written by {@link #write}.
+   */
+  static CompactMetadataFile map(File file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      // The mapping stays valid after the channel is closed.
+      return new CompactMetadataFile(
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  /**
+   * Reads the whole of {@code source} into memory, for files that cannot be mapped, such as
+   * resources packaged in a jar. The stream is not closed.
+   */
+  static CompactMetadataFile read(InputStream source) throws IOException {
+    ByteArrayOutputStream contents = new ByteArrayOutputStream();
+    byte[] chunk = new byte[8192];
+    int bytesRead;
+    while ((bytesRead = source.read(chunk)) != -1) {
+      contents.write(chunk, 0, bytesRead);
+    }
+    return new CompactMetadataFile(ByteBuffer.wrap(contents.toByteArray()));
+  }
+
+  /**
+   * Returns the country calling codes in the file, each mapped to its region codes with the main
+   * region first, in the form {@link PhoneNumberUtil} expects.
+   */
+  Map<Integer, List<String>> getCountryCallingCodeToRegionCodeMap() {
+    return countryCallingCodeToRegionCodeMap;
+  }
+
+  /**
+   * Reads the metadata for {@code regionCode}, or returns null if the file has none.
+   */
+  PhoneMetadata getMetadataForRegion(String regionCode) throws IOException {
+    Integer entry = regionCodeToEntry.get(regionCode);
+    return entry == null ? null : readEntry(entry);
+  }
+
+  /**
+   * Reads the metadata for the non-geographical entity with {@code countryCallingCode}, or returns
+   * null if the file has none.
+   */
+  PhoneMetadata getMetadataForNonGeographicalRegion(int countryCallingCode) throws IOException {
+    Integer entry = nonGeoCountryCodeToEntry.get(countryCallingCode);
+    return entry == null ? null : readEntry(entry);
+  }
+
+  private PhoneMetadata readEntry(int entry) throws IOException {
+    int entryStart = HEADER_SIZE + entry * INDEX_ENTRY_SIZE;
+    ByteBuffer data = buffer.duplicate();
+    int offset = data.getInt(entryStart + 8);
+    data.limit(offset + data.getInt(entryStart + 12));
+    data.position(offset);
+    PhoneMetadata metadata = new PhoneMetadata();
+    metadata.readExternal(new DataObjectInput(new ByteBufferInputStream(data)));
+    return metadata;
+  }
+
+  private String readRegionCode(int start) {
+    StringBuilder regionCode = new StringBuilder(REGION_CODE_SIZE);
+    for (int i = start; i < start + REGION_CODE_SIZE && buffer.get(i) != 0; i++) {
+      regionCode.append((char) buffer.get(i));
+    }
+    return regionCode.toString();
+  }
+
+  /**
+   * Writes {@code metadataList} to {@code output} in the compact format. The metadata must be
+   * ordered by country calling code, with the main region for each code first, so that the order
+   * of region codes in {@link #getCountryCallingCodeToRegionCodeMap} is preserved. The stream is
+   * not closed.
+   */
+  static void write(List<PhoneMetadata> metadataList, OutputStream output) throws IOException {
+    List<byte[]> entries = new ArrayList<byte[]>(metadataList.size());
+    for (PhoneMetadata metadata : metadataList) {
+      ByteArrayOutputStream entry = new ByteArrayOutputStream();
+      DataObjectOutput entryOutput = new DataObjectOutput(entry);
+      metadata.writeExternal(entryOutput);
+      entryOutput.flush();
+      entries.add(entry.toByteArray());
+    }
+    DataOutputStream out = new DataOutputStream(output);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(entries.size());
+    int offset = HEADER_SIZE + entries.size() * INDEX_ENTRY_SIZE;
+    for (int i = 0; i < entries.size(); i++) {
+      PhoneMetadata metadata = metadataList.get(i);
+      String regionCode = metadata.getId();
+      if (regionCode.length() > REGION_CODE_SIZE) {
+        throw new IllegalArgumentException("region code too long: " + regionCode);
+      }
+      out.writeInt(metadata.getCountryCode());
+      for (int j = 0; j < REGION_CODE_SIZE; j++) {
+        out.writeByte(j < regionCode.length() ? regionCode.charAt(j) : 0);
+      }
+      out.writeInt(offset);
+      out.writeInt(entries.get(i).length);
+      offset += entries.get(i).length;
+    }
+    for (byte[] entry : entries) {
+      out.write(entry);
+    }
+    out.flush();
+  }
+
+  /**
+   * Reads the data of an entry as a plain stream of primitives, as written by
+   * {@link DataObjectOutput}.
+   */
+  private static final class DataObjectInput extends DataInputStream implements ObjectInput {
+    DataObjectInput(InputStream in) {
+      super(in);
+    }
+
+    public Object readObject() throws IOException {
+      throw new InvalidObjectException("metadata does not contain objects");
+    }
+  }
+
+  private static final class DataObjectOutput extends DataOutputStream implements ObjectOutput {
+    DataObjectOutput(OutputStream out) {
+      super(out);
+    }
+
+    public void writeObject(Object object) throws IOException {
+      throw new NotSerializableException(object == null ? "null" : object.getClass().getName());
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int bytesRead = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, bytesRead);
+      return bytesRead;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
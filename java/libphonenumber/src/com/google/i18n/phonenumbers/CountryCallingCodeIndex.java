@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The region codes for each country calling code, in an array indexed directly by the code. Since
+ * country calling codes have at most three digits, this needs no hashing or boxing, and codes can
+ * be looked up digit by digit while they are being read from a number.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class CountryCallingCodeIndex {
+  // One more than the largest three digit country calling code.
+  private static final int SIZE = 1000;
+
+  // The region codes for each country calling code, with the main region first, or null if the
+  // code is not supported.
+  private final List<String>[] regionCodes;
+
+  /**
+   * Creates an index of {@code countryCallingCodeToRegionCodeMap}, in which the main region for
+   * each country calling code is listed first. Codes that are not between 1 and 999 are ignored,
+   * since they can never be read from a number.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  CountryCallingCodeIndex(Map<Integer, List<String>> countryCallingCodeToRegionCodeMap) {
+    regionCodes = new List[SIZE];
+    for (Map.Entry<Integer, List<String>> entry : countryCallingCodeToRegionCodeMap.entrySet()) {
+      int countryCallingCode = entry.getKey();
+      if (countryCallingCode > 0 && countryCallingCode < SIZE && !entry.getValue().isEmpty()) {
+        regionCodes[countryCallingCode] =
+            Collections.unmodifiableList(new ArrayList<String>(entry.getValue()));
+      }
+    }
+  }
+
+  /**
+   * Creates an index of the region codes {@code regionCodes[i]} of each country calling code
+   * {@code countryCallingCodes[i]}, as the generated mapping classes hold them, with the main
+   * region for each code listed first. No map or list is built on the way, and the arrays of
+   * region codes are not copied, so they must not be modified afterwards.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  CountryCallingCodeIndex(int[] countryCallingCodes, String[][] regionCodes) {
+    this.regionCodes = new List[SIZE];
+    for (int i = 0; i < countryCallingCodes.length; i++) {
+      int countryCallingCode = countryCallingCodes[i];
+      if (countryCallingCode > 0 && countryCallingCode < SIZE && regionCodes[i].length != 0) {
+        this.regionCodes[countryCallingCode] =
+            Collections.unmodifiableList(Arrays.asList(regionCodes[i]));
+      }
+    }
+  }
+
+  /**
+   * Returns the supported country calling codes, in increasing order.
+   */
+  int[] getCountryCallingCodes() {
+    int count = 0;
+    for (List<String> regions : regionCodes) {
+      if (regions != null) {
+        count++;
+      }
+    }
+    int[] countryCallingCodes = new int[count];
+    count = 0;
+    for (int countryCallingCode = 1; countryCallingCode < SIZE; countryCallingCode++) {
+      if (regionCodes[countryCallingCode] != null) {
+        countryCallingCodes[count++] = countryCallingCode;
+      }
+    }
+    return countryCallingCodes;
+  }
+
+  /**
+   * Returns true if {@code countryCallingCode} is a supported country calling code.
+   */
+  boolean contains(int countryCallingCode) {
+    return countryCallingCode > 0 && countryCallingCode < SIZE &&
+        regionCodes[countryCallingCode] != null;
+  }
+
+  /**
+   * Returns the region codes for {@code countryCallingCode}, with the main region first, or null if
+   * the code is not supported. The list cannot be modified.
+   */
+  List<String> getRegionCodes(int countryCallingCode) {
+    return contains(countryCallingCode) ? regionCodes[countryCallingCode] : null;
+  }
+
+  /**
+   * Returns the main region code for {@code countryCallingCode}, or null if the code is not
+   * supported.
+   */
+  String getMainRegionCode(int countryCallingCode) {
+    return contains(countryCallingCode) ? regionCodes[countryCallingCode].get(0) : null;
+  }
+
+  /**
+   * Returns the supported country calling code at the start of {@code digits}, which must consist
+   * of ASCII digits, or 0 if it does not start with one. Since no country calling code is a prefix
+   * of another, the first match is the only one. Country calling codes never start with 0, so a
+   * leading 0 is not skipped over.
+   */
+  int findCountryCallingCode(CharSequence digits) {
+    if (digits.length() == 0 || digits.charAt(0) == '0') {
+      return 0;
+    }
+    int countryCallingCode = 0;
+    for (int i = 0; i < PhoneNumberUtil.MAX_LENGTH_COUNTRY_CODE && i < digits.length(); i++) {
+      countryCallingCode = countryCallingCode * 10 + (digits.charAt(i) - '0');
+      if (contains(countryCallingCode)) {
+        return countryCallingCode;
+      }
+    }
+    return 0;
+  }
+}
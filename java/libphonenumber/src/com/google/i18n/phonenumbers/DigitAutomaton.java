@@ -0,0 +1,660 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A deterministic automaton over digits that matches a string against up to {@link #MAX_PATTERNS}
+ * regular expressions at once, in one pass over its digits. It is the common engine behind the
+ * automata that classify numbers and choose their formatting patterns.
+ *
+ * <p>Only the subset of regular expression syntax that the metadata uses is supported: literals,
+ * {@code \d}, character classes, groups, alternation and the {@code ?}, {@code *}, {@code +} and
+ * {@code {n,m}} quantifiers. {@link #compile} returns null for patterns that use anything else, or
+ * whose automaton would be too large, and callers then fall back to regular expressions.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class DigitAutomaton {
+  // The number of patterns that fit in the masks returned by match.
+  static final int MAX_PATTERNS = 64;
+
+  // Larger automata are not worth their memory; no metadata comes close to this. Must be less than
+  // MINIMAL_DEAD_STATE.
+  private static final int MAX_STATES = 4096;
+  // Bounds the intermediate automaton, which for nested repetitions can be far larger than the
+  // final one, so that patterns such as "(?:\d{999}){999}" are rejected before they exhaust
+  // memory.
+  private static final int MAX_NFA_STATES = 16 * MAX_STATES;
+  // The largest count in a {n,m} quantifier; the metadata uses at most a few dozen.
+  private static final int MAX_REPETITIONS = 256;
+
+  private static final int DEAD_STATE = -1;
+  // The dead state once the automaton has been minimized, where states are stored as chars.
+  private static final char MINIMAL_DEAD_STATE = Character.MAX_VALUE;
+
+  // The next state for each state and digit, at index state * 10 + digit. At most a few hundred
+  // states are needed for any region, so they are stored as chars to halve the size of the table.
+  private final char[] transitions;
+  // For each state, the patterns that match if the input ends in it; pattern i is bit i.
+  private final long[] acceptedPatterns;
+
+  private DigitAutomaton(char[] transitions, long[] acceptedPatterns) {
+    this.transitions = transitions;
+    this.acceptedPatterns = acceptedPatterns;
+  }
+
+  /**
+   * Compiles {@code patterns} into an automaton, or returns null if one of them is not supported
+   * or the automaton would be too large. Null entries match nothing.
+   */
+  static DigitAutomaton compile(String[] patterns) {
+    if (patterns.length > MAX_PATTERNS) {
+      return null;
+    }
+    Nfa nfa = new Nfa();
+    int start = nfa.newState();
+    for (int i = 0; i < patterns.length; i++) {
+      if (patterns[i] == null) {
+        continue;
+      }
+      int[] fragment;
+      try {
+        fragment = new Parser(patterns[i]).parse().build(nfa);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+      nfa.addEpsilon(start, fragment[0]);
+      nfa.acceptedPatterns[fragment[1]] |= 1L << i;
+    }
+    return nfa.toDfa(start);
+  }
+
+  /**
+   * Returns the patterns that match all of {@code input}, as a mask of their indices.
+   */
+  long match(CharSequence input) {
+    return match(input, 0L);
+  }
+
+  /**
+   * Returns the patterns that match all of {@code input}, together with those patterns in
+   * {@code prefixPatterns} that match some prefix of it as
+   * {@link java.util.regex.Matcher#lookingAt} would, as a mask of their indices.
+   */
+  long match(CharSequence input, long prefixPatterns) {
+    int state = 0;
+    long matched = acceptedPatterns[0] & prefixPatterns;
+    for (int i = 0; i < input.length(); i++) {
+      int digit = input.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return matched;
+      }
+      state = transitions[state * 10 + digit];
+      if (state == MINIMAL_DEAD_STATE) {
+        return matched;
+      }
+      matched |= acceptedPatterns[state] & prefixPatterns;
+    }
+    return matched | acceptedPatterns[state];
+  }
+
+  /**
+   * Like {@link #match(CharSequence, long)} for the decimal digits of the characters of
+   * {@code text} from {@code start} to {@code end}, converted to ASCII and with all other
+   * characters ignored, as {@link PhoneNumberUtil#normalizeDigitsOnly} would leave them. Saves
+   * creating the normalized string.
+   */
+  long matchDigitsOf(CharSequence text, int start, int end, long prefixPatterns) {
+    int state = 0;
+    long matched = acceptedPatterns[0] & prefixPatterns;
+    for (int i = start; i < end; i++) {
+      int digit = Character.digit(text.charAt(i), 10);
+      if (digit < 0) {
+        continue;
+      }
+      state = transitions[state * 10 + digit];
+      if (state == MINIMAL_DEAD_STATE) {
+        return matched;
+      }
+      matched |= acceptedPatterns[state] & prefixPatterns;
+    }
+    return matched | acceptedPatterns[state];
+  }
+
+  // @VisibleForTesting
+  int getStateCount() {
+    return acceptedPatterns.length;
+  }
+
+  private static int[] copyOf(int[] array, int length) {
+    int[] copy = new int[length];
+    System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+    return copy;
+  }
+
+  private static long[] copyOf(long[] array, int length) {
+    long[] copy = new long[length];
+    System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+    return copy;
+  }
+
+  /**
+   * A nondeterministic automaton with epsilon transitions, built from the patterns by Thompson's
+   * construction. Every state has either epsilon transitions or a single transition on a set of
+   * digits.
+   */
+  private static final class Nfa {
+    int stateCount = 0;
+    int[] digitMasks = new int[64];
+    int[] digitTargets = new int[64];
+    long[] acceptedPatterns = new long[64];
+    List<int[]> epsilonTargets = new ArrayList<int[]>();
+
+    // Throws IllegalArgumentException once the automaton has MAX_NFA_STATES states.
+    int newState() {
+      if (stateCount == MAX_NFA_STATES) {
+        throw new IllegalArgumentException("Automaton has more than " + MAX_NFA_STATES + " states");
+      }
+      if (stateCount == digitMasks.length) {
+        digitMasks = copyOf(digitMasks, stateCount * 2);
+        digitTargets = copyOf(digitTargets, stateCount * 2);
+        acceptedPatterns = copyOf(acceptedPatterns, stateCount * 2);
+      }
+      epsilonTargets.add(null);
+      return stateCount++;
+    }
+
+    void addEpsilon(int from, int to) {
+      int[] targets = epsilonTargets.get(from);
+      if (targets == null) {
+        targets = new int[] {to};
+      } else {
+        targets = copyOf(targets, targets.length + 1);
+        targets[targets.length - 1] = to;
+      }
+      epsilonTargets.set(from, targets);
+    }
+
+    void addDigits(int from, int digitMask, int to) {
+      digitMasks[from] = digitMask;
+      digitTargets[from] = to;
+    }
+
+    /**
+     * Adds to {@code states} all states reachable from it by epsilon transitions.
+     */
+    void closeOverEpsilon(BitSet states) {
+      int[] stack = new int[stateCount];
+      int size = 0;
+      for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+        stack[size++] = state;
+      }
+      while (size > 0) {
+        int[] targets = epsilonTargets.get(stack[--size]);
+        if (targets != null) {
+          for (int target : targets) {
+            if (!states.get(target)) {
+              states.set(target);
+              stack[size++] = target;
+            }
+          }
+        }
+      }
+    }
+
+    /**
+     * Converts this automaton into a deterministic one by the subset construction, or returns null
+     * if it would have more than {@link #MAX_STATES} states.
+     */
+    DigitAutomaton toDfa(int start) {
+      BitSet startStates = new BitSet(stateCount);
+      startStates.set(start);
+      closeOverEpsilon(startStates);
+      Map<BitSet, Integer> dfaStateIds = new HashMap<BitSet, Integer>();
+      List<BitSet> dfaStates = new ArrayList<BitSet>();
+      dfaStateIds.put(startStates, 0);
+      dfaStates.add(startStates);
+      int[] transitions = new int[10 * 64];
+      for (int dfaState = 0; dfaState < dfaStates.size(); dfaState++) {
+        if (transitions.length < (dfaState + 1) * 10) {
+          transitions = copyOf(transitions, transitions.length * 2);
+        }
+        BitSet states = dfaStates.get(dfaState);
+        for (int digit = 0; digit < 10; digit++) {
+          BitSet next = new BitSet(stateCount);
+          for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+            if ((digitMasks[state] & (1 << digit)) != 0) {
+              next.set(digitTargets[state]);
+            }
+          }
+          if (next.isEmpty()) {
+            transitions[dfaState * 10 + digit] = DEAD_STATE;
+            continue;
+          }
+          closeOverEpsilon(next);
+          Integer nextId = dfaStateIds.get(next);
+          if (nextId == null) {
+            if (dfaStates.size() == MAX_STATES) {
+              return null;
+            }
+            nextId = dfaStates.size();
+            dfaStateIds.put(next, nextId);
+            dfaStates.add(next);
+          }
+          transitions[dfaState * 10 + digit] = nextId;
+        }
+      }
+      long[] dfaAcceptedPatterns = new long[dfaStates.size()];
+      for (int dfaState = 0; dfaState < dfaStates.size(); dfaState++) {
+        BitSet states = dfaStates.get(dfaState);
+        for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+          dfaAcceptedPatterns[dfaState] |= acceptedPatterns[state];
+        }
+      }
+      return minimize(copyOf(transitions, dfaStates.size() * 10), dfaAcceptedPatterns);
+    }
+  }
+
+  /**
+   * Merges the states of a deterministic automaton that accept the same patterns after every
+   * input, by Moore's partition refinement. The subset construction leaves many such states, since
+   * the patterns repeat the same digit sequences after different prefixes.
+   */
+  private static DigitAutomaton minimize(int[] transitions, long[] acceptedPatterns) {
+    int stateCount = acceptedPatterns.length;
+    // Start with the states partitioned by the patterns they accept, then split blocks until all
+    // states in each block go to the same blocks on every digit. Blocks are numbered in order of
+    // their first state, so the start state stays in block 0.
+    int[] blocks = null;
+    int blockCount = 0;
+    while (true) {
+      Map<Signature, Integer> blockIds = new HashMap<Signature, Integer>();
+      int[] refinedBlocks = new int[stateCount];
+      for (int state = 0; state < stateCount; state++) {
+        long[] signature = new long[11];
+        if (blocks == null) {
+          signature[0] = acceptedPatterns[state];
+        } else {
+          signature[0] = blocks[state];
+          for (int digit = 0; digit < 10; digit++) {
+            int next = transitions[state * 10 + digit];
+            signature[digit + 1] = next == DEAD_STATE ? DEAD_STATE : blocks[next];
+          }
+        }
+        Signature key = new Signature(signature);
+        Integer block = blockIds.get(key);
+        if (block == null) {
+          block = blockIds.size();
+          blockIds.put(key, block);
+        }
+        refinedBlocks[state] = block;
+      }
+      boolean isStable = blocks != null && blockIds.size() == blockCount;
+      blocks = refinedBlocks;
+      blockCount = blockIds.size();
+      if (isStable) {
+        break;
+      }
+    }
+    char[] minimalTransitions = new char[blockCount * 10];
+    long[] minimalAcceptedPatterns = new long[blockCount];
+    for (int state = 0; state < stateCount; state++) {
+      int block = blocks[state];
+      minimalAcceptedPatterns[block] = acceptedPatterns[state];
+      for (int digit = 0; digit < 10; digit++) {
+        int next = transitions[state * 10 + digit];
+        minimalTransitions[block * 10 + digit] =
+            next == DEAD_STATE ? MINIMAL_DEAD_STATE : (char) blocks[next];
+      }
+    }
+    return new DigitAutomaton(minimalTransitions, minimalAcceptedPatterns);
+  }
+
+  /**
+   * The block of a state and the blocks it goes to on each digit, compared by value.
+   */
+  private static final class Signature {
+    private final long[] blocks;
+
+    Signature(long[] blocks) {
+      this.blocks = blocks;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Signature && Arrays.equals(blocks, ((Signature) other).blocks);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(blocks);
+    }
+  }
+
+  /**
+   * A node of a parsed pattern, which can add a fragment matching it to an automaton.
+   */
+  private abstract static class Node {
+    /**
+     * Adds states matching this node to {@code nfa} and returns the start and end state.
+     */
+    abstract int[] build(Nfa nfa);
+  }
+
+  private static final class DigitsNode extends Node {
+    private final int digitMask;
+
+    DigitsNode(int digitMask) {
+      this.digitMask = digitMask;
+    }
+
+    @Override
+    int[] build(Nfa nfa) {
+      int start = nfa.newState();
+      int end = nfa.newState();
+      // A literal other than a digit can never match a national number.
+      if (digitMask != 0) {
+        nfa.addDigits(start, digitMask, end);
+      }
+      return new int[] {start, end};
+    }
+  }
+
+  private static final class SequenceNode extends Node {
+    private final List<Node> nodes;
+
+    SequenceNode(List<Node> nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    int[] build(Nfa nfa) {
+      int start = nfa.newState();
+      int end = start;
+      for (Node node : nodes) {
+        int[] fragment = node.build(nfa);
+        nfa.addEpsilon(end, fragment[0]);
+        end = fragment[1];
+      }
+      return new int[] {start, end};
+    }
+  }
+
+  private static final class AlternationNode extends Node {
+    private final List<Node> alternatives;
+
+    AlternationNode(List<Node> alternatives) {
+      this.alternatives = alternatives;
+    }
+
+    @Override
+    int[] build(Nfa nfa) {
+      int start = nfa.newState();
+      int end = nfa.newState();
+      for (Node alternative : alternatives) {
+        int[] fragment = alternative.build(nfa);
+        nfa.addEpsilon(start, fragment[0]);
+        nfa.addEpsilon(fragment[1], end);
+      }
+      return new int[] {start, end};
+    }
+  }
+
+  private static final class RepetitionNode extends Node {
+    private final Node node;
+    private final int min;
+    // -1 if there is no upper bound.
+    private final int max;
+
+    RepetitionNode(Node node, int min, int max) {
+      this.node = node;
+      this.min = min;
+      this.max = max;
+    }
+
+    @Override
+    int[] build(Nfa nfa) {
+      int start = nfa.newState();
+      int end = start;
+      for (int i = 0; i < min; i++) {
+        int[] fragment = node.build(nfa);
+        nfa.addEpsilon(end, fragment[0]);
+        end = fragment[1];
+      }
+      if (max == -1) {
+        int[] fragment = node.build(nfa);
+        int loopEnd = nfa.newState();
+        nfa.addEpsilon(end, fragment[0]);
+        nfa.addEpsilon(end, loopEnd);
+        nfa.addEpsilon(fragment[1], fragment[0]);
+        nfa.addEpsilon(fragment[1], loopEnd);
+        return new int[] {start, loopEnd};
+      }
+      // Each optional repetition may be skipped, which ends the match of this node.
+      int optionalEnd = nfa.newState();
+      for (int i = min; i < max; i++) {
+        int[] fragment = node.build(nfa);
+        nfa.addEpsilon(end, fragment[0]);
+        nfa.addEpsilon(end, optionalEnd);
+        end = fragment[1];
+      }
+      nfa.addEpsilon(end, optionalEnd);
+      return new int[] {start, optionalEnd};
+    }
+  }
+
+  /**
+   * A recursive descent parser for the supported subset of regular expressions. Throws
+   * IllegalArgumentException for anything outside of it.
+   */
+  private static final class Parser {
+    private final String pattern;
+    private int position = 0;
+
+    Parser(String pattern) {
+      this.pattern = pattern;
+    }
+
+    Node parse() {
+      Node node = parseAlternation();
+      if (position != pattern.length()) {
+        throw unsupported();
+      }
+      return node;
+    }
+
+    private IllegalArgumentException unsupported() {
+      return new IllegalArgumentException(
+          "Unsupported pattern syntax at " + position + " in " + pattern);
+    }
+
+    private boolean hasNext() {
+      return position < pattern.length();
+    }
+
+    private char peek() {
+      return pattern.charAt(position);
+    }
+
+    private Node parseAlternation() {
+      List<Node> alternatives = new ArrayList<Node>();
+      alternatives.add(parseSequence());
+      while (hasNext() && peek() == '|') {
+        position++;
+        alternatives.add(parseSequence());
+      }
+      return alternatives.size() == 1 ? alternatives.get(0) : new AlternationNode(alternatives);
+    }
+
+    private Node parseSequence() {
+      List<Node> nodes = new ArrayList<Node>();
+      while (hasNext() && peek() != '|' && peek() != ')') {
+        nodes.add(parseRepetition(parseAtom()));
+      }
+      return new SequenceNode(nodes);
+    }
+
+    private Node parseAtom() {
+      char c = pattern.charAt(position++);
+      switch (c) {
+        case '(':
+          if (pattern.startsWith("?:", position)) {
+            position += 2;
+          } else if (hasNext() && peek() == '?') {
+            // Lookarounds, flags and named groups.
+            throw unsupported();
+          }
+          Node group = parseAlternation();
+          if (!hasNext() || peek() != ')') {
+            throw unsupported();
+          }
+          position++;
+          return group;
+        case '[':
+          return new DigitsNode(parseCharacterClass());
+        case '\\':
+          return new DigitsNode(parseEscape());
+        case '.': case '^': case '$': case '?': case '*': case '+': case '{':
+          throw unsupported();
+        default:
+          // Includes ']' and '}', which are literals outside of classes and quantifiers.
+          return new DigitsNode(getDigitMask(c));
+      }
+    }
+
+    private int parseEscape() {
+      if (!hasNext()) {
+        throw unsupported();
+      }
+      char c = pattern.charAt(position++);
+      if (c == 'd') {
+        return 0x3ff;
+      }
+      if (Character.isLetterOrDigit(c)) {
+        // Other classes, back references and the like.
+        throw unsupported();
+      }
+      return getDigitMask(c);
+    }
+
+    private int parseCharacterClass() {
+      if (hasNext() && peek() == '^') {
+        throw unsupported();
+      }
+      int digitMask = 0;
+      boolean first = true;
+      while (hasNext() && (first || peek() != ']')) {
+        first = false;
+        char c = pattern.charAt(position++);
+        if (c == '[' || c == '&') {
+          // Nested classes and intersections.
+          throw unsupported();
+        }
+        if (c == '\\') {
+          digitMask |= parseEscape();
+          continue;
+        }
+        if (position + 1 < pattern.length() && peek() == '-' &&
+            pattern.charAt(position + 1) != ']') {
+          char last = pattern.charAt(position + 1);
+          position += 2;
+          if (last < c || last == '\\' || last == '[') {
+            throw unsupported();
+          }
+          for (char d = (char) Math.max(c, '0'); d <= last && d <= '9'; d++) {
+            digitMask |= getDigitMask(d);
+          }
+        } else {
+          digitMask |= getDigitMask(c);
+        }
+      }
+      if (!hasNext()) {
+        throw unsupported();
+      }
+      position++;
+      return digitMask;
+    }
+
+    private Node parseRepetition(Node node) {
+      while (hasNext()) {
+        char c = peek();
+        int min;
+        int max;
+        if (c == '?') {
+          min = 0;
+          max = 1;
+          position++;
+        } else if (c == '*') {
+          min = 0;
+          max = -1;
+          position++;
+        } else if (c == '+') {
+          min = 1;
+          max = -1;
+          position++;
+        } else if (c == '{') {
+          position++;
+          min = parseNumber();
+          max = min;
+          if (hasNext() && peek() == ',') {
+            position++;
+            max = hasNext() && peek() == '}' ? -1 : parseNumber();
+          }
+          if (!hasNext() || peek() != '}' || (max != -1 && max < min) || min > MAX_REPETITIONS ||
+              max > MAX_REPETITIONS) {
+            throw unsupported();
+          }
+          position++;
+        } else {
+          return node;
+        }
+        if (hasNext() && peek() == '+') {
+          // Possessive quantifiers can match fewer strings than greedy ones.
+          throw unsupported();
+        }
+        if (hasNext() && peek() == '?') {
+          // Reluctant quantifiers match the same strings in their entirety as greedy ones.
+          position++;
+        }
+        node = new RepetitionNode(node, min, max);
+      }
+      return node;
+    }
+
+    private int parseNumber() {
+      int start = position;
+      while (hasNext() && peek() >= '0' && peek() <= '9') {
+        position++;
+      }
+      if (position == start || position - start > 4) {
+        throw unsupported();
+      }
+      return Integer.parseInt(pattern.substring(start, position));
+    }
+
+    private static int getDigitMask(char c) {
+      return c >= '0' && c <= '9' ? 1 << (c - '0') : 0;
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.NumberFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * The format rule of a {@link NumberFormat}, parsed once into the literal text and the groups of
+ * the pattern it is made of, so that a number can be formatted by copying the groups matched by
+ * the pattern instead of having {@link Matcher#replaceAll} parse the rule on every call. The
+ * national prefix and carrier code formatting rules are spliced into the format rule when the
+ * template is compiled, and the RFC3966 template has its punctuation replaced by dashes already.
+ *
+ * <p>Rules are parsed the way {@link Matcher#appendReplacement} parses them. Rules that it would
+ * reject, or that refer to groups by name, have no template, and are left to regular expressions.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class FormattingTemplate {
+  // The kinds of template a format has, one for each way formatNsnUsingPattern builds its rule.
+  static final int PLAIN = 0;
+  static final int WITH_NATIONAL_PREFIX = 1;
+  static final int WITH_CARRIER_CODE = 2;
+  static final int RFC3966 = 3;
+  static final int KIND_COUNT = 4;
+
+  // Stands in for the carrier code while the carrier code formatting rule is spliced into the
+  // format rule. It is a noncharacter, so it does not occur in real rules.
+  private static final char CARRIER_CODE_MARKER = '\uFFFF';
+  // The group number that stands for the carrier code in a template.
+  private static final int CARRIER_CODE = -1;
+
+  // The text between the groups; there is one more of these than there are groups.
+  private final String[] literals;
+  private final int[] groups;
+  // True if the template is only correct when every group is a non-empty run of ASCII digits.
+  private final boolean requiresDigitGroups;
+
+  private FormattingTemplate(String[] literals, int[] groups, boolean requiresDigitGroups) {
+    this.literals = literals;
+    this.groups = groups;
+    this.requiresDigitGroups = requiresDigitGroups;
+  }
+
+  /**
+   * Compiles the template of the given kind for a format, or returns null if its rules cannot be
+   * turned into one.
+   */
+  static FormattingTemplate compile(NumberFormat format, int kind) {
+    String rule = format.getFormat();
+    try {
+      if (kind == WITH_NATIONAL_PREFIX) {
+        rule = PhoneNumberUtil.FIRST_GROUP_PATTERN.matcher(rule)
+            .replaceFirst(format.getNationalPrefixFormattingRule());
+      } else if (kind == WITH_CARRIER_CODE) {
+        String carrierCodeFormattingRule = PhoneNumberUtil.CC_PATTERN
+            .matcher(format.getDomesticCarrierCodeFormattingRule())
+            .replaceFirst(String.valueOf(CARRIER_CODE_MARKER));
+        rule = PhoneNumberUtil.FIRST_GROUP_PATTERN.matcher(rule)
+            .replaceFirst(carrierCodeFormattingRule);
+      }
+    } catch (RuntimeException e) {
+      // The rules are invalid as replacement strings, which formatting will report.
+      return null;
+    }
+    int groupCount = format.getCompiledPattern().matcher("").groupCount();
+    FormattingTemplate template = parse(rule, groupCount, kind == WITH_CARRIER_CODE);
+    if (template != null && kind == RFC3966) {
+      template = template.withRfc3966Separators();
+    }
+    return template;
+  }
+
+  // Mirrors Matcher.appendReplacement: a backslash escapes the next character, and a dollar sign is
+  // followed by the longest group number that is not more than the number of groups.
+  private static FormattingTemplate parse(String rule, int groupCount, boolean hasCarrierCode) {
+    List<String> literals = new ArrayList<String>();
+    List<Integer> groups = new ArrayList<Integer>();
+    StringBuilder literal = new StringBuilder();
+    int i = 0;
+    while (i < rule.length()) {
+      char c = rule.charAt(i++);
+      if (c == '\\') {
+        if (i == rule.length()) {
+          return null;
+        }
+        literal.append(rule.charAt(i++));
+      } else if (c == '$') {
+        if (i == rule.length()) {
+          return null;
+        }
+        int group = rule.charAt(i) - '0';
+        if (group < 0 || group > 9 || group > groupCount) {
+          return null;
+        }
+        i++;
+        while (i < rule.length()) {
+          int nextDigit = rule.charAt(i) - '0';
+          if (nextDigit < 0 || nextDigit > 9 || group * 10 + nextDigit > groupCount) {
+            break;
+          }
+          group = group * 10 + nextDigit;
+          i++;
+        }
+        literals.add(literal.toString());
+        literal.setLength(0);
+        groups.add(group);
+      } else if (c == CARRIER_CODE_MARKER) {
+        if (!hasCarrierCode) {
+          return null;
+        }
+        literals.add(literal.toString());
+        literal.setLength(0);
+        groups.add(CARRIER_CODE);
+      } else {
+        literal.append(c);
+      }
+    }
+    literals.add(literal.toString());
+    int[] groupArray = new int[groups.size()];
+    for (int j = 0; j < groupArray.length; j++) {
+      groupArray[j] = groups.get(j);
+    }
+    return new FormattingTemplate(literals.toArray(new String[literals.size()]), groupArray, false);
+  }
+
+  // Formatting as RFC3966 strips any leading punctuation and replaces the rest with dashes. As long
+  // as every group is a non-empty run of digits, no run of punctuation goes past a literal, so this
+  // can be done to the literals once.
+  private FormattingTemplate withRfc3966Separators() {
+    String[] rfc3966Literals = new String[literals.length];
+    for (int i = 0; i < literals.length; i++) {
+      Matcher matcher = PhoneNumberUtil.SEPARATOR_PATTERN.matcher(literals[i]);
+      String literal = literals[i];
+      if (i == 0 && matcher.lookingAt()) {
+        literal = matcher.replaceFirst("");
+      }
+      rfc3966Literals[i] = matcher.reset(literal).replaceAll("-");
+    }
+    return new FormattingTemplate(rfc3966Literals, groups, true);
+  }
+
+  /**
+   * Appends the formatted number to {@code formatted}, given a matcher whose last match was all of
+   * {@code nationalNumber}. Returns false without appending anything if the matched groups are not
+   * ones this template is correct for, in which case the number has to be formatted with regular
+   * expressions.
+   */
+  boolean appendTo(Matcher matcher, String nationalNumber, String carrierCode,
+                   StringBuilder formatted) {
+    if (requiresDigitGroups && !hasDigitGroups(matcher, nationalNumber)) {
+      return false;
+    }
+    formatted.append(literals[0]);
+    for (int i = 0; i < groups.length; i++) {
+      if (groups[i] == CARRIER_CODE) {
+        formatted.append(carrierCode);
+      } else {
+        int start = matcher.start(groups[i]);
+        if (start >= 0) {
+          formatted.append(nationalNumber, start, matcher.end(groups[i]));
+        }
+      }
+      formatted.append(literals[i + 1]);
+    }
+    return true;
+  }
+
+  private boolean hasDigitGroups(Matcher matcher, String nationalNumber) {
+    for (int group : groups) {
+      int start = matcher.start(group);
+      int end = matcher.end(group);
+      if (start < 0 || start == end) {
+        return false;
+      }
+      for (int i = start; i < end; i++) {
+        char c = nationalNumber.charAt(i);
+        if (c < '0' || c > '9') {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.NumberFormat;
+
+import java.util.List;
+
+/**
+ * An index over a list of number formats that chooses the formatting pattern for a national
+ * significant number the way {@link PhoneNumberUtil#chooseFormattingPatternForNumber} does, but
+ * with one pass over its digits instead of two regular expression matches per format tried. The
+ * last leading-digits pattern and the pattern of every format are compiled into a single
+ * {@link DigitAutomaton}, which finds the formats whose leading digits match a prefix of the number
+ * and the formats whose pattern matches all of it at the same time.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class LeadingDigitsIndex {
+  // Each format takes two patterns of the automaton: its pattern and its leading digits.
+  static final int MAX_FORMATS = DigitAutomaton.MAX_PATTERNS / 2;
+
+  // The pattern of format i is pattern i of the automaton and its last leading-digits pattern is
+  // pattern MAX_FORMATS + i.
+  private static final long LEADING_DIGITS_PATTERNS = -1L << MAX_FORMATS;
+
+  // Null if the formats are not supported.
+  private final DigitAutomaton automaton;
+  private final NumberFormat[] formats;
+  // The formats without leading-digits patterns, which apply to numbers with any leading digits.
+  private final long anyLeadingDigits;
+  // The patterns the index was built from, to detect if the formats have changed since. Null if
+  // there are more than MAX_FORMATS formats, which are not supported whatever their patterns.
+  private final String[] sourcePatterns;
+
+  private LeadingDigitsIndex(DigitAutomaton automaton, NumberFormat[] formats,
+                             long anyLeadingDigits, String[] sourcePatterns) {
+    this.automaton = automaton;
+    this.formats = formats;
+    this.anyLeadingDigits = anyLeadingDigits;
+    this.sourcePatterns = sourcePatterns;
+  }
+
+  /**
+   * Builds an index over {@code availableFormats}, or returns null if there are more than
+   * {@link #MAX_FORMATS} of them or one of their patterns is not supported by
+   * {@link DigitAutomaton}.
+   */
+  static LeadingDigitsIndex build(List<NumberFormat> availableFormats) {
+    if (availableFormats.size() > MAX_FORMATS) {
+      return null;
+    }
+    NumberFormat[] formats = availableFormats.toArray(new NumberFormat[availableFormats.size()]);
+    String[] patterns = getSourcePatterns(formats);
+    long anyLeadingDigits = 0L;
+    for (int i = 0; i < formats.length; i++) {
+      if (patterns[MAX_FORMATS + i] == null) {
+        anyLeadingDigits |= 1L << (MAX_FORMATS + i);
+      }
+    }
+    DigitAutomaton automaton = DigitAutomaton.compile(patterns);
+    return automaton == null
+        ? null
+        : new LeadingDigitsIndex(automaton, formats, anyLeadingDigits, patterns);
+  }
+
+  /**
+   * Returns a placeholder for formats that {@link #build} returned null for, which chooses no
+   * format but records {@code availableFormats}, so that {@link #isBuiltFrom} tells when building
+   * is worth attempting again.
+   */
+  static LeadingDigitsIndex unsupported(List<NumberFormat> availableFormats) {
+    NumberFormat[] formats = availableFormats.toArray(new NumberFormat[availableFormats.size()]);
+    return new LeadingDigitsIndex(
+        null, formats, 0L, formats.length > MAX_FORMATS ? null : getSourcePatterns(formats));
+  }
+
+  /**
+   * Returns false if this is a placeholder returned by {@link #unsupported}.
+   */
+  boolean isSupported() {
+    return automaton != null;
+  }
+
+  // Returns the patterns of the automaton for at most MAX_FORMATS formats.
+  private static String[] getSourcePatterns(NumberFormat[] formats) {
+    String[] patterns = new String[2 * MAX_FORMATS];
+    for (int i = 0; i < formats.length; i++) {
+      patterns[i] = formats[i].getPattern();
+      patterns[MAX_FORMATS + i] = getLastLeadingDigitsPattern(formats[i]);
+    }
+    return patterns;
+  }
+
+  // We always use the last leading_digits_pattern, as it is the most detailed.
+  private static String getLastLeadingDigitsPattern(NumberFormat format) {
+    int size = format.leadingDigitsPatternSize();
+    return size == 0 ? null : format.getLeadingDigitsPattern(size - 1);
+  }
+
+  /**
+   * Returns true if this index was built from the current formats in {@code availableFormats}.
+   * The patterns are compared by identity, which is enough since metadata is not normally changed
+   * after it has been loaded. A placeholder for too many formats only checks that there are as
+   * many as before, since no change to their patterns makes them supported.
+   */
+  boolean isBuiltFrom(List<NumberFormat> availableFormats) {
+    if (availableFormats.size() != formats.length) {
+      return false;
+    }
+    if (sourcePatterns == null) {
+      return true;
+    }
+    for (int i = 0; i < formats.length; i++) {
+      NumberFormat format = availableFormats.get(i);
+      if (format != formats[i] || format.getPattern() != sourcePatterns[i] ||
+          getLastLeadingDigitsPattern(format) != sourcePatterns[MAX_FORMATS + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the first format whose last leading-digits pattern matches the start of
+   * {@code nationalNumber} and whose pattern matches all of it, or null if there is none.
+   */
+  NumberFormat chooseFormattingPattern(String nationalNumber) {
+    long matched = automaton.match(nationalNumber, LEADING_DIGITS_PATTERNS);
+    long candidates = matched & ((matched | anyLeadingDigits) >>> MAX_FORMATS);
+    return candidates == 0L ? null : formats[Long.numberOfTrailingZeros(candidates)];
+  }
+}
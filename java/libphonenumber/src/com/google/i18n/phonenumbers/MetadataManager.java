@@ -22,12 +22,10 @@ import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadataCollection;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,10 +44,17 @@ class MetadataManager {
 
   private static final Logger LOGGER = Logger.getLogger(MetadataManager.class.getName());
 
-  private static final Map<Integer, PhoneMetadata> callingCodeToAlternateFormatsMap =
-      Collections.synchronizedMap(new HashMap<Integer, PhoneMetadata>());
-  private static final Map<String, PhoneMetadata> regionCodeToShortNumberMetadataMap =
-      Collections.synchronizedMap(new HashMap<String, PhoneMetadata>());
+  // Metadata that has already been loaded is looked up without taking any lock. Loading is guarded
+  // by a lock per key, so that loading the data for one key does not block lookups of the others.
+  private static final ConcurrentMap<Integer, PhoneMetadata> callingCodeToAlternateFormatsMap =
+      new ConcurrentHashMap<Integer, PhoneMetadata>();
+  private static final ConcurrentMap<String, PhoneMetadata> regionCodeToShortNumberMetadataMap =
+      new ConcurrentHashMap<String, PhoneMetadata>();
+  // The locks that the data above is loaded under. Alternate formats are keyed by Integer calling
+  // codes and short number metadata by String region codes, so one map serves both. As in
+  // PhoneNumberUtil, these are not monitors, so that loading does not pin virtual threads.
+  private static final ConcurrentMap<Object, ReentrantLock> loadLocks =
+      new ConcurrentHashMap<Object, ReentrantLock>();
 
   // A set of which country calling codes there are alternate format data for. If the set has an
   // entry for a code, then there should be data for that code linked into the resources.
@@ -73,6 +78,18 @@ class MetadataManager {
     }
   }
 
+  private static ReentrantLock getLoadLock(Object key) {
+    ReentrantLock lock = loadLocks.get(key);
+    if (lock == null) {
+      ReentrantLock newLock = new ReentrantLock();
+      lock = loadLocks.putIfAbsent(key, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
   private static void loadAlternateFormatsMetadataFromFile(int countryCallingCode) {
     InputStream source = PhoneNumberMatcher.class.getResourceAsStream(
         ALTERNATE_FORMATS_FILE_PREFIX + "_" + countryCallingCode);
@@ -95,10 +112,18 @@ class MetadataManager {
     if (!countryCodeSet.contains(countryCallingCode)) {
       return null;
     }
-    synchronized (callingCodeToAlternateFormatsMap) {
+    PhoneMetadata metadata = callingCodeToAlternateFormatsMap.get(countryCallingCode);
+    if (metadata != null) {
+      return metadata;
+    }
+    ReentrantLock lock = getLoadLock(countryCallingCode);
+    lock.lock();
+    try {
       if (!callingCodeToAlternateFormatsMap.containsKey(countryCallingCode)) {
         loadAlternateFormatsMetadataFromFile(countryCallingCode);
       }
+    } finally {
+      lock.unlock();
     }
     return callingCodeToAlternateFormatsMap.get(countryCallingCode);
   }
@@ -125,10 +150,18 @@ class MetadataManager {
     if (!regionCodeSet.contains(regionCode)) {
       return null;
     }
-    synchronized (regionCodeToShortNumberMetadataMap) {
+    PhoneMetadata metadata = regionCodeToShortNumberMetadataMap.get(regionCode);
+    if (metadata != null) {
+      return metadata;
+    }
+    ReentrantLock lock = getLoadLock(regionCode);
+    lock.lock();
+    try {
       if (!regionCodeToShortNumberMetadataMap.containsKey(regionCode)) {
         loadShortNumberMetadataFromFile(regionCode);
       }
+    } finally {
+      lock.unlock();
     }
     return regionCodeToShortNumberMetadataMap.get(regionCode);
   }
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
+
+/**
+ * A deterministic automaton over digits that matches a national significant number against the
+ * possible-number and national-number patterns of all the number descriptions of a region at once.
+ * This replaces the up to twenty separate regular expression matches that classifying a number
+ * takes with one pass over its digits.
+ *
+ * <p>{@link #compile} returns null for metadata whose patterns {@link DigitAutomaton} does not
+ * support, and such regions are classified with regular expressions.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class NumberTypeAutomaton {
+  // The bit positions of the number descriptions in the masks returned by match, in the order in
+  // which getNumberType checks them.
+  static final int GENERAL = 0;
+  static final int PREMIUM_RATE = 1;
+  static final int TOLL_FREE = 2;
+  static final int SHARED_COST = 3;
+  static final int VOIP = 4;
+  static final int PERSONAL_NUMBER = 5;
+  static final int PAGER = 6;
+  static final int UAN = 7;
+  static final int VOICEMAIL = 8;
+  static final int FIXED_LINE = 9;
+  static final int MOBILE = 10;
+  private static final int DESC_COUNT = 11;
+  private static final int ALL_DESCS = (1 << DESC_COUNT) - 1;
+
+  // Matches the possible-number pattern of description i as pattern i, and its national-number
+  // pattern as pattern DESC_COUNT + i. Null if the patterns are not supported.
+  private final DigitAutomaton automaton;
+  // The patterns the automaton was compiled from, to detect if the metadata has changed since.
+  private final String[] sourcePatterns;
+
+  private NumberTypeAutomaton(DigitAutomaton automaton, String[] sourcePatterns) {
+    this.automaton = automaton;
+    this.sourcePatterns = sourcePatterns;
+  }
+
+  /**
+   * Returns the number descriptions of {@code metadata}, indexed by their bit positions.
+   */
+  private static PhoneNumberDesc[] getDescs(PhoneMetadata metadata) {
+    return new PhoneNumberDesc[] {
+        metadata.getGeneralDesc(), metadata.getPremiumRate(), metadata.getTollFree(),
+        metadata.getSharedCost(), metadata.getVoip(), metadata.getPersonalNumber(),
+        metadata.getPager(), metadata.getUan(), metadata.getVoicemail(), metadata.getFixedLine(),
+        metadata.getMobile()};
+  }
+
+  private static String[] getSourcePatterns(PhoneMetadata metadata) {
+    PhoneNumberDesc[] descs = getDescs(metadata);
+    String[] patterns = new String[2 * DESC_COUNT];
+    for (int i = 0; i < DESC_COUNT; i++) {
+      if (descs[i] != null) {
+        patterns[i] = descs[i].getPossibleNumberPattern();
+        patterns[DESC_COUNT + i] = descs[i].getNationalNumberPattern();
+      }
+    }
+    return patterns;
+  }
+
+  /**
+   * Compiles the number descriptions of {@code metadata} into an automaton, or returns null if one
+   * of their patterns is not supported or the automaton would be too large.
+   */
+  static NumberTypeAutomaton compile(PhoneMetadata metadata) {
+    String[] patterns = getSourcePatterns(metadata);
+    // A missing description has null patterns, which match nothing.
+    DigitAutomaton automaton = DigitAutomaton.compile(patterns);
+    return automaton == null ? null : new NumberTypeAutomaton(automaton, patterns);
+  }
+
+  /**
+   * Returns a placeholder for metadata that {@link #compile} returned null for, which matches
+   * nothing but records the patterns of {@code metadata}, so that {@link #isCompiledFrom} tells
+   * when compiling is worth attempting again.
+   */
+  static NumberTypeAutomaton unsupported(PhoneMetadata metadata) {
+    return new NumberTypeAutomaton(null, getSourcePatterns(metadata));
+  }
+
+  /**
+   * Returns false if this is a placeholder returned by {@link #unsupported}.
+   */
+  boolean isSupported() {
+    return automaton != null;
+  }
+
+  /**
+   * Returns true if this automaton was compiled from the current patterns of {@code metadata}.
+   * The patterns are compared by identity, which is enough since metadata is not normally changed
+   * after it has been loaded.
+   */
+  boolean isCompiledFrom(PhoneMetadata metadata) {
+    return isCompiledFrom(GENERAL, metadata.getGeneralDesc()) &&
+        isCompiledFrom(PREMIUM_RATE, metadata.getPremiumRate()) &&
+        isCompiledFrom(TOLL_FREE, metadata.getTollFree()) &&
+        isCompiledFrom(SHARED_COST, metadata.getSharedCost()) &&
+        isCompiledFrom(VOIP, metadata.getVoip()) &&
+        isCompiledFrom(PERSONAL_NUMBER, metadata.getPersonalNumber()) &&
+        isCompiledFrom(PAGER, metadata.getPager()) &&
+        isCompiledFrom(UAN, metadata.getUan()) &&
+        isCompiledFrom(VOICEMAIL, metadata.getVoicemail()) &&
+        isCompiledFrom(FIXED_LINE, metadata.getFixedLine()) &&
+        isCompiledFrom(MOBILE, metadata.getMobile());
+  }
+
+  private boolean isCompiledFrom(int descIndex, PhoneNumberDesc desc) {
+    return desc == null
+        ? sourcePatterns[descIndex] == null
+        : desc.getPossibleNumberPattern() == sourcePatterns[descIndex] &&
+            desc.getNationalNumberPattern() == sourcePatterns[DESC_COUNT + descIndex];
+  }
+
+  /**
+   * Returns the number descriptions that {@code nationalNumber} matches both the possible-number
+   * and national-number patterns of, as a mask of their bit positions.
+   */
+  int match(CharSequence nationalNumber) {
+    long patterns = automaton.match(nationalNumber);
+    return (int) (patterns & (patterns >>> DESC_COUNT)) & ALL_DESCS;
+  }
+
+  /**
+   * Returns the type of {@code nationalNumber}, with the same precedence between overlapping
+   * descriptions as {@link PhoneNumberUtil#getNumberType}.
+   */
+  PhoneNumberType getNumberType(CharSequence nationalNumber,
+                                boolean sameMobileAndFixedLinePattern) {
+    int descs = match(nationalNumber);
+    if ((descs & (1 << GENERAL)) == 0) {
+      return PhoneNumberType.UNKNOWN;
+    }
+    if ((descs & (1 << PREMIUM_RATE)) != 0) {
+      return PhoneNumberType.PREMIUM_RATE;
+    }
+    if ((descs & (1 << TOLL_FREE)) != 0) {
+      return PhoneNumberType.TOLL_FREE;
+    }
+    if ((descs & (1 << SHARED_COST)) != 0) {
+      return PhoneNumberType.SHARED_COST;
+    }
+    if ((descs & (1 << VOIP)) != 0) {
+      return PhoneNumberType.VOIP;
+    }
+    if ((descs & (1 << PERSONAL_NUMBER)) != 0) {
+      return PhoneNumberType.PERSONAL_NUMBER;
+    }
+    if ((descs & (1 << PAGER)) != 0) {
+      return PhoneNumberType.PAGER;
+    }
+    if ((descs & (1 << UAN)) != 0) {
+      return PhoneNumberType.UAN;
+    }
+    if ((descs & (1 << VOICEMAIL)) != 0) {
+      return PhoneNumberType.VOICEMAIL;
+    }
+    boolean isMobile = (descs & (1 << MOBILE)) != 0;
+    if ((descs & (1 << FIXED_LINE)) != 0) {
+      return sameMobileAndFixedLinePattern || isMobile
+          ? PhoneNumberType.FIXED_LINE_OR_MOBILE
+          : PhoneNumberType.FIXED_LINE;
+    }
+    return !sameMobileAndFixedLinePattern && isMobile
+        ? PhoneNumberType.MOBILE
+        : PhoneNumberType.UNKNOWN;
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.Leniency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Finds the phone numbers in a text by splitting it into chunks that are searched in parallel, with
+ * the same result as searching it with a single {@link PhoneNumberMatcher}.
+ *
+ * <p>A sequential search is a chain: each candidate is looked for from where the previous one
+ * ended, so where the search in a chunk has to start depends on the chunks before it. Each chunk is
+ * therefore searched from its own start, past its end until the last candidate that starts in it,
+ * and every candidate checked is recorded. Since what becomes of a candidate only depends on where
+ * it starts, the chain of the whole text is then followed from chunk to chunk: from the first
+ * candidate it has in common with the search of a chunk, it is the same as that search. Only the
+ * few candidates before that, near the start of a chunk, are checked again.
+ */
+final class ParallelPhoneNumberFinder {
+  // The smallest number of characters worth searching as a separate chunk.
+  static final int MIN_CHUNK_SIZE = 4096;
+  // Makes chunks small enough that a chunk with many numbers does not hold up the rest for long.
+  private static final int CHUNKS_PER_PROCESSOR = 4;
+
+  private final PhoneNumberUtil util;
+  private final String text;
+  private final String defaultRegion;
+  private final Leniency leniency;
+
+  ParallelPhoneNumberFinder(PhoneNumberUtil util, String text, String defaultRegion,
+                            Leniency leniency) {
+    this.util = util;
+    this.text = text;
+    this.defaultRegion = defaultRegion;
+    this.leniency = leniency;
+  }
+
+  /** The candidates checked by the search of one chunk, in order. */
+  private static final class ChunkResult {
+    private int[] candidateStarts = new int[16];
+    private int[] candidateEnds = new int[16];
+    private final List<PhoneNumberMatch> matches = new ArrayList<PhoneNumberMatch>();
+    private int size = 0;
+
+    void add(int start, int end, PhoneNumberMatch match) {
+      if (size == candidateStarts.length) {
+        int[] newStarts = new int[size * 2];
+        int[] newEnds = new int[size * 2];
+        System.arraycopy(candidateStarts, 0, newStarts, 0, size);
+        System.arraycopy(candidateEnds, 0, newEnds, 0, size);
+        candidateStarts = newStarts;
+        candidateEnds = newEnds;
+      }
+      candidateStarts[size] = start;
+      candidateEnds[size] = end;
+      matches.add(match);
+      size++;
+    }
+
+    // Returns the index of the candidate that starts at start, or a negative number if none does.
+    int indexOf(int start) {
+      return Arrays.binarySearch(candidateStarts, 0, size, start);
+    }
+  }
+
+  private PhoneNumberMatcher newMatcher() {
+    return new PhoneNumberMatcher(util, text, defaultRegion, leniency, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns all the matches in the text, in order, searching it in parallel on {@code executor}.
+   */
+  List<PhoneNumberMatch> findAll(ExecutorService executor) throws InterruptedException {
+    return findAll(executor, Math.min(text.length() / MIN_CHUNK_SIZE,
+        Runtime.getRuntime().availableProcessors() * CHUNKS_PER_PROCESSOR));
+  }
+
+  // @VisibleForTesting
+  List<PhoneNumberMatch> findAll(ExecutorService executor, int chunkCount)
+      throws InterruptedException {
+    List<PhoneNumberMatch> matches = new ArrayList<PhoneNumberMatch>();
+    if (chunkCount <= 1) {
+      for (PhoneNumberMatcher matcher = newMatcher(); matcher.hasNext(); ) {
+        matches.add(matcher.next());
+      }
+      return matches;
+    }
+    final int[] chunkStarts = new int[chunkCount + 1];
+    for (int i = 0; i <= chunkCount; i++) {
+      chunkStarts[i] = (int) ((long) text.length() * i / chunkCount);
+    }
+    List<Callable<ChunkResult>> tasks = new ArrayList<Callable<ChunkResult>>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      final int start = chunkStarts[i];
+      final int end = chunkStarts[i + 1];
+      tasks.add(new Callable<ChunkResult>() {
+        public ChunkResult call() {
+          return searchChunk(start, end);
+        }
+      });
+    }
+    List<Future<ChunkResult>> futures = executor.invokeAll(tasks);
+    ChunkResult[] results = new ChunkResult[chunkCount];
+    for (int i = 0; i < chunkCount; i++) {
+      results[i] = PhoneNumberUtil.getTaskResult(futures.get(i));
+    }
+
+    // Follow the chain of the whole text, taking over the search of each chunk from the first
+    // candidate it has in common with it.
+    PhoneNumberMatcher matcher = newMatcher();
+    int chunk = 0;
+    int index = 0;
+    int candidateStart;
+    while ((candidateStart = matcher.findCandidate(index)) >= 0) {
+      while (candidateStart >= chunkStarts[chunk + 1]) {
+        chunk++;
+      }
+      ChunkResult result = results[chunk];
+      int common = result.indexOf(candidateStart);
+      if (common >= 0) {
+        for (int i = common; i < result.size; i++) {
+          if (result.matches.get(i) != null) {
+            matches.add(result.matches.get(i));
+          }
+        }
+        index = result.candidateEnds[result.size - 1];
+      } else {
+        PhoneNumberMatch match = matcher.checkCandidate();
+        if (match != null) {
+          matches.add(match);
+        }
+        index = getSearchIndexAfter(matcher, match);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Searches the text from {@code start}, checking the candidates that start before {@code end}.
+   */
+  private ChunkResult searchChunk(int start, int end) {
+    ChunkResult result = new ChunkResult();
+    PhoneNumberMatcher matcher = newMatcher();
+    int index = start;
+    int candidateStart;
+    while ((candidateStart = matcher.findCandidate(index)) >= 0 && candidateStart < end) {
+      PhoneNumberMatch match = matcher.checkCandidate();
+      index = getSearchIndexAfter(matcher, match);
+      result.add(candidateStart, index, match);
+    }
+    return result;
+  }
+
+  // The search goes on after the match if the candidate contained one, as PhoneNumberMatcher does,
+  // and otherwise after the candidate.
+  private static int getSearchIndexAfter(PhoneNumberMatcher matcher, PhoneNumberMatch match) {
+    return match != null ? match.end() : matcher.getCandidateEnd();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reusable state for {@link PhoneNumberUtil#parse(String, String, ParseContext)}. A context holds
+ * the phone number that results are written into, together with scratch buffers and matchers, so
+ * that parsing many numbers in a row does not need to allocate new objects for each of them.
+ *
+ * <p>A context is not thread-safe. Create one per thread and reuse it for all numbers parsed on
+ * that thread.
+ */
+public final class ParseContext {
+  // Enough for a three digit country calling code followed by the longest national number and a
+  // national prefix, so the buffer does not usually need to grow.
+  private static final int INITIAL_BUFFER_CAPACITY = 32;
+
+  private final PhoneNumber phoneNumber = new PhoneNumber();
+  // Returned for every successful parse, since it always refers to the same phone number.
+  private final ParseResult successResult = ParseResult.success(phoneNumber);
+  // The ASCII digits of the number currently being parsed.
+  final StringBuilder digits = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+  // One matcher per pattern seen so far. Patterns are held by the metadata, so there is a bounded
+  // number of them.
+  private final Map<Pattern, Matcher> matchers = new IdentityHashMap<Pattern, Matcher>();
+
+  public ParseContext() {
+  }
+
+  /**
+   * Returns the phone number that results are parsed into. Its contents are replaced every time
+   * the context is used to parse a number.
+   */
+  public PhoneNumber getPhoneNumber() {
+    return phoneNumber;
+  }
+
+  ParseResult getSuccessResult() {
+    return successResult;
+  }
+
+  /**
+   * Returns a matcher for {@code pattern} reset to match against {@code text}, reusing the matcher
+   * created the last time this pattern was used with this context.
+   */
+  Matcher matcher(Pattern pattern, CharSequence text) {
+    Matcher matcher = matchers.get(pattern);
+    if (matcher == null) {
+      matcher = pattern.matcher(text);
+      matchers.put(pattern, matcher);
+    } else {
+      matcher.reset(text);
+    }
+    return matcher;
+  }
+}
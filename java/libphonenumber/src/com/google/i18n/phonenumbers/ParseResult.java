@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+/**
+ * The outcome of parsing a phone number with {@link PhoneNumberUtil#tryParse}: either the parsed
+ * number, or the type of error and message that {@link PhoneNumberUtil#parse} would have thrown
+ * as a {@link NumberParseException}. Unlike the exception, a failed result does not capture a
+ * stack trace, which makes it cheap to reject large amounts of input that are not phone numbers.
+ */
+public final class ParseResult {
+  private final PhoneNumber phoneNumber;
+  private final NumberParseException.ErrorType errorType;
+  private final String errorMessage;
+
+  private ParseResult(PhoneNumber phoneNumber, NumberParseException.ErrorType errorType,
+                      String errorMessage) {
+    this.phoneNumber = phoneNumber;
+    this.errorType = errorType;
+    this.errorMessage = errorMessage;
+  }
+
+  static ParseResult success(PhoneNumber phoneNumber) {
+    return new ParseResult(phoneNumber, null, null);
+  }
+
+  static ParseResult failure(NumberParseException.ErrorType errorType, String errorMessage) {
+    return new ParseResult(null, errorType, errorMessage);
+  }
+
+  /**
+   * Returns true if the number was parsed successfully.
+   */
+  public boolean isSuccess() {
+    return phoneNumber != null;
+  }
+
+  /**
+   * Returns the parsed phone number, or null if parsing failed.
+   */
+  public PhoneNumber getPhoneNumber() {
+    return phoneNumber;
+  }
+
+  /**
+   * Returns the reason parsing failed, or null if the number was parsed successfully.
+   */
+  public NumberParseException.ErrorType getErrorType() {
+    return errorType;
+  }
+
+  /**
+   * Returns a description of why parsing failed, or null if the number was parsed successfully.
+   */
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  /**
+   * Returns the exception that the throwing parse methods report this failure with.
+   */
+  NumberParseException toException() {
+    return new NumberParseException(errorType, errorMessage);
+  }
+
+  @Override
+  public String toString() {
+    return isSuccess()
+        ? "Parsed: " + phoneNumber
+        : "Error type: " + errorType + ". " + errorMessage;
+  }
+}
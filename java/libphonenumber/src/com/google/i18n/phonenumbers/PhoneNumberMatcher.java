@@ -18,7 +18,7 @@ package com.google.i18n.phonenumbers;
 
 import com.google.i18n.phonenumbers.PhoneNumberUtil.Leniency;
 import com.google.i18n.phonenumbers.PhoneNumberUtil.MatchType;
-import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.ParsingPatterns;
 import com.google.i18n.phonenumbers.Phonemetadata.NumberFormat;
 import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
 import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber.CountryCodeSource;
@@ -45,7 +45,8 @@ import java.util.regex.Pattern;
 final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
   /**
    * The phone number pattern used by {@link #find}, similar to
-   * {@code PhoneNumberUtil.VALID_PHONE_NUMBER}, but with the following differences:
+   * {@code PhoneNumberUtil.ParsingPatterns.VALID_PHONE_NUMBER}, but with the following
+   * differences:
    * <ul>
    *   <li>All captures are limited in order to place an upper bound to the text matched by the
    *       pattern.
@@ -97,6 +98,14 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
    */
   private static final Pattern GROUP_SEPARATOR;
 
+  /**
+   * The characters that a match of {@link #PATTERN} can start with are digits and the characters of
+   * {@link #LEAD_CLASS}. These are the ASCII ones, as a bit set indexed by character, and the
+   * others of the lead class; see {@link #skipToPossibleCandidateStart}.
+   */
+  private static final long[] ASCII_CANDIDATE_STARTS = new long[2];
+  private static final String NON_ASCII_LEAD_CHARS;
+
   /**
    * Punctuation that may be at the start of a phone number - brackets and plus signs.
    */
@@ -144,16 +153,76 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
     String leadClassChars = openingParens + PhoneNumberUtil.PLUS_CHARS;
     String leadClass = "[" + leadClassChars + "]";
     LEAD_CLASS = Pattern.compile(leadClass);
+    StringBuilder nonAsciiLeadChars = new StringBuilder();
+    for (char c : (leadClassChars + "0123456789").toCharArray()) {
+      if (c == '\\') {
+        // Escapes the next character in the character class.
+      } else if (c < 128) {
+        ASCII_CANDIDATE_STARTS[c >> 6] |= 1L << c;
+      } else {
+        nonAsciiLeadChars.append(c);
+      }
+    }
+    NON_ASCII_LEAD_CHARS = nonAsciiLeadChars.toString();
     GROUP_SEPARATOR = Pattern.compile("\\p{Z}" + "[^" + leadClassChars  + "\\p{Nd}]*");
 
     /* Phone number pattern allowing optional punctuation. */
     PATTERN = Pattern.compile(
         "(?:" + leadClass + punctuation + ")" + leadLimit +
         digitSequence + "(?:" + punctuation + digitSequence + ")" + blockLimit +
-        "(?:" + PhoneNumberUtil.EXTN_PATTERNS_FOR_MATCHING + ")?",
+        "(?:" + ParsingPatterns.EXTN_PATTERNS_FOR_MATCHING + ")?",
         PhoneNumberUtil.REGEX_FLAGS);
   }
 
+  /**
+   * The number of characters after a candidate that are looked at to decide whether it is a phone
+   * number. The longest is the seconds of a time-stamp, see {@link #TIME_STAMPS_SUFFIX}.
+   */
+  static final int MAX_FOLLOWING_CHARS = 3;
+
+  /**
+   * Returns the index of the first character at or after {@code index} that a match of
+   * {@link #PATTERN} can start with, or the length of the text if there is none. Trying to match
+   * the pattern at every index, as {@link Matcher#find} does, is slow for the long stretches of
+   * prose between phone numbers, which this skips through much faster. High surrogates are not
+   * skipped, as they may start a digit outside the Basic Multilingual Plane.
+   */
+  // @VisibleForTesting
+  static int skipToPossibleCandidateStart(CharSequence text, int index) {
+    int length = text.length();
+    for (; index < length; index++) {
+      char c = text.charAt(index);
+      if (c < 128) {
+        if ((ASCII_CANDIDATE_STARTS[c >> 6] & (1L << c)) != 0) {
+          return index;
+        }
+      } else if (Character.isDigit(c) || Character.isHighSurrogate(c)
+          || NON_ASCII_LEAD_CHARS.indexOf(c) >= 0) {
+        return index;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Finds the next match of {@link #PATTERN} in the text on or after {@code index}, in
+   * {@link #candidateMatcher}, like {@link Matcher#find(int)}, but only trying to match it at the
+   * characters that a match can start with.
+   */
+  private boolean findPattern(int index) {
+    int length = text.length();
+    searchHitEnd = false;
+    for (index = skipToPossibleCandidateStart(text, index); index < length;
+         index = skipToPossibleCandidateStart(text, index + 1)) {
+      boolean found = candidateMatcher.region(index, length).lookingAt();
+      searchHitEnd |= candidateMatcher.hitEnd();
+      if (found) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /** Returns a regular expression quantifier with an upper and lower limit. */
   private static String limit(int lower, int upper) {
     if ((lower < 0) || (upper <= 0) || (upper < lower)) {
@@ -187,6 +256,17 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
   private PhoneNumberMatch lastMatch = null;
   /** The next index to start searching at. Undefined in {@link State#DONE}. */
   private int searchIndex = 0;
+  /**
+   * After {@link #findInWindow} returns null, the index to continue searching at once more text
+   * follows the window, or -1 if there is nothing more to find.
+   */
+  private int resumeIndex = -1;
+  /** Finds the candidates in the text, see {@link #PATTERN}. */
+  private final Matcher candidateMatcher;
+  /** Whether the last search for a candidate looked at the end of the text, see findPattern. */
+  private boolean searchHitEnd = false;
+  /** The index to continue searching at after the last candidate checked. */
+  private int candidateEnd = 0;
 
   /**
    * Creates a new instance. See the factory methods in {@link PhoneNumberUtil} on how to obtain a
@@ -217,6 +297,9 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
     this.preferredRegion = country;
     this.leniency = leniency;
     this.maxTries = maxTries;
+    // Matches are looked for in regions of the text that start where they might, see findPattern.
+    this.candidateMatcher =
+        PATTERN.matcher(this.text).useTransparentBounds(true).useAnchoringBounds(false);
   }
 
   /**
@@ -227,28 +310,97 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
    * @return  the phone number match found, null if none can be found
    */
   private PhoneNumberMatch find(int index) {
-    Matcher matcher = PATTERN.matcher(text);
-    while ((maxTries > 0) && matcher.find(index)) {
-      int start = matcher.start();
-      CharSequence candidate = text.subSequence(start, matcher.end());
+    return find(index, true);
+  }
 
-      // Check for extra numbers at the end.
-      // TODO: This is the place to start when trying to support extraction of multiple phone number
-      // from split notations (+41 79 123 45 67 / 68).
-      candidate = trimAfterFirstMatch(PhoneNumberUtil.SECOND_NUMBER_START_PATTERN, candidate);
+  /**
+   * Like {@link #find(int)}, for a text that is a window onto a longer text, such as a stream that
+   * is read a part at a time. When no match is found, {@link #getResumeIndex} tells where to
+   * continue searching once the window has been moved on. A candidate is only looked at once the
+   * window holds all of it and the text after it that is needed to verify it, so that the matches
+   * found are the same as in the whole text.
+   *
+   * @param index  the search index to start searching at
+   * @param endOfText  whether the window reaches the end of the longer text
+   * @return  the phone number match found, null if none can be found in the window
+   */
+  PhoneNumberMatch findInWindow(int index, boolean endOfText) {
+    return find(index, endOfText);
+  }
+
+  int getResumeIndex() {
+    return resumeIndex;
+  }
 
-      PhoneNumberMatch match = extractMatch(candidate, start);
+  /**
+   * Finds the next candidate on or after {@code index} without checking it, for searches that are
+   * split into parts of the text, see {@link ParallelPhoneNumberFinder}.
+   *
+   * @return  the start of the candidate, or -1 if there are no more candidates
+   */
+  int findCandidate(int index) {
+    return findPattern(index) ? candidateMatcher.start() : -1;
+  }
+
+  /**
+   * Checks the candidate last found by {@link #findCandidate}. The search continues from
+   * {@link #getCandidateEnd} after it, whether or not it was a phone number. The outcome only
+   * depends on where the candidate starts, so that searches started at different indices agree
+   * from the first candidate they have in common.
+   *
+   * @return  the phone number match found in the candidate, null if it does not contain one
+   */
+  PhoneNumberMatch checkCandidate() {
+    return checkCandidate(candidateMatcher);
+  }
+
+  int getCandidateEnd() {
+    return candidateEnd;
+  }
+
+  private PhoneNumberMatch find(int index, boolean endOfText) {
+    Matcher matcher = candidateMatcher;
+    while ((maxTries > 0) && findPattern(index)) {
+      if (!endOfText &&
+          (searchHitEnd || matcher.end() + MAX_FOLLOWING_CHARS > text.length())) {
+        // The candidate might be longer, or be judged differently, given the text that follows.
+        resumeIndex = index;
+        return null;
+      }
+      PhoneNumberMatch match = checkCandidate(matcher);
       if (match != null) {
         return match;
       }
 
-      index = start + candidate.length();
+      index = candidateEnd;
       maxTries--;
     }
 
+    if (maxTries <= 0) {
+      resumeIndex = -1;
+    } else {
+      // A failed search that reached the end of the text might have succeeded given more of it.
+      resumeIndex = searchHitEnd ? index : text.length();
+    }
     return null;
   }
 
+  /**
+   * Checks the candidate last found by {@code matcher}, and sets {@link #candidateEnd}.
+   */
+  private PhoneNumberMatch checkCandidate(Matcher matcher) {
+    int start = matcher.start();
+    CharSequence candidate = text.subSequence(start, matcher.end());
+
+    // Check for extra numbers at the end.
+    // TODO: This is the place to start when trying to support extraction of multiple phone number
+    // from split notations (+41 79 123 45 67 / 68).
+    candidate = trimAfterFirstMatch(ParsingPatterns.SECOND_NUMBER_START_PATTERN, candidate);
+
+    candidateEnd = start + candidate.length();
+    return extractMatch(candidate, start);
+  }
+
   /**
    * Trims away any characters after the first match of {@code pattern} in {@code candidate},
    * returning the trimmed version.
@@ -299,8 +451,9 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
     }
     // Skip potential time-stamps.
     if (TIME_STAMPS.matcher(candidate).find()) {
-      String followingText = text.toString().substring(offset + candidate.length());
-      if (TIME_STAMPS_SUFFIX.matcher(followingText).lookingAt()) {
+      Matcher followingText = TIME_STAMPS_SUFFIX.matcher(text)
+          .region(offset + candidate.length(), text.length());
+      if (followingText.lookingAt()) {
         return null;
       }
     }
@@ -333,7 +486,7 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
     if (groupMatcher.find()) {
       // Try the first group by itself.
       CharSequence firstGroupOnly = candidate.substring(0, groupMatcher.start());
-      firstGroupOnly = trimAfterFirstMatch(PhoneNumberUtil.UNWANTED_END_CHAR_PATTERN,
+      firstGroupOnly = trimAfterFirstMatch(ParsingPatterns.UNWANTED_END_CHAR_PATTERN,
                                            firstGroupOnly);
       PhoneNumberMatch match = parseAndVerify(firstGroupOnly.toString(), offset);
       if (match != null) {
@@ -344,7 +497,7 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
       int withoutFirstGroupStart = groupMatcher.end();
       // Try the rest of the candidate without the first group.
       CharSequence withoutFirstGroup = candidate.substring(withoutFirstGroupStart);
-      withoutFirstGroup = trimAfterFirstMatch(PhoneNumberUtil.UNWANTED_END_CHAR_PATTERN,
+      withoutFirstGroup = trimAfterFirstMatch(ParsingPatterns.UNWANTED_END_CHAR_PATTERN,
                                               withoutFirstGroup);
       match = parseAndVerify(withoutFirstGroup.toString(), offset + withoutFirstGroupStart);
       if (match != null) {
@@ -359,7 +512,7 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
           lastGroupStart = groupMatcher.start();
         }
         CharSequence withoutLastGroup = candidate.substring(0, lastGroupStart);
-        withoutLastGroup = trimAfterFirstMatch(PhoneNumberUtil.UNWANTED_END_CHAR_PATTERN,
+        withoutLastGroup = trimAfterFirstMatch(ParsingPatterns.UNWANTED_END_CHAR_PATTERN,
                                                withoutLastGroup);
         if (withoutLastGroup.equals(firstGroupOnly)) {
           // If there are only two groups, then the group "without the last group" is the same as
@@ -387,46 +540,48 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
    * @return  the parsed and validated phone number match, or null
    */
   private PhoneNumberMatch parseAndVerify(String candidate, int offset) {
-    try {
-      // Check the candidate doesn't contain any formatting which would indicate that it really
-      // isn't a phone number.
-      if (!MATCHING_BRACKETS.matcher(candidate).matches()) {
-        return null;
-      }
+    // Check the candidate doesn't contain any formatting which would indicate that it really
+    // isn't a phone number.
+    if (!MATCHING_BRACKETS.matcher(candidate).matches()) {
+      return null;
+    }
 
-      // If leniency is set to VALID or stricter, we also want to skip numbers that are surrounded
-      // by Latin alphabetic characters, to skip cases like abc8005001234 or 8005001234def.
-      if (leniency.compareTo(Leniency.VALID) >= 0) {
-        // If the candidate is not at the start of the text, and does not start with phone-number
-        // punctuation, check the previous character.
-        if (offset > 0 && !LEAD_CLASS.matcher(candidate).lookingAt()) {
-          char previousChar = text.charAt(offset - 1);
-          // We return null if it is a latin letter or an invalid punctuation symbol.
-          if (isInvalidPunctuationSymbol(previousChar) || isLatinLetter(previousChar)) {
-            return null;
-          }
+    // If leniency is set to VALID or stricter, we also want to skip numbers that are surrounded
+    // by Latin alphabetic characters, to skip cases like abc8005001234 or 8005001234def.
+    if (leniency.compareTo(Leniency.VALID) >= 0) {
+      // If the candidate is not at the start of the text, and does not start with phone-number
+      // punctuation, check the previous character.
+      if (offset > 0 && !LEAD_CLASS.matcher(candidate).lookingAt()) {
+        char previousChar = text.charAt(offset - 1);
+        // We return null if it is a latin letter or an invalid punctuation symbol.
+        if (isInvalidPunctuationSymbol(previousChar) || isLatinLetter(previousChar)) {
+          return null;
         }
-        int lastCharIndex = offset + candidate.length();
-        if (lastCharIndex < text.length()) {
-          char nextChar = text.charAt(lastCharIndex);
-          if (isInvalidPunctuationSymbol(nextChar) || isLatinLetter(nextChar)) {
-            return null;
-          }
+      }
+      int lastCharIndex = offset + candidate.length();
+      if (lastCharIndex < text.length()) {
+        char nextChar = text.charAt(lastCharIndex);
+        if (isInvalidPunctuationSymbol(nextChar) || isLatinLetter(nextChar)) {
+          return null;
         }
       }
+    }
 
-      PhoneNumber number = phoneUtil.parseAndKeepRawInput(candidate, preferredRegion);
-      if (leniency.verify(number, candidate, phoneUtil)) {
-        // We used parseAndKeepRawInput to create this number, but for now we don't return the extra
-        // values parsed. TODO: stop clearing all values here and switch all users over
-        // to using rawInput() rather than the rawString() of PhoneNumberMatch.
-        number.clearCountryCodeSource();
-        number.clearRawInput();
-        number.clearPreferredDomesticCarrierCode();
-        return new PhoneNumberMatch(offset, candidate, number);
-      }
-    } catch (NumberParseException e) {
-      // ignore and continue
+    // Most candidates in free text are not phone numbers, so avoid the cost of an exception for
+    // each of them.
+    ParseResult result = phoneUtil.tryParseAndKeepRawInput(candidate, preferredRegion);
+    if (!result.isSuccess()) {
+      return null;
+    }
+    PhoneNumber number = result.getPhoneNumber();
+    if (leniency.verify(number, candidate, phoneUtil)) {
+      // We used parseAndKeepRawInput to create this number, but for now we don't return the extra
+      // values parsed. TODO: stop clearing all values here and switch all users over
+      // to using rawInput() rather than the rawString() of PhoneNumberMatch.
+      number.clearCountryCodeSource();
+      number.clearRawInput();
+      number.clearPreferredDomesticCarrierCode();
+      return new PhoneNumberMatch(offset, candidate, number);
     }
     return null;
   }
@@ -441,20 +596,16 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
      * Returns true if the groups of digits found in our candidate phone number match our
      * expectations.
      *
-     * @param number  the original number we found when parsing
-     * @param normalizedCandidate  the candidate number, normalized to only contain ASCII digits,
-     *     but with non-digits (spaces etc) retained
+     * @param context  the candidate and the number we found when parsing it
      * @param expectedNumberGroups  the groups of digits that we would expect to see if we
      *     formatted this number
      */
-    boolean checkGroups(PhoneNumberUtil util, PhoneNumber number,
-                        StringBuilder normalizedCandidate, String[] expectedNumberGroups);
+    boolean checkGroups(VerificationContext context, String[] expectedNumberGroups);
   }
 
-  static boolean allNumberGroupsRemainGrouped(PhoneNumberUtil util,
-                                              PhoneNumber number,
-                                              StringBuilder normalizedCandidate,
+  static boolean allNumberGroupsRemainGrouped(VerificationContext context,
                                               String[] formattedNumberGroups) {
+    StringBuilder normalizedCandidate = context.getNormalizedCandidate();
     int fromIndex = 0;
     // Check each group of consecutive digits are not broken into separate groupings in the
     // {@code normalizedCandidate} string.
@@ -473,7 +624,7 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
           // This means there is no formatting symbol after the NDC. In this case, we only
           // accept the number if there is no formatting symbol at all in the number, except
           // for extensions.
-          String nationalSignificantNumber = util.getNationalSignificantNumber(number);
+          String nationalSignificantNumber = context.getNationalSignificantNumber();
           return normalizedCandidate.substring(fromIndex - formattedNumberGroups[i].length())
               .startsWith(nationalSignificantNumber);
         }
@@ -482,24 +633,21 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
     // The check here makes sure that we haven't mistakenly already used the extension to
     // match the last group of the subscriber number. Note the extension cannot have
     // formatting in-between digits.
-    return normalizedCandidate.substring(fromIndex).contains(number.getExtension());
+    return normalizedCandidate.substring(fromIndex).contains(context.getNumber().getExtension());
   }
 
-  static boolean allNumberGroupsAreExactlyPresent(PhoneNumberUtil util,
-                                                  PhoneNumber number,
-                                                  StringBuilder normalizedCandidate,
+  static boolean allNumberGroupsAreExactlyPresent(VerificationContext context,
                                                   String[] formattedNumberGroups) {
-    String[] candidateGroups =
-        PhoneNumberUtil.NON_DIGITS_PATTERN.split(normalizedCandidate.toString());
+    String[] candidateGroups = context.getCandidateGroups();
     // Set this to the last group, skipping it if the number has an extension.
-    int candidateNumberGroupIndex =
-        number.hasExtension() ? candidateGroups.length - 2 : candidateGroups.length - 1;
+    int candidateNumberGroupIndex = context.getNumber().hasExtension()
+        ? candidateGroups.length - 2 : candidateGroups.length - 1;
     // First we check if the national significant number is formatted as a block.
     // We use contains and not equals, since the national significant number may be present with
     // a prefix such as a national number prefix, or the country code itself.
     if (candidateGroups.length == 1 ||
         candidateGroups[candidateNumberGroupIndex].contains(
-            util.getNationalSignificantNumber(number))) {
+            context.getNationalSignificantNumber())) {
       return true;
     }
     // Starting from the end, go through in reverse, excluding the first group, and check the
@@ -518,49 +666,19 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
             candidateGroups[candidateNumberGroupIndex].endsWith(formattedNumberGroups[0]));
   }
 
-  /**
-   * Helper method to get the national-number part of a number, formatted without any national
-   * prefix, and return it as a set of digit blocks that would be formatted together.
-   */
-  private static String[] getNationalNumberGroups(PhoneNumberUtil util, PhoneNumber number,
-                                                  NumberFormat formattingPattern) {
-    if (formattingPattern == null) {
-      // This will be in the format +CC-DG;ext=EXT where DG represents groups of digits.
-      String rfc3966Format = util.format(number, PhoneNumberFormat.RFC3966);
-      // We remove the extension part from the formatted string before splitting it into different
-      // groups.
-      int endIndex = rfc3966Format.indexOf(';');
-      if (endIndex < 0) {
-        endIndex = rfc3966Format.length();
-      }
-      // The country-code will have a '-' following it.
-      int startIndex = rfc3966Format.indexOf('-') + 1;
-      return rfc3966Format.substring(startIndex, endIndex).split("-");
-    } else {
-      // We format the NSN only, and split that according to the separator.
-      String nationalSignificantNumber = util.getNationalSignificantNumber(number);
-      return util.formatNsnUsingPattern(nationalSignificantNumber,
-                                        formattingPattern, PhoneNumberFormat.RFC3966).split("-");
-    }
-  }
-
-  static boolean checkNumberGroupingIsValid(
-      PhoneNumber number, String candidate, PhoneNumberUtil util, NumberGroupingChecker checker) {
+  static boolean checkNumberGroupingIsValid(VerificationContext context,
+                                            NumberGroupingChecker checker) {
     // TODO: Evaluate how this works for other locales (testing has been limited to NANPA regions)
     // and optimise if necessary.
-    StringBuilder normalizedCandidate =
-        PhoneNumberUtil.normalizeDigits(candidate, true /* keep non-digits */);
-    String[] formattedNumberGroups = getNationalNumberGroups(util, number, null);
-    if (checker.checkGroups(util, number, normalizedCandidate, formattedNumberGroups)) {
+    if (checker.checkGroups(context, context.getNationalNumberGroups())) {
       return true;
     }
     // If this didn't pass, see if there are any alternate formats, and try them instead.
     PhoneMetadata alternateFormats =
-        MetadataManager.getAlternateFormatsForCountry(number.getCountryCode());
+        MetadataManager.getAlternateFormatsForCountry(context.getNumber().getCountryCode());
     if (alternateFormats != null) {
       for (NumberFormat alternateFormat : alternateFormats.numberFormats()) {
-        formattedNumberGroups = getNationalNumberGroups(util, number, alternateFormat);
-        if (checker.checkGroups(util, number, normalizedCandidate, formattedNumberGroups)) {
+        if (checker.checkGroups(context, context.getNationalNumberGroups(alternateFormat))) {
           return true;
         }
       }
@@ -623,22 +741,20 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
     return true;
   }
 
-  static boolean isNationalPrefixPresentIfRequired(PhoneNumber number, PhoneNumberUtil util) {
+  static boolean isNationalPrefixPresentIfRequired(VerificationContext context) {
+    PhoneNumber number = context.getNumber();
     // First, check how we deduced the country code. If it was written in international format, then
     // the national prefix is not required.
     if (number.getCountryCodeSource() != CountryCodeSource.FROM_DEFAULT_COUNTRY) {
       return true;
     }
-    String phoneNumberRegion =
-        util.getRegionCodeForCountryCode(number.getCountryCode());
-    PhoneMetadata metadata = util.getMetadataForRegion(phoneNumberRegion);
-    if (metadata == null) {
+    PhoneMetadata metadata = context.getMetadata();
+    if (metadata == null ||
+        PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY.equals(context.getRegionCode())) {
       return true;
     }
     // Check if a national prefix should be present when formatting this number.
-    String nationalNumber = util.getNationalSignificantNumber(number);
-    NumberFormat formatRule =
-        util.chooseFormattingPatternForNumber(metadata.numberFormats(), nationalNumber);
+    NumberFormat formatRule = context.getNationalFormat();
     // To do this, we check that a national prefix formatting rule was present and that it wasn't
     // just the first-group symbol ($1) with punctuation.
     if ((formatRule != null) && formatRule.getNationalPrefixFormattingRule().length() > 0) {
@@ -663,7 +779,7 @@ final class PhoneNumberMatcher implements Iterator<PhoneNumberMatch> {
       StringBuilder rawInput = new StringBuilder(rawInputCopy);
       // Check if we found a national prefix and/or carrier code at the start of the raw input, and
       // return the result.
-      return util.maybeStripNationalPrefixAndCarrierCode(rawInput, metadata, null);
+      return context.getUtil().maybeStripNationalPrefixAndCarrierCode(rawInput, metadata, null);
     }
     return true;
   }
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.Leniency;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Finds and extracts telephone numbers from text that is read from a {@link Reader}, such as a
+ * large file, without holding all of it in memory. The text is searched through a window of a
+ * fixed number of characters that is moved along it, and the matches found are the same as those
+ * that {@link PhoneNumberUtil#findNumbers} finds in the whole text. Instances can be created using
+ * the {@linkplain PhoneNumberUtil#findNumbersInStream factory methods} in {@link PhoneNumberUtil}.
+ *
+ * <p>Like {@link java.util.regex.Matcher}, matches are found one at a time by calling
+ * {@link #find}, after which the methods below return the details of the match. Offsets count the
+ * characters from the start of the stream, and so are longs.
+ *
+ * <pre>
+ * PhoneNumberStreamMatcher matcher = util.findNumbersInStream(reader, RegionCode.US,
+ *     Leniency.VALID, Long.MAX_VALUE);
+ * while (matcher.find()) {
+ *   record(matcher.start(), matcher.number());
+ * }
+ * </pre>
+ *
+ * <p>Memory use is bounded by the window size. The only candidates that are not guaranteed to be
+ * found exactly as in the whole text are those longer than {@link #MAX_CANDIDATE_LENGTH}
+ * characters, which phone numbers are not.
+ *
+ * <p>This class is not thread-safe. It does not close the reader.
+ */
+public final class PhoneNumberStreamMatcher {
+  /** The number of characters of the text held in memory by default. */
+  static final int DEFAULT_WINDOW_SIZE = 8192;
+  /**
+   * The longest candidate that is guaranteed to be found as in the whole text. Candidates are made
+   * of at most 21 blocks of 20 digits, with a few punctuation characters between them, and an
+   * extension; only unusually long runs of white space before the extension make them longer.
+   */
+  static final int MAX_CANDIDATE_LENGTH = 1024;
+
+  private final Reader reader;
+  private final PhoneNumberMatcher matcher;
+  /** The part of the text held in memory, which the matcher searches. */
+  private final StringBuilder window;
+  private final char[] readBuffer;
+  private final int windowSize;
+  /** The offset in the stream of the first character of the window. */
+  private long windowStart = 0;
+  /** True once the reader has returned all of the text. */
+  private boolean endOfText = false;
+  /** The index in the window to search from next, or -1 once there is nothing more to find. */
+  private int searchIndex = 0;
+
+  /** The last match found, or null if there is none. */
+  private PhoneNumberMatch lastMatch = null;
+  /** The offset in the stream of the last match. */
+  private long lastMatchStart;
+
+  /**
+   * Creates a new instance. See the factory methods in {@link PhoneNumberUtil} for the parameters.
+   *
+   * @param windowSize  the number of characters of the text to hold in memory, at least twice
+   *     {@link #MAX_CANDIDATE_LENGTH}
+   */
+  PhoneNumberStreamMatcher(PhoneNumberUtil util, Reader reader, String country,
+                           Leniency leniency, long maxTries, int windowSize) {
+    if (reader == null) {
+      throw new NullPointerException();
+    }
+    if (windowSize < 2 * MAX_CANDIDATE_LENGTH) {
+      throw new IllegalArgumentException("Window size too small: " + windowSize);
+    }
+    this.reader = reader;
+    this.window = new StringBuilder(windowSize);
+    this.matcher = new PhoneNumberMatcher(util, window, country, leniency, maxTries);
+    this.readBuffer = new char[windowSize];
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Attempts to find the next phone number in the stream, reading more of it as needed.
+   *
+   * @return  true if a phone number was found, in which case the methods below return its details
+   * @throws IOException  if reading the stream fails
+   */
+  public boolean find() throws IOException {
+    lastMatch = null;
+    while (searchIndex >= 0) {
+      PhoneNumberMatch match = matcher.findInWindow(searchIndex, endOfText);
+      if (match != null) {
+        searchIndex = match.end();
+        lastMatch = match;
+        lastMatchStart = windowStart + match.start();
+        return true;
+      }
+      if (endOfText) {
+        searchIndex = -1;
+      } else {
+        searchIndex = matcher.getResumeIndex();
+        if (searchIndex >= 0) {
+          moveWindow();
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Drops the text before the search index from the window, keeping the character before it, which
+   * is looked at when verifying candidates, and reads more text into the space freed.
+   */
+  private void moveWindow() throws IOException {
+    // The matcher stopped at a candidate that might continue past the window, or at the start of a
+    // search that might find one. Either way, a candidate that is no longer than the longest
+    // guaranteed starts this close to the end of the window.
+    searchIndex = Math.max(searchIndex,
+        window.length() - MAX_CANDIDATE_LENGTH - PhoneNumberMatcher.MAX_FOLLOWING_CHARS);
+    int dropped = Math.max(searchIndex - 1, 0);
+    window.delete(0, dropped);
+    windowStart += dropped;
+    searchIndex -= dropped;
+    while (window.length() < windowSize) {
+      int read = reader.read(readBuffer, 0, windowSize - window.length());
+      if (read < 0) {
+        endOfText = true;
+        return;
+      }
+      window.append(readBuffer, 0, read);
+    }
+  }
+
+  /**
+   * Returns the offset in the stream of the first character of the last match.
+   *
+   * @throws IllegalStateException  if no match was found by the last call to {@link #find}
+   */
+  public long start() {
+    checkMatch();
+    return lastMatchStart;
+  }
+
+  /**
+   * Returns the offset in the stream after the last character of the last match.
+   *
+   * @throws IllegalStateException  if no match was found by the last call to {@link #find}
+   */
+  public long end() {
+    checkMatch();
+    return lastMatchStart + lastMatch.rawString().length();
+  }
+
+  /**
+   * Returns the raw string matched as a phone number in the stream.
+   *
+   * @throws IllegalStateException  if no match was found by the last call to {@link #find}
+   */
+  public String rawString() {
+    checkMatch();
+    return lastMatch.rawString();
+  }
+
+  /**
+   * Returns the phone number matched.
+   *
+   * @throws IllegalStateException  if no match was found by the last call to {@link #find}
+   */
+  public PhoneNumber number() {
+    checkMatch();
+    return lastMatch.number();
+  }
+
+  private void checkMatch() {
+    if (lastMatch == null) {
+      throw new IllegalStateException("No match available");
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.google.i18n.phonenumbers;
 
+import com.google.i18n.phonenumbers.ClassificationCache.Classification;
 import com.google.i18n.phonenumbers.Phonemetadata.NumberFormat;
 import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
 import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadataCollection;
@@ -23,18 +24,37 @@ import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
 import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
 import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber.CountryCodeSource;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.Reader;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -207,62 +227,9 @@ public class PhoneNumberUtil {
       "\u00A0\u00AD\u200B\u2060\u3000()\uFF08\uFF09\uFF3B\uFF3D.\\[\\]/~\u2053\u223C\uFF5E";
 
   private static final String DIGITS = "\\p{Nd}";
-  // We accept alpha characters in phone numbers, ASCII only, upper and lower case.
-  private static final String VALID_ALPHA =
-      Arrays.toString(ALPHA_MAPPINGS.keySet().toArray()).replaceAll("[, \\[\\]]", "") +
-      Arrays.toString(ALPHA_MAPPINGS.keySet().toArray()).toLowerCase().replaceAll("[, \\[\\]]", "");
   static final String PLUS_CHARS = "+\uFF0B";
   static final Pattern PLUS_CHARS_PATTERN = Pattern.compile("[" + PLUS_CHARS + "]+");
-  private static final Pattern SEPARATOR_PATTERN = Pattern.compile("[" + VALID_PUNCTUATION + "]+");
-  private static final Pattern CAPTURING_DIGIT_PATTERN = Pattern.compile("(" + DIGITS + ")");
-
-  // Regular expression of acceptable characters that may start a phone number for the purposes of
-  // parsing. This allows us to strip away meaningless prefixes to phone numbers that may be
-  // mistakenly given to us. This consists of digits, the plus symbol and arabic-indic digits. This
-  // does not contain alpha characters, although they may be used later in the number. It also does
-  // not include other punctuation, as this will be stripped later during parsing and is of no
-  // information value when parsing a number.
-  private static final String VALID_START_CHAR = "[" + PLUS_CHARS + DIGITS + "]";
-  private static final Pattern VALID_START_CHAR_PATTERN = Pattern.compile(VALID_START_CHAR);
-
-  // Regular expression of characters typically used to start a second phone number for the purposes
-  // of parsing. This allows us to strip off parts of the number that are actually the start of
-  // another number, such as for: (530) 583-6985 x302/x2303 -> the second extension here makes this
-  // actually two phone numbers, (530) 583-6985 x302 and (530) 583-6985 x2303. We remove the second
-  // extension so that the first number is parsed correctly.
-  private static final String SECOND_NUMBER_START = "[\\\\/] *x";
-  static final Pattern SECOND_NUMBER_START_PATTERN = Pattern.compile(SECOND_NUMBER_START);
-
-  // Regular expression of trailing characters that we want to remove. We remove all characters that
-  // are not alpha or numerical characters. The hash character is retained here, as it may signify
-  // the previous block was an extension.
-  private static final String UNWANTED_END_CHARS = "[[\\P{N}&&\\P{L}]&&[^#]]+$";
-  static final Pattern UNWANTED_END_CHAR_PATTERN = Pattern.compile(UNWANTED_END_CHARS);
-
-  // We use this pattern to check if the phone number has at least three letters in it - if so, then
-  // we treat it as a number where some phone-number digits are represented by letters.
-  private static final Pattern VALID_ALPHA_PHONE_PATTERN = Pattern.compile("(?:.*?[A-Za-z]){3}.*");
-
-  // Regular expression of viable phone numbers. This is location independent. Checks we have at
-  // least three leading digits, and only valid punctuation, alpha characters and
-  // digits in the phone number. Does not include extension data.
-  // The symbol 'x' is allowed here as valid punctuation since it is often used as a placeholder for
-  // carrier codes, for example in Brazilian phone numbers. We also allow multiple "+" characters at
-  // the start.
-  // Corresponds to the following:
-  // [digits]{minLengthNsn}|
-  // plus_sign*(([punctuation]|[star])*[digits]){3,}([punctuation]|[star]|[digits]|[alpha])*
-  //
-  // The first reg-ex is to allow short numbers (two digits long) to be parsed if they are entered
-  // as "15" etc, but only if there is no punctuation in them. The second expression restricts the
-  // number of digits to three or more, but then allows them to be in international form, and to
-  // have alpha-characters and punctuation.
-  //
-  // Note VALID_PUNCTUATION starts with a -, so must be the first in the range.
-  private static final String VALID_PHONE_NUMBER =
-      DIGITS + "{" + MIN_LENGTH_FOR_NSN + "}" + "|" +
-      "[" + PLUS_CHARS + "]*+(?:[" + VALID_PUNCTUATION + STAR_SIGN + "]*" + DIGITS + "){3,}[" +
-      VALID_PUNCTUATION + STAR_SIGN + VALID_ALPHA + DIGITS + "]*";
+  static final Pattern SEPARATOR_PATTERN = Pattern.compile("[" + VALID_PUNCTUATION + "]+");
 
   // Default extension prefix to use when formatting. This will be put in front of any extension
   // component of the number, after the main national number is formatted. For example, if you wish
@@ -270,57 +237,122 @@ public class PhoneNumberUtil {
   // as the default extension prefix. This can be overridden by region-specific preferences.
   private static final String DEFAULT_EXTN_PREFIX = " ext. ";
 
-  // Pattern to capture digits used in an extension. Places a maximum length of "7" for an
-  // extension.
-  private static final String CAPTURING_EXTN_DIGITS = "(" + DIGITS + "{1,7})";
-  // Regexp of all possible ways to write extensions, for use when parsing. This will be run as a
-  // case-insensitive regexp match. Wide character versions are also provided after each ASCII
-  // version.
-  private static final String EXTN_PATTERNS_FOR_PARSING;
-  static final String EXTN_PATTERNS_FOR_MATCHING;
-  static {
-    // One-character symbols that can be used to indicate an extension.
-    String singleExtnSymbolsForMatching = "x\uFF58#\uFF03~\uFF5E";
-    // For parsing, we are slightly more lenient in our interpretation than for matching. Here we
-    // allow a "comma" as a possible extension indicator. When matching, this is hardly ever used to
-    // indicate this.
-    String singleExtnSymbolsForParsing = "," + singleExtnSymbolsForMatching;
-
-    EXTN_PATTERNS_FOR_PARSING = createExtnPattern(singleExtnSymbolsForParsing);
-    EXTN_PATTERNS_FOR_MATCHING = createExtnPattern(singleExtnSymbolsForMatching);
-  }
-
-  /**
-   * Helper initialiser method to create the regular-expression pattern to match extensions,
-   * allowing the one-char extension symbols provided by {@code singleExtnSymbols}.
-   */
-  private static String createExtnPattern(String singleExtnSymbols) {
-    // There are three regular expressions here. The first covers RFC 3966 format, where the
-    // extension is added using ";ext=". The second more generic one starts with optional white
-    // space and ends with an optional full stop (.), followed by zero or more spaces/tabs and then
-    // the numbers themselves. The other one covers the special case of American numbers where the
-    // extension is written with a hash at the end, such as "- 503#".
-    // Note that the only capturing groups should be around the digits that you want to capture as
-    // part of the extension, or else parsing will fail!
-    // Canonical-equivalence doesn't seem to be an option with Android java, so we allow two options
-    // for representing the accented o - the character itself, and one in the unicode decomposed
-    // form with the combining acute accent.
-    return (RFC3966_EXTN_PREFIX + CAPTURING_EXTN_DIGITS + "|" + "[ \u00A0\\t,]*" +
-            "(?:e?xt(?:ensi(?:o\u0301?|\u00F3))?n?|\uFF45?\uFF58\uFF54\uFF4E?|" +
-            "[" + singleExtnSymbols + "]|int|anexo|\uFF49\uFF4E\uFF54)" +
-            "[:\\.\uFF0E]?[ \u00A0\\t,-]*" + CAPTURING_EXTN_DIGITS + "#?|" +
-            "[- ]+(" + DIGITS + "{1,5})#");
-  }
-
-  // Regexp of all known extension prefixes used by different regions followed by 1 or more valid
-  // digits, for use when parsing.
-  private static final Pattern EXTN_PATTERN =
-      Pattern.compile("(?:" + EXTN_PATTERNS_FOR_PARSING + ")$", REGEX_FLAGS);
-
-  // We append optionally the extension pattern to the end here, as a valid phone number may
-  // have an extension prefix appended, followed by 1 or more digits.
-  private static final Pattern VALID_PHONE_NUMBER_PATTERN =
-      Pattern.compile(VALID_PHONE_NUMBER + "(?:" + EXTN_PATTERNS_FOR_PARSING + ")?", REGEX_FLAGS);
+  /**
+   * Holds the regular expressions that are only needed to parse numbers, or to find them in text.
+   * The JVM initializes this class, and so compiles them, when one of them is first used rather
+   * than when PhoneNumberUtil is loaded, which keeps them off the startup path of applications that
+   * only format or validate numbers.
+   */
+  static final class ParsingPatterns {
+    private ParsingPatterns() {
+    }
+
+    // We accept alpha characters in phone numbers, ASCII only, upper and lower case.
+    private static final String VALID_ALPHA =
+        Arrays.toString(ALPHA_MAPPINGS.keySet().toArray()).replaceAll("[, \\[\\]]", "") +
+        Arrays.toString(ALPHA_MAPPINGS.keySet().toArray()).toLowerCase()
+            .replaceAll("[, \\[\\]]", "");
+    private static final Pattern CAPTURING_DIGIT_PATTERN = Pattern.compile("(" + DIGITS + ")");
+
+    // Regular expression of acceptable characters that may start a phone number for the purposes of
+    // parsing. This allows us to strip away meaningless prefixes to phone numbers that may be
+    // mistakenly given to us. This consists of digits, the plus symbol and arabic-indic digits.
+    // This does not contain alpha characters, although they may be used later in the number. It
+    // also does not include other punctuation, as this will be stripped later during parsing and is
+    // of no information value when parsing a number.
+    private static final String VALID_START_CHAR = "[" + PLUS_CHARS + DIGITS + "]";
+    private static final Pattern VALID_START_CHAR_PATTERN = Pattern.compile(VALID_START_CHAR);
+
+    // Regular expression of characters typically used to start a second phone number for the
+    // purposes of parsing. This allows us to strip off parts of the number that are actually the
+    // start of another number, such as for: (530) 583-6985 x302/x2303 -> the second extension here
+    // makes this actually two phone numbers, (530) 583-6985 x302 and (530) 583-6985 x2303. We
+    // remove the second extension so that the first number is parsed correctly.
+    private static final String SECOND_NUMBER_START = "[\\\\/] *x";
+    static final Pattern SECOND_NUMBER_START_PATTERN = Pattern.compile(SECOND_NUMBER_START);
+
+    // Regular expression of trailing characters that we want to remove. We remove all characters
+    // that are not alpha or numerical characters. The hash character is retained here, as it may
+    // signify the previous block was an extension.
+    private static final String UNWANTED_END_CHARS = "[[\\P{N}&&\\P{L}]&&[^#]]+$";
+    static final Pattern UNWANTED_END_CHAR_PATTERN = Pattern.compile(UNWANTED_END_CHARS);
+
+    // We use this pattern to check if the phone number has at least three letters in it - if so,
+    // then we treat it as a number where some phone-number digits are represented by letters.
+    private static final Pattern VALID_ALPHA_PHONE_PATTERN =
+        Pattern.compile("(?:.*?[A-Za-z]){3}.*");
+
+    // Regular expression of viable phone numbers. This is location independent. Checks we have at
+    // least three leading digits, and only valid punctuation, alpha characters and digits in the
+    // phone number. Does not include extension data. The symbol 'x' is allowed here as valid
+    // punctuation since it is often used as a placeholder for carrier codes, for example in
+    // Brazilian phone numbers. We also allow multiple "+" characters at the start. Corresponds to
+    // the following: [digits]{minLengthNsn}|
+    // plus_sign*(([punctuation]|[star])*[digits]){3,}([punctuation]|[star]|[digits]|[alpha])*
+    //
+    // The first reg-ex is to allow short numbers (two digits long) to be parsed if they are entered
+    // as "15" etc, but only if there is no punctuation in them. The second expression restricts the
+    // number of digits to three or more, but then allows them to be in international form, and to
+    // have alpha-characters and punctuation.
+    //
+    // Note VALID_PUNCTUATION starts with a -, so must be the first in the range.
+    private static final String VALID_PHONE_NUMBER =
+        DIGITS + "{" + MIN_LENGTH_FOR_NSN + "}" + "|" +
+        "[" + PLUS_CHARS + "]*+(?:[" + VALID_PUNCTUATION + STAR_SIGN + "]*" + DIGITS + "){3,}[" +
+        VALID_PUNCTUATION + STAR_SIGN + VALID_ALPHA + DIGITS + "]*";
+
+    // Pattern to capture digits used in an extension. Places a maximum length of "7" for an
+    // extension.
+    private static final String CAPTURING_EXTN_DIGITS = "(" + DIGITS + "{1,7})";
+    // Regexp of all possible ways to write extensions, for use when parsing. This will be run as a
+    // case-insensitive regexp match. Wide character versions are also provided after each ASCII
+    // version.
+    private static final String EXTN_PATTERNS_FOR_PARSING;
+    static final String EXTN_PATTERNS_FOR_MATCHING;
+    static {
+      // One-character symbols that can be used to indicate an extension.
+      String singleExtnSymbolsForMatching = "x\uFF58#\uFF03~\uFF5E";
+      // For parsing, we are slightly more lenient in our interpretation than for matching. Here we
+      // allow a "comma" as a possible extension indicator. When matching, this is hardly ever used
+      // to indicate this.
+      String singleExtnSymbolsForParsing = "," + singleExtnSymbolsForMatching;
+
+      EXTN_PATTERNS_FOR_PARSING = createExtnPattern(singleExtnSymbolsForParsing);
+      EXTN_PATTERNS_FOR_MATCHING = createExtnPattern(singleExtnSymbolsForMatching);
+    }
+
+    /**
+     * Helper initialiser method to create the regular-expression pattern to match extensions,
+     * allowing the one-char extension symbols provided by {@code singleExtnSymbols}.
+     */
+    private static String createExtnPattern(String singleExtnSymbols) {
+      // There are three regular expressions here. The first covers RFC 3966 format, where the
+      // extension is added using ";ext=". The second more generic one starts with optional white
+      // space and ends with an optional full stop (.), followed by zero or more spaces/tabs and
+      // then the numbers themselves. The other one covers the special case of American numbers
+      // where the extension is written with a hash at the end, such as "- 503#". Note that the only
+      // capturing groups should be around the digits that you want to capture as part of the
+      // extension, or else parsing will fail! Canonical-equivalence doesn't seem to be an option
+      // with Android java, so we allow two options for representing the accented o - the character
+      // itself, and one in the unicode decomposed form with the combining acute accent.
+      return (RFC3966_EXTN_PREFIX + CAPTURING_EXTN_DIGITS + "|" + "[ \u00A0\\t,]*" +
+              "(?:e?xt(?:ensi(?:o\u0301?|\u00F3))?n?|\uFF45?\uFF58\uFF54\uFF4E?|" +
+              "[" + singleExtnSymbols + "]|int|anexo|\uFF49\uFF4E\uFF54)" +
+              "[:\\.\uFF0E]?[ \u00A0\\t,-]*" + CAPTURING_EXTN_DIGITS + "#?|" +
+              "[- ]+(" + DIGITS + "{1,5})#");
+    }
+
+    // Regexp of all known extension prefixes used by different regions followed by 1 or more valid
+    // digits, for use when parsing.
+    private static final Pattern EXTN_PATTERN =
+        Pattern.compile("(?:" + EXTN_PATTERNS_FOR_PARSING + ")$", REGEX_FLAGS);
+
+    // We append optionally the extension pattern to the end here, as a valid phone number may
+    // have an extension prefix appended, followed by 1 or more digits.
+    private static final Pattern VALID_PHONE_NUMBER_PATTERN =
+        Pattern.compile(VALID_PHONE_NUMBER + "(?:" + EXTN_PATTERNS_FOR_PARSING + ")?",
+                        REGEX_FLAGS);
+  }
 
   static final Pattern NON_DIGITS_PATTERN = Pattern.compile("(\\D+)");
 
@@ -328,17 +360,20 @@ public class PhoneNumberUtil {
   // first group is not used in the national pattern (e.g. Argentina) so the $1 group does not match
   // correctly.  Therefore, we use \d, so that the first group actually used in the pattern will be
   // matched.
-  private static final Pattern FIRST_GROUP_PATTERN = Pattern.compile("(\\$\\d)");
+  static final Pattern FIRST_GROUP_PATTERN = Pattern.compile("(\\$\\d)");
   private static final Pattern NP_PATTERN = Pattern.compile("\\$NP");
   private static final Pattern FG_PATTERN = Pattern.compile("\\$FG");
-  private static final Pattern CC_PATTERN = Pattern.compile("\\$CC");
+  static final Pattern CC_PATTERN = Pattern.compile("\\$CC");
 
   // A pattern that is used to determine if the national prefix formatting rule has the first group
   // only, i.e., does not start with the national prefix. Note that the pattern explicitly allows
   // for unbalanced parentheses.
   private static final Pattern FIRST_GROUP_ONLY_PREFIX_PATTERN = Pattern.compile("\\(?\\$1\\)?");
 
-  private static PhoneNumberUtil instance = null;
+  // The instance returned by getInstance(). It is set with compareAndSet rather than under a lock,
+  // so that getInstance() never blocks.
+  private static final AtomicReference<PhoneNumberUtil> instance =
+      new AtomicReference<PhoneNumberUtil>();
 
   public static final String REGION_CODE_FOR_NON_GEO_ENTITY = "001";
 
@@ -443,7 +478,8 @@ public class PhoneNumberUtil {
             !PhoneNumberMatcher.containsOnlyValidXChars(number, candidate, util)) {
           return false;
         }
-        return PhoneNumberMatcher.isNationalPrefixPresentIfRequired(number, util);
+        return PhoneNumberMatcher.isNationalPrefixPresentIfRequired(
+            new VerificationContext(util, number, candidate));
       }
     },
     /**
@@ -461,19 +497,19 @@ public class PhoneNumberUtil {
     STRICT_GROUPING {
       @Override
       boolean verify(PhoneNumber number, String candidate, PhoneNumberUtil util) {
+        VerificationContext context = new VerificationContext(util, number, candidate);
         if (!util.isValidNumber(number) ||
             !PhoneNumberMatcher.containsOnlyValidXChars(number, candidate, util) ||
             PhoneNumberMatcher.containsMoreThanOneSlashInNationalNumber(number, candidate) ||
-            !PhoneNumberMatcher.isNationalPrefixPresentIfRequired(number, util)) {
+            !PhoneNumberMatcher.isNationalPrefixPresentIfRequired(context)) {
           return false;
         }
         return PhoneNumberMatcher.checkNumberGroupingIsValid(
-            number, candidate, util, new PhoneNumberMatcher.NumberGroupingChecker() {
-              public boolean checkGroups(PhoneNumberUtil util, PhoneNumber number,
-                                         StringBuilder normalizedCandidate,
+            context, new PhoneNumberMatcher.NumberGroupingChecker() {
+              public boolean checkGroups(VerificationContext context,
                                          String[] expectedNumberGroups) {
                 return PhoneNumberMatcher.allNumberGroupsRemainGrouped(
-                    util, number, normalizedCandidate, expectedNumberGroups);
+                    context, expectedNumberGroups);
               }
             });
       }
@@ -492,19 +528,19 @@ public class PhoneNumberUtil {
     EXACT_GROUPING {
       @Override
       boolean verify(PhoneNumber number, String candidate, PhoneNumberUtil util) {
+        VerificationContext context = new VerificationContext(util, number, candidate);
         if (!util.isValidNumber(number) ||
             !PhoneNumberMatcher.containsOnlyValidXChars(number, candidate, util) ||
             PhoneNumberMatcher.containsMoreThanOneSlashInNationalNumber(number, candidate) ||
-            !PhoneNumberMatcher.isNationalPrefixPresentIfRequired(number, util)) {
+            !PhoneNumberMatcher.isNationalPrefixPresentIfRequired(context)) {
           return false;
         }
         return PhoneNumberMatcher.checkNumberGroupingIsValid(
-            number, candidate, util, new PhoneNumberMatcher.NumberGroupingChecker() {
-              public boolean checkGroups(PhoneNumberUtil util, PhoneNumber number,
-                                         StringBuilder normalizedCandidate,
+            context, new PhoneNumberMatcher.NumberGroupingChecker() {
+              public boolean checkGroups(VerificationContext context,
                                          String[] expectedNumberGroups) {
                 return PhoneNumberMatcher.allNumberGroupsAreExactlyPresent(
-                    util, number, normalizedCandidate, expectedNumberGroups);
+                    context, expectedNumberGroups);
               }
             });
       }
@@ -518,7 +554,7 @@ public class PhoneNumberUtil {
   // by that country calling code. In the case of multiple regions sharing a calling code, such as
   // the NANPA regions, the one indicated with "isMainCountryForCode" in the metadata should be
   // first.
-  private final Map<Integer, List<String>> countryCallingCodeToRegionCodeMap;
+  private final CountryCallingCodeIndex countryCallingCodeToRegionCodeIndex;
 
   // The set of regions that share country calling code 1.
   // There are roughly 26 regions and we set the initial capacity of the HashSet to 35 to offer a
@@ -526,23 +562,45 @@ public class PhoneNumberUtil {
   private final Set<String> nanpaRegions = new HashSet<String>(35);
 
   // A mapping from a region code to the PhoneMetadata for that region.
-  // Note: Synchronization, though only needed for the Android version of the library, is used in
-  // all versions for consistency.
-  private final Map<String, PhoneMetadata> regionToMetadataMap =
-      Collections.synchronizedMap(new HashMap<String, PhoneMetadata>());
+  // Note: The map is concurrent so that metadata which has already been loaded can be looked up
+  // without taking any lock. Loading is guarded by a lock per region; see getMetadataLoadLock.
+  private final ConcurrentMap<String, PhoneMetadata> regionToMetadataMap =
+      new ConcurrentHashMap<String, PhoneMetadata>();
 
   // A mapping from a country calling code for a non-geographical entity to the PhoneMetadata for
   // that country calling code. Examples of the country calling codes include 800 (International
   // Toll Free Service) and 808 (International Shared Cost Service).
-  // Note: Synchronization, though only needed for the Android version of the library, is used in
-  // all versions for consistency.
-  private final Map<Integer, PhoneMetadata> countryCodeToNonGeographicalMetadataMap =
-      Collections.synchronizedMap(new HashMap<Integer, PhoneMetadata>());
-
-  // A cache for frequently used region-specific regular expressions.
+  // Note: Concurrent for the same reason as regionToMetadataMap.
+  private final ConcurrentMap<Integer, PhoneMetadata> countryCodeToNonGeographicalMetadataMap =
+      new ConcurrentHashMap<Integer, PhoneMetadata>();
+
+  // The lock that metadata is loaded under, for each region code and non-geographical country
+  // calling code that has been loaded. Region codes are Strings and calling codes are Integers, so
+  // the keys never clash. These are ReentrantLocks rather than monitors, so that a virtual thread
+  // reading the metadata file, or waiting for another thread to, does not pin its carrier thread.
+  private final ConcurrentMap<Object, ReentrantLock> metadataLoadLocks =
+      new ConcurrentHashMap<Object, ReentrantLock>();
+
+  // The index used to tell which region a number belongs to, for each country calling code shared
+  // by several regions that has been looked up. Built on first use, since building it loads the
+  // metadata for all of the regions.
+  private final ConcurrentMap<Integer, RegionCodeForNumberIndex> regionCodeForNumberIndexes =
+      new ConcurrentHashMap<Integer, RegionCodeForNumberIndex>();
+
+  // The size of the default cache for region-specific regular expressions.
   // The initial capacity is set to 100 as this seems to be an optimal value for Android, based on
   // performance measurements.
-  private final RegexCache regexCache = new RegexCache(100);
+  private static final int DEFAULT_REGEX_CACHE_SIZE = 100;
+
+  // When a batch is parsed in parallel, it is split into this many chunks per available processor,
+  // so that threads that finish early can pick up more work, but never into chunks smaller than
+  // MIN_BATCH_CHUNK_SIZE, so that handing a chunk to another thread stays cheap compared with
+  // parsing it.
+  private static final int BATCH_CHUNKS_PER_PROCESSOR = 4;
+  private static final int MIN_BATCH_CHUNK_SIZE = 256;
+
+  // A cache for frequently used region-specific regular expressions.
+  private final RegexCache regexCache;
 
   // The set of regions the library supports.
   // There are roughly 240 of them and we set the initial capacity of the HashSet to 320 to offer a
@@ -556,20 +614,48 @@ public class PhoneNumberUtil {
   // The prefix of the metadata files from which region data is loaded.
   private final String currentFilePrefix;
 
+  // The file region data is loaded from instead, if the metadata is in the compact format.
+  private final CompactMetadataFile compactMetadataFile;
+
+  // The cache for the region, type and validity of numbers, or null if they are not cached.
+  private final ClassificationCache classificationCache;
+
   /**
    * This class implements a singleton, so the only constructor is private.
    */
   private PhoneNumberUtil(String filePrefix,
-      Map<Integer, List<String>> countryCallingCodeToRegionCodeMap) {
+      CountryCallingCodeIndex countryCallingCodeToRegionCodeIndex) {
+    this(filePrefix, countryCallingCodeToRegionCodeIndex,
+         new RegexCache(DEFAULT_REGEX_CACHE_SIZE));
+  }
+
+  private PhoneNumberUtil(String filePrefix,
+      CountryCallingCodeIndex countryCallingCodeToRegionCodeIndex, RegexCache regexCache) {
+    this(filePrefix, null, countryCallingCodeToRegionCodeIndex, regexCache, null);
+  }
+
+  private PhoneNumberUtil(CompactMetadataFile compactMetadataFile, RegexCache regexCache) {
+    this(null, compactMetadataFile,
+         new CountryCallingCodeIndex(compactMetadataFile.getCountryCallingCodeToRegionCodeMap()),
+         regexCache, null);
+  }
+
+  private PhoneNumberUtil(String filePrefix, CompactMetadataFile compactMetadataFile,
+      CountryCallingCodeIndex countryCallingCodeToRegionCodeIndex, RegexCache regexCache,
+      ClassificationCache classificationCache) {
     this.currentFilePrefix = filePrefix;
-    this.countryCallingCodeToRegionCodeMap = countryCallingCodeToRegionCodeMap;
-    for (Map.Entry<Integer, List<String>> entry : countryCallingCodeToRegionCodeMap.entrySet()) {
-      List<String> regionCodes = entry.getValue();
+    this.compactMetadataFile = compactMetadataFile;
+    this.regexCache = regexCache;
+    this.classificationCache = classificationCache;
+    this.countryCallingCodeToRegionCodeIndex = countryCallingCodeToRegionCodeIndex;
+    for (int countryCallingCode : countryCallingCodeToRegionCodeIndex.getCountryCallingCodes()) {
+      List<String> regionCodes =
+          countryCallingCodeToRegionCodeIndex.getRegionCodes(countryCallingCode);
       // We can assume that if the county calling code maps to the non-geo entity region code then
       // that's the only region code it maps to.
       if (regionCodes.size() == 1 && REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCodes.get(0))) {
         // This is the subset of all country codes that map to the non-geo entity region code.
-        countryCodesForNonGeographicalRegion.add(entry.getKey());
+        countryCodesForNonGeographicalRegion.add(countryCallingCode);
       } else {
         // The supported regions set does not include the "001" non-geo entity region code.
         supportedRegions.addAll(regionCodes);
@@ -582,11 +668,46 @@ public class PhoneNumberUtil {
       LOGGER.log(Level.WARNING, "invalid metadata " +
           "(country calling code was mapped to the non-geo entity as well as specific region(s))");
     }
-    nanpaRegions.addAll(countryCallingCodeToRegionCodeMap.get(NANPA_COUNTRY_CODE));
+    nanpaRegions.addAll(countryCallingCodeToRegionCodeIndex.getRegionCodes(NANPA_COUNTRY_CODE));
   }
 
   // @VisibleForTesting
   void loadMetadataFromFile(String filePrefix, String regionCode, int countryCallingCode) {
+    PhoneMetadata metadata = readMetadata(filePrefix, regionCode, countryCallingCode);
+    // Metadata preloaded in the meantime is kept, so that all callers share the same patterns.
+    if (REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCode)) {
+      countryCodeToNonGeographicalMetadataMap.putIfAbsent(countryCallingCode, metadata);
+    } else {
+      regionToMetadataMap.putIfAbsent(regionCode, metadata);
+    }
+  }
+
+  /**
+   * Returns the lock to hold while loading the metadata for {@code key}, a region code or a
+   * non-geographical country calling code. Loading one region therefore does not block lookups or
+   * loading of any other.
+   */
+  private ReentrantLock getMetadataLoadLock(Object key) {
+    ReentrantLock lock = metadataLoadLocks.get(key);
+    if (lock == null) {
+      ReentrantLock newLock = new ReentrantLock();
+      lock = metadataLoadLocks.putIfAbsent(key, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
+  /**
+   * Reads the metadata for a region, or for a non-geographical entity if regionCode is "001",
+   * without storing it.
+   */
+  private PhoneMetadata readMetadata(String filePrefix, String regionCode,
+                                     int countryCallingCode) {
+    if (compactMetadataFile != null) {
+      return readMetadataFromCompactFile(regionCode, countryCallingCode);
+    }
     boolean isNonGeoRegion = REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCode);
     String fileName = filePrefix + "_" +
         (isNonGeoRegion ? String.valueOf(countryCallingCode) : regionCode);
@@ -608,12 +729,7 @@ public class PhoneNumberUtil {
       if (metadataList.size() > 1) {
         LOGGER.log(Level.WARNING, "invalid metadata (too many entries): " + fileName);
       }
-      PhoneMetadata metadata = metadataList.get(0);
-      if (isNonGeoRegion) {
-        countryCodeToNonGeographicalMetadataMap.put(countryCallingCode, metadata);
-      } else {
-        regionToMetadataMap.put(regionCode, metadata);
-      }
+      return metadataList.get(0);
     } catch (IOException e) {
       LOGGER.log(Level.SEVERE, "cannot load/parse metadata: " + fileName, e);
       throw new RuntimeException("cannot load/parse metadata: " + fileName, e);
@@ -622,6 +738,25 @@ public class PhoneNumberUtil {
     }
   }
 
+  private PhoneMetadata readMetadataFromCompactFile(String regionCode, int countryCallingCode) {
+    boolean isNonGeoRegion = REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCode);
+    String entryName = isNonGeoRegion ? String.valueOf(countryCallingCode) : regionCode;
+    PhoneMetadata metadata;
+    try {
+      metadata = isNonGeoRegion
+          ? compactMetadataFile.getMetadataForNonGeographicalRegion(countryCallingCode)
+          : compactMetadataFile.getMetadataForRegion(regionCode);
+    } catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "cannot load/parse compact metadata: " + entryName, e);
+      throw new RuntimeException("cannot load/parse compact metadata: " + entryName, e);
+    }
+    if (metadata == null) {
+      LOGGER.log(Level.SEVERE, "missing compact metadata: " + entryName);
+      throw new IllegalStateException("missing compact metadata: " + entryName);
+    }
+    return metadata;
+  }
+
   private static void close(InputStream in) {
     if (in != null) {
       try {
@@ -648,17 +783,17 @@ public class PhoneNumberUtil {
    *                found in the number
    */
   static String extractPossibleNumber(String number) {
-    Matcher m = VALID_START_CHAR_PATTERN.matcher(number);
+    Matcher m = ParsingPatterns.VALID_START_CHAR_PATTERN.matcher(number);
     if (m.find()) {
       number = number.substring(m.start());
       // Remove trailing non-alpha non-numerical characters.
-      Matcher trailingCharsMatcher = UNWANTED_END_CHAR_PATTERN.matcher(number);
+      Matcher trailingCharsMatcher = ParsingPatterns.UNWANTED_END_CHAR_PATTERN.matcher(number);
       if (trailingCharsMatcher.find()) {
         number = number.substring(0, trailingCharsMatcher.start());
         LOGGER.log(Level.FINER, "Stripped trailing characters: " + number);
       }
       // Check for extra numbers at the end.
-      Matcher secondNumber = SECOND_NUMBER_START_PATTERN.matcher(number);
+      Matcher secondNumber = ParsingPatterns.SECOND_NUMBER_START_PATTERN.matcher(number);
       if (secondNumber.find()) {
         number = number.substring(0, secondNumber.start());
       }
@@ -683,7 +818,7 @@ public class PhoneNumberUtil {
     if (number.length() < MIN_LENGTH_FOR_NSN) {
       return false;
     }
-    Matcher m = VALID_PHONE_NUMBER_PATTERN.matcher(number);
+    Matcher m = ParsingPatterns.VALID_PHONE_NUMBER_PATTERN.matcher(number);
     return m.matches();
   }
 
@@ -704,7 +839,7 @@ public class PhoneNumberUtil {
    * @return        the normalized string version of the phone number
    */
   static String normalize(String number) {
-    Matcher m = VALID_ALPHA_PHONE_PATTERN.matcher(number);
+    Matcher m = ParsingPatterns.VALID_ALPHA_PHONE_PATTERN.matcher(number);
     if (m.matches()) {
       return normalizeHelper(number, ALPHA_PHONE_MAPPINGS, true);
     } else {
@@ -925,23 +1060,24 @@ public class PhoneNumberUtil {
    * An unsafe version of getInstance() which must only be used for testing purposes.
    */
   // @VisibleForTesting
-  static synchronized PhoneNumberUtil getInstance(
+  static PhoneNumberUtil getInstance(
       String baseFileLocation,
       Map<Integer, List<String>> countryCallingCodeToRegionCodeMap) {
-    if (instance != null) {
+    if (instance.get() != null
+        || !instance.compareAndSet(null, new PhoneNumberUtil(baseFileLocation,
+               new CountryCallingCodeIndex(countryCallingCodeToRegionCodeMap)))) {
       throw new IllegalStateException(
           "PhoneNumberUtil instance is already set (you should call resetInstance() first)");
     }
-    instance = new PhoneNumberUtil(baseFileLocation, countryCallingCodeToRegionCodeMap);
-    return instance;
+    return instance.get();
   }
 
   /**
    * Used for testing purposes only to reset the PhoneNumberUtil singleton to null.
    */
   // @VisibleForTesting
-  static synchronized void resetInstance() {
-    instance = null;
+  static void resetInstance() {
+    instance.set(null);
   }
 
   /**
@@ -959,22 +1095,229 @@ public class PhoneNumberUtil {
     return Collections.unmodifiableSet(countryCodesForNonGeographicalRegion);
   }
 
+  /**
+   * Loads the metadata for {@code regionCodes} now, in parallel on {@code executor}, rather than
+   * when each region is first used, and compiles all of its regular expressions. This takes the
+   * cost of loading metadata out of the first requests for each region. Regions that are already
+   * loaded only have their regular expressions compiled.
+   *
+   * @param regionCodes  the regions to load, which must all be supported
+   * @param executor  the executor to load the regions with; it is not shut down by this method
+   * @return  the time taken to load each region and compile its regular expressions, in
+   *     nanoseconds, keyed by region code in the order the regions were given
+   * @throws IllegalArgumentException  if any of the region codes is not supported
+   * @throws InterruptedException  if the calling thread was interrupted while waiting for the
+   *     regions to load
+   */
+  public Map<String, Long> preloadMetadata(Collection<String> regionCodes,
+                                           ExecutorService executor)
+      throws InterruptedException {
+    for (String regionCode : regionCodes) {
+      if (!isValidRegionCode(regionCode)) {
+        throw new IllegalArgumentException("Unsupported region code: " + regionCode);
+      }
+    }
+    return preloadMetadata(regionCodes, Collections.<Integer>emptySet(), executor);
+  }
+
+  /**
+   * Same as {@link #preloadMetadata(Collection, ExecutorService)}, but loads every supported
+   * region and non-geographical entity. The load times of non-geographical entities are keyed by
+   * their country calling code, such as "800".
+   */
+  public Map<String, Long> preloadAllMetadata(ExecutorService executor)
+      throws InterruptedException {
+    return preloadMetadata(supportedRegions, countryCodesForNonGeographicalRegion, executor);
+  }
+
+  private Map<String, Long> preloadMetadata(Collection<String> regionCodes,
+                                            Collection<Integer> nonGeoCountryCallingCodes,
+                                            ExecutorService executor)
+      throws InterruptedException {
+    Map<String, Callable<Long>> tasks = new LinkedHashMap<String, Callable<Long>>();
+    for (String regionCode : regionCodes) {
+      tasks.put(regionCode, createPreloadTask(regionCode, 0));
+    }
+    for (int countryCallingCode : nonGeoCountryCallingCodes) {
+      tasks.put(String.valueOf(countryCallingCode),
+                createPreloadTask(REGION_CODE_FOR_NON_GEO_ENTITY, countryCallingCode));
+    }
+    List<Future<Long>> futures = executor.invokeAll(new ArrayList<Callable<Long>>(tasks.values()));
+    Map<String, Long> loadTimes = new LinkedHashMap<String, Long>();
+    Iterator<String> keys = tasks.keySet().iterator();
+    for (Future<Long> future : futures) {
+      loadTimes.put(keys.next(), getTaskResult(future));
+    }
+    return loadTimes;
+  }
+
+  private Callable<Long> createPreloadTask(final String regionCode, final int countryCallingCode) {
+    return new Callable<Long>() {
+      public Long call() {
+        long start = System.nanoTime();
+        preloadMetadataForRegion(regionCode, countryCallingCode);
+        return System.nanoTime() - start;
+      }
+    };
+  }
+
+  /**
+   * Loads the metadata for a region, or for a non-geographical entity if regionCode is "001", and
+   * compiles its regular expressions. The metadata is read without holding the lock that
+   * {@link #getMetadataForRegion} loads it under, since it is only stored if that has not already
+   * loaded it.
+   */
+  private void preloadMetadataForRegion(String regionCode, int countryCallingCode) {
+    boolean isNonGeoRegion = REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCode);
+    PhoneMetadata metadata = isNonGeoRegion
+        ? countryCodeToNonGeographicalMetadataMap.get(countryCallingCode)
+        : regionToMetadataMap.get(regionCode);
+    if (metadata == null) {
+      metadata = readMetadata(currentFilePrefix, regionCode, countryCallingCode);
+      // Another thread may have loaded the same metadata in the meantime, in which case that copy
+      // is kept so that all callers share the same patterns.
+      PhoneMetadata loaded = isNonGeoRegion
+          ? countryCodeToNonGeographicalMetadataMap.putIfAbsent(countryCallingCode, metadata)
+          : regionToMetadataMap.putIfAbsent(regionCode, metadata);
+      if (loaded != null) {
+        metadata = loaded;
+      }
+    }
+    metadata.compilePatterns();
+  }
+
   /**
    * Gets a {@link PhoneNumberUtil} instance to carry out international phone number formatting,
    * parsing, or validation. The instance is loaded with phone number metadata for a number of most
    * commonly used regions.
    *
    * <p>The {@link PhoneNumberUtil} is implemented as a singleton. Therefore, calling getInstance
-   * multiple times will only result in one instance being created.
+   * multiple times will only result in one instance being created. This method takes no locks, so
+   * it is cheap to call from many threads, including virtual threads.
    *
    * @return a PhoneNumberUtil instance
    */
-  public static synchronized PhoneNumberUtil getInstance() {
-    if (instance == null) {
-      return getInstance(META_DATA_FILE_PREFIX,
-          CountryCodeToRegionCodeMap.getCountryCodeToRegionCodeMap());
+  public static PhoneNumberUtil getInstance() {
+    PhoneNumberUtil util = instance.get();
+    if (util == null) {
+      // Threads that get here at the same time each create an instance, which only reads the
+      // country calling code mapping, but all of them return the one that was set first.
+      PhoneNumberUtil newUtil = new PhoneNumberUtil(META_DATA_FILE_PREFIX,
+          CountryCodeToRegionCodeMap.getCountryCallingCodeIndex());
+      util = instance.compareAndSet(null, newUtil) ? newUtil : instance.get();
+    }
+    return util;
+  }
+
+  /**
+   * Creates a new {@link PhoneNumberUtil} instance that compiles its region-specific regular
+   * expressions through {@code regexCache}. Unlike {@link #getInstance()}, every call returns a
+   * new instance with its own metadata, so callers should create it once and share it.
+   *
+   * <p>This is useful on servers where many threads use the library concurrently: passing a cache
+   * created with {@link RegexCache.EvictionPolicy#CLOCK} removes the lock taken on every regular
+   * expression lookup, and the cache's counters can be used to tune its size.
+   *
+   * @param regexCache  the cache used for region-specific regular expressions
+   * @return a new PhoneNumberUtil instance
+   */
+  public static PhoneNumberUtil createInstance(RegexCache regexCache) {
+    if (regexCache == null) {
+      throw new IllegalArgumentException("regexCache could not be null.");
+    }
+    return new PhoneNumberUtil(META_DATA_FILE_PREFIX,
+        CountryCodeToRegionCodeMap.getCountryCallingCodeIndex(), regexCache);
+  }
+
+  /**
+   * Creates a new {@link PhoneNumberUtil} instance that loads its metadata from
+   * {@code metadataFile}, a file in the compact format written by the --compact-file option of
+   * BuildMetadataProtoFromXml. The file holds the metadata for all regions and is memory-mapped;
+   * the metadata for each region is only read from it when the region is first used.
+   *
+   * @param metadataFile  the compact metadata file
+   * @return a new PhoneNumberUtil instance
+   * @throws IOException  if the file cannot be read or is not in a supported version of the format
+   */
+  public static PhoneNumberUtil createInstance(File metadataFile) throws IOException {
+    if (metadataFile == null) {
+      throw new IllegalArgumentException("metadataFile could not be null.");
+    }
+    return new PhoneNumberUtil(CompactMetadataFile.map(metadataFile),
+                               new RegexCache(DEFAULT_REGEX_CACHE_SIZE));
+  }
+
+  /**
+   * Same as {@link #createInstance(File)}, but reads the compact metadata from {@code source},
+   * for example a resource packaged in a jar, which cannot be memory-mapped. The stream is read
+   * to the end but not closed.
+   *
+   * @param source  the stream to read the compact metadata from
+   * @return a new PhoneNumberUtil instance
+   * @throws IOException  if the stream cannot be read or is not in a supported version of the
+   *     format
+   */
+  public static PhoneNumberUtil createInstance(InputStream source) throws IOException {
+    if (source == null) {
+      throw new IllegalArgumentException("source could not be null.");
+    }
+    return new PhoneNumberUtil(CompactMetadataFile.read(source),
+                               new RegexCache(DEFAULT_REGEX_CACHE_SIZE));
+  }
+
+  /**
+   * Returns a new {@link Builder} for creating a {@link PhoneNumberUtil} instance with non-default
+   * settings.
+   */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Creates {@link PhoneNumberUtil} instances with non-default settings. Like
+   * {@link #createInstance(RegexCache)}, every call to {@link #build} returns a new instance with
+   * its own metadata, so callers should create it once and share it.
+   */
+  public static final class Builder {
+    private RegexCache regexCache = null;
+    private ClassificationCache classificationCache = null;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the cache used for region-specific regular expressions. By default, each instance has
+     * its own cache with the LRU eviction policy.
+     */
+    public Builder setRegexCache(RegexCache regexCache) {
+      if (regexCache == null) {
+        throw new IllegalArgumentException("regexCache could not be null.");
+      }
+      this.regexCache = regexCache;
+      return this;
+    }
+
+    /**
+     * Sets the cache for the results of {@link #getRegionCodeForNumber}, {@link #getNumberType}
+     * and {@link #isValidNumber}. By default these results are not cached.
+     */
+    public Builder setClassificationCache(ClassificationCache classificationCache) {
+      if (classificationCache == null) {
+        throw new IllegalArgumentException("classificationCache could not be null.");
+      }
+      this.classificationCache = classificationCache;
+      return this;
+    }
+
+    /**
+     * Returns a new instance with the settings of this builder.
+     */
+    public PhoneNumberUtil build() {
+      return new PhoneNumberUtil(META_DATA_FILE_PREFIX, null,
+          CountryCodeToRegionCodeMap.getCountryCallingCodeIndex(),
+          regexCache == null ? new RegexCache(DEFAULT_REGEX_CACHE_SIZE) : regexCache,
+          classificationCache);
     }
-    return instance;
   }
 
   /**
@@ -1010,7 +1353,7 @@ public class PhoneNumberUtil {
    * Helper function to check the country calling code is valid.
    */
   private boolean hasValidCountryCallingCode(int countryCallingCode) {
-    return countryCallingCodeToRegionCodeMap.containsKey(countryCallingCode);
+    return countryCallingCodeToRegionCodeIndex.contains(countryCallingCode);
   }
 
   /**
@@ -1053,15 +1396,19 @@ public class PhoneNumberUtil {
     // Clear the StringBuilder first.
     formattedNumber.setLength(0);
     int countryCallingCode = number.getCountryCode();
-    String nationalSignificantNumber = getNationalSignificantNumber(number);
     if (numberFormat == PhoneNumberFormat.E164) {
       // Early exit for E164 case (even if the country calling code is invalid) since no formatting
-      // of the national number needs to be applied. Extensions are not formatted.
-      formattedNumber.append(nationalSignificantNumber);
-      prefixNumberWithCountryCallingCode(countryCallingCode, PhoneNumberFormat.E164,
-                                         formattedNumber);
+      // of the national number needs to be applied. Extensions are not formatted. The fields are
+      // appended in order rather than through getNationalSignificantNumber, which saves creating
+      // an intermediate string in the most common format.
+      formattedNumber.append(PLUS_SIGN).append(countryCallingCode);
+      if (number.isItalianLeadingZero()) {
+        formattedNumber.append('0');
+      }
+      formattedNumber.append(number.getNationalNumber());
       return;
     }
+    String nationalSignificantNumber = getNationalSignificantNumber(number);
     if (!hasValidCountryCallingCode(countryCallingCode)) {
       formattedNumber.append(nationalSignificantNumber);
       return;
@@ -1079,6 +1426,136 @@ public class PhoneNumberUtil {
     prefixNumberWithCountryCallingCode(countryCallingCode, numberFormat, formattedNumber);
   }
 
+  /**
+   * Same as {@link #format(PhoneNumber, PhoneNumberFormat)} with {@link PhoneNumberFormat#E164},
+   * but keeps the result on {@code number}, so that formatting the same PhoneNumber object again
+   * returns the same string without doing any work. This suits numbers that are formatted as E164
+   * many times, for example to be used as keys. The kept result is dropped whenever a field of
+   * {@code number} that it depends on is changed.
+   *
+   * @param number  the phone number to be formatted
+   * @return  the formatted phone number
+   */
+  public String formatE164(PhoneNumber number) {
+    String formattedNumber = number.getCachedE164();
+    if (formattedNumber == null) {
+      formattedNumber = format(number, PhoneNumberFormat.E164);
+      number.setCachedE164(formattedNumber);
+    }
+    return formattedNumber;
+  }
+
+  /**
+   * Writes a phone number in E164 format into {@code buffer}, starting at {@code offset}, without
+   * creating any objects. As with {@link #format(PhoneNumber, PhoneNumberFormat, StringBuilder)},
+   * extensions are not formatted.
+   *
+   * @param number  the phone number to be formatted
+   * @param buffer  the array the formatted number is written into
+   * @param offset  the index in {@code buffer} of the first character to write
+   * @return  the number of characters written
+   * @throws IndexOutOfBoundsException  if the formatted number does not fit into {@code buffer} at
+   *     {@code offset}, in which case nothing is written
+   */
+  public int formatE164(PhoneNumber number, char[] buffer, int offset) {
+    if (number.getCountryCode() < 0 || number.getNationalNumber() < 0) {
+      // Only malformed numbers get here, so they are formatted the slow way, which handles signs.
+      StringBuilder formattedNumber = new StringBuilder(20);
+      format(number, PhoneNumberFormat.E164, formattedNumber);
+      checkE164Fits(buffer.length, offset, formattedNumber.length());
+      formattedNumber.getChars(0, formattedNumber.length(), buffer, offset);
+      return formattedNumber.length();
+    }
+    int length = getE164Length(number);
+    checkE164Fits(buffer.length, offset, length);
+    int start = writeDigitsBackwards(number.getNationalNumber(), buffer, offset + length);
+    if (number.isItalianLeadingZero()) {
+      buffer[--start] = '0';
+    }
+    start = writeDigitsBackwards(number.getCountryCode(), buffer, start);
+    buffer[start - 1] = PLUS_SIGN;
+    return length;
+  }
+
+  /**
+   * Same as {@link #formatE164(PhoneNumber, char[], int)}, but writes the formatted number as
+   * US-ASCII bytes at the position of {@code buffer}, and advances the position past them.
+   *
+   * @param number  the phone number to be formatted
+   * @param buffer  the buffer the formatted number is written into
+   * @throws BufferOverflowException  if fewer bytes remain in {@code buffer} than the formatted
+   *     number takes, in which case nothing is written
+   */
+  public void formatE164(PhoneNumber number, ByteBuffer buffer) {
+    if (number.getCountryCode() < 0 || number.getNationalNumber() < 0) {
+      StringBuilder formattedNumber = new StringBuilder(20);
+      format(number, PhoneNumberFormat.E164, formattedNumber);
+      if (buffer.remaining() < formattedNumber.length()) {
+        throw new BufferOverflowException();
+      }
+      for (int i = 0; i < formattedNumber.length(); i++) {
+        buffer.put((byte) formattedNumber.charAt(i));
+      }
+      return;
+    }
+    int length = getE164Length(number);
+    if (buffer.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    int end = buffer.position() + length;
+    int start = writeDigitsBackwards(number.getNationalNumber(), buffer, end);
+    if (number.isItalianLeadingZero()) {
+      buffer.put(--start, (byte) '0');
+    }
+    start = writeDigitsBackwards(number.getCountryCode(), buffer, start);
+    buffer.put(start - 1, (byte) PLUS_SIGN);
+    buffer.position(end);
+  }
+
+  private static void checkE164Fits(int bufferLength, int offset, int length) {
+    if (offset < 0 || offset > bufferLength - length) {
+      throw new IndexOutOfBoundsException("Cannot write " + length + " characters at offset " +
+          offset + " into a buffer of length " + bufferLength);
+    }
+  }
+
+  // Returns the length of a number in E164 format whose fields are not negative.
+  private static int getE164Length(PhoneNumber number) {
+    return 1 + getDigitCount(number.getCountryCode()) + (number.isItalianLeadingZero() ? 1 : 0) +
+        getDigitCount(number.getNationalNumber());
+  }
+
+  // Returns the number of decimal digits of value, which must not be negative. Used both for
+  // national numbers and for country calling codes.
+  static int getDigitCount(long value) {
+    // Comparing against powers of ten is cheaper than dividing. Long.MAX_VALUE has 19 digits.
+    int count = 1;
+    for (long powerOfTen = 10; count < 19 && value >= powerOfTen; powerOfTen *= 10) {
+      count++;
+    }
+    return count;
+  }
+
+  // Writes the decimal digits of value, which must not be negative, into buffer so that the last
+  // one is just before end. Returns the index of the first one.
+  private static int writeDigitsBackwards(long value, char[] buffer, int end) {
+    int start = end;
+    do {
+      buffer[--start] = (char) ('0' + value % 10);
+      value /= 10;
+    } while (value > 0);
+    return start;
+  }
+
+  private static int writeDigitsBackwards(long value, ByteBuffer buffer, int end) {
+    int start = end;
+    do {
+      buffer.put(--start, (byte) ('0' + value % 10));
+      value /= 10;
+    } while (value > 0);
+    return start;
+  }
+
   /**
    * Formats a phone number in the specified format using client-defined formatting rules. Note that
    * if the phone number has a country calling code of zero or an otherwise invalid country calling
@@ -1176,7 +1653,7 @@ public class PhoneNumberUtil {
     return formattedNumber.toString();
   }
 
-  private PhoneMetadata getMetadataForRegionOrCallingCode(
+  PhoneMetadata getMetadataForRegionOrCallingCode(
       int countryCallingCode, String regionCode) {
     return REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCode)
         ? getMetadataForNonGeographicalRegion(countryCallingCode)
@@ -1425,7 +1902,7 @@ public class PhoneNumberUtil {
         PhoneMetadata metadata = getMetadataForRegion(regionCode);
         String nationalNumber = getNationalSignificantNumber(number);
         NumberFormat formatRule =
-            chooseFormattingPatternForNumber(metadata.numberFormats(), nationalNumber);
+            chooseFormattingPatternForNumber(metadata, false, nationalNumber);
         // The format rule could still be null here if the national number was 0 and there was no
         // raw input (this should not be possible for numbers generated by the phonenumber library
         // as they would also not have a country calling code and we would have exited earlier).
@@ -1510,8 +1987,7 @@ public class PhoneNumberUtil {
       return false;
     }
     String nationalNumber = getNationalSignificantNumber(number);
-    NumberFormat formatRule =
-        chooseFormattingPatternForNumber(metadata.numberFormats(), nationalNumber);
+    NumberFormat formatRule = chooseFormattingPatternForNumber(metadata, false, nationalNumber);
     return formatRule != null;
   }
 
@@ -1575,8 +2051,7 @@ public class PhoneNumberUtil {
     } else if (metadataForRegionCallingFrom != null &&
                countryCode == getCountryCodeForValidRegion(regionCallingFrom)) {
       NumberFormat formattingPattern =
-          chooseFormattingPatternForNumber(metadataForRegionCallingFrom.numberFormats(),
-                                           nationalNumber);
+          chooseFormattingPatternForNumber(metadataForRegionCallingFrom, false, nationalNumber);
       if (formattingPattern == null) {
         // If no pattern above is matched, we format the original input.
         return rawInput;
@@ -1678,27 +2153,40 @@ public class PhoneNumberUtil {
                            PhoneMetadata metadata,
                            PhoneNumberFormat numberFormat,
                            String carrierCode) {
-    List<NumberFormat> intlNumberFormats = metadata.intlNumberFormats();
     // When the intlNumberFormats exists, we use that to format national number for the
     // INTERNATIONAL format instead of using the numberDesc.numberFormats.
-    List<NumberFormat> availableFormats =
-        (intlNumberFormats.size() == 0 || numberFormat == PhoneNumberFormat.NATIONAL)
-        ? metadata.numberFormats()
-        : metadata.intlNumberFormats();
-    NumberFormat formattingPattern = chooseFormattingPatternForNumber(availableFormats, number);
+    boolean useIntlFormats =
+        metadata.intlNumberFormatSize() != 0 && numberFormat != PhoneNumberFormat.NATIONAL;
+    NumberFormat formattingPattern =
+        chooseFormattingPatternForNumber(metadata, useIntlFormats, number);
     return (formattingPattern == null)
         ? number
         : formatNsnUsingPattern(number, formattingPattern, numberFormat, carrierCode);
   }
 
+  // Chooses the formatting pattern for nationalNumber from the national formats of metadata, or
+  // from its international formats if useIntlFormats is true. Uses the leading-digits index of the
+  // formats unless they cannot be indexed.
+  NumberFormat chooseFormattingPatternForNumber(PhoneMetadata metadata, boolean useIntlFormats,
+                                                String nationalNumber) {
+    LeadingDigitsIndex index = useIntlFormats
+        ? metadata.getIntlNumberFormatIndex()
+        : metadata.getNumberFormatIndex();
+    if (index != null) {
+      return index.chooseFormattingPattern(nationalNumber);
+    }
+    return chooseFormattingPatternForNumber(
+        useIntlFormats ? metadata.intlNumberFormats() : metadata.numberFormats(), nationalNumber);
+  }
+
   NumberFormat chooseFormattingPatternForNumber(List<NumberFormat> availableFormats,
                                                 String nationalNumber) {
     for (NumberFormat numFormat : availableFormats) {
       int size = numFormat.leadingDigitsPatternSize();
-      if (size == 0 || regexCache.getPatternForRegex(
-              // We always use the last leading_digits_pattern, as it is the most detailed.
-              numFormat.getLeadingDigitsPattern(size - 1)).matcher(nationalNumber).lookingAt()) {
-        Matcher m = regexCache.getPatternForRegex(numFormat.getPattern()).matcher(nationalNumber);
+      // We always use the last leading_digits_pattern, as it is the most detailed.
+      if (size == 0 ||
+          numFormat.getCompiledLeadingDigitsPattern(size - 1).matcher(nationalNumber).lookingAt()) {
+        Matcher m = numFormat.getCompiledPattern().matcher(nationalNumber);
         if (m.matches()) {
           return numFormat;
         }
@@ -1720,9 +2208,13 @@ public class PhoneNumberUtil {
                                        NumberFormat formattingPattern,
                                        PhoneNumberFormat numberFormat,
                                        String carrierCode) {
+    String formattedWithTemplate =
+        formatNsnUsingTemplate(nationalNumber, formattingPattern, numberFormat, carrierCode);
+    if (formattedWithTemplate != null) {
+      return formattedWithTemplate;
+    }
     String numberFormatRule = formattingPattern.getFormat();
-    Matcher m =
-        regexCache.getPatternForRegex(formattingPattern.getPattern()).matcher(nationalNumber);
+    Matcher m = formattingPattern.getCompiledPattern().matcher(nationalNumber);
     String formattedNationalNumber = "";
     if (numberFormat == PhoneNumberFormat.NATIONAL &&
         carrierCode != null && carrierCode.length() > 0 &&
@@ -1761,6 +2253,48 @@ public class PhoneNumberUtil {
     return formattedNationalNumber;
   }
 
+  // Formats the number the same way as formatNsnUsingPattern, but with the precompiled template of
+  // the format instead of the replacement methods of Matcher. Returns null if there is no template
+  // for this case, in which case the number has to be formatted with regular expressions.
+  private String formatNsnUsingTemplate(String nationalNumber,
+                                        NumberFormat formattingPattern,
+                                        PhoneNumberFormat numberFormat,
+                                        String carrierCode) {
+    int templateKind;
+    if (numberFormat == PhoneNumberFormat.NATIONAL &&
+        carrierCode != null && carrierCode.length() > 0 &&
+        formattingPattern.getDomesticCarrierCodeFormattingRule().length() > 0) {
+      // The carrier code was used as a replacement string, where these have a special meaning.
+      if (carrierCode.indexOf('$') >= 0 || carrierCode.indexOf('\\') >= 0) {
+        return null;
+      }
+      templateKind = FormattingTemplate.WITH_CARRIER_CODE;
+    } else if (numberFormat == PhoneNumberFormat.NATIONAL &&
+               formattingPattern.getNationalPrefixFormattingRule() != null &&
+               formattingPattern.getNationalPrefixFormattingRule().length() > 0) {
+      templateKind = FormattingTemplate.WITH_NATIONAL_PREFIX;
+    } else if (numberFormat == PhoneNumberFormat.RFC3966) {
+      templateKind = FormattingTemplate.RFC3966;
+    } else {
+      templateKind = FormattingTemplate.PLAIN;
+    }
+    FormattingTemplate template = formattingPattern.getFormattingTemplate(templateKind);
+    if (template == null) {
+      return null;
+    }
+    // replaceAll replaces every match of the pattern, whereas a template stands for a single match
+    // of the whole number, which is what the chosen formatting pattern gives.
+    Matcher m = formattingPattern.getCompiledPattern().matcher(nationalNumber);
+    if (!m.find() || m.start() != 0 || m.end() != nationalNumber.length()) {
+      return null;
+    }
+    StringBuilder formattedNationalNumber = new StringBuilder(nationalNumber.length() + 8);
+    if (!template.appendTo(m, nationalNumber, carrierCode, formattedNationalNumber) || m.find()) {
+      return null;
+    }
+    return formattedNationalNumber.toString();
+  }
+
   /**
    * Gets a valid number for the specified region.
    *
@@ -1881,7 +2415,13 @@ public class PhoneNumberUtil {
    * @return  the type of the phone number
    */
   public PhoneNumberType getNumberType(PhoneNumber number) {
-    String regionCode = getRegionCodeForNumber(number);
+    if (classificationCache != null) {
+      return getClassification(number).getNumberType();
+    }
+    return getNumberTypeForRegion(number, getRegionCodeForNumberHelper(number));
+  }
+
+  private PhoneNumberType getNumberTypeForRegion(PhoneNumber number, String regionCode) {
     PhoneMetadata metadata = getMetadataForRegionOrCallingCode(number.getCountryCode(), regionCode);
     if (metadata == null) {
       return PhoneNumberType.UNKNOWN;
@@ -1892,8 +2432,16 @@ public class PhoneNumberUtil {
 
   private PhoneNumberType getNumberTypeHelper(String nationalNumber, PhoneMetadata metadata) {
     PhoneNumberDesc generalNumberDesc = metadata.getGeneralDesc();
-    if (!generalNumberDesc.hasNationalNumberPattern() ||
-        !isNumberMatchingDesc(nationalNumber, generalNumberDesc)) {
+    if (!generalNumberDesc.hasNationalNumberPattern()) {
+      return PhoneNumberType.UNKNOWN;
+    }
+    // Match all the number descriptions in one pass if the metadata can be compiled into an
+    // automaton, which is the case for all regions in the metadata shipped with the library.
+    NumberTypeAutomaton automaton = metadata.getNumberTypeAutomaton();
+    if (automaton != null) {
+      return automaton.getNumberType(nationalNumber, metadata.isSameMobileAndFixedLinePattern());
+    }
+    if (!isNumberMatchingDesc(nationalNumber, generalNumberDesc)) {
       return PhoneNumberType.UNKNOWN;
     }
 
@@ -1948,24 +2496,40 @@ public class PhoneNumberUtil {
     if (!isValidRegionCode(regionCode)) {
       return null;
     }
-    synchronized (regionToMetadataMap) {
+    PhoneMetadata metadata = regionToMetadataMap.get(regionCode);
+    if (metadata != null) {
+      return metadata;
+    }
+    ReentrantLock lock = getMetadataLoadLock(regionCode);
+    lock.lock();
+    try {
       if (!regionToMetadataMap.containsKey(regionCode)) {
         // The regionCode here will be valid and won't be '001', so we don't need to worry about
         // what to pass in for the country calling code.
         loadMetadataFromFile(currentFilePrefix, regionCode, 0);
       }
+    } finally {
+      lock.unlock();
     }
     return regionToMetadataMap.get(regionCode);
   }
 
   PhoneMetadata getMetadataForNonGeographicalRegion(int countryCallingCode) {
-    synchronized (countryCodeToNonGeographicalMetadataMap) {
-      if (!countryCallingCodeToRegionCodeMap.containsKey(countryCallingCode)) {
-        return null;
-      }
+    PhoneMetadata metadata = countryCodeToNonGeographicalMetadataMap.get(countryCallingCode);
+    if (metadata != null) {
+      return metadata;
+    }
+    if (!countryCallingCodeToRegionCodeIndex.contains(countryCallingCode)) {
+      return null;
+    }
+    ReentrantLock lock = getMetadataLoadLock(countryCallingCode);
+    lock.lock();
+    try {
       if (!countryCodeToNonGeographicalMetadataMap.containsKey(countryCallingCode)) {
         loadMetadataFromFile(currentFilePrefix, REGION_CODE_FOR_NON_GEO_ENTITY, countryCallingCode);
       }
+    } finally {
+      lock.unlock();
     }
     return countryCodeToNonGeographicalMetadataMap.get(countryCallingCode);
   }
@@ -1973,18 +2537,14 @@ public class PhoneNumberUtil {
   // @VisibleForTesting
   boolean isNumberPossibleForDesc(String nationalNumber, PhoneNumberDesc numberDesc) {
     Matcher possibleNumberPatternMatcher =
-        regexCache.getPatternForRegex(numberDesc.getPossibleNumberPattern())
-            .matcher(nationalNumber);
+        numberDesc.getCompiledPossibleNumberPattern().matcher(nationalNumber);
     return possibleNumberPatternMatcher.matches();
   }
 
   // @VisibleForTesting
   boolean isNumberMatchingDesc(String nationalNumber, PhoneNumberDesc numberDesc) {
-    Matcher nationalNumberPatternMatcher =
-        regexCache.getPatternForRegex(numberDesc.getNationalNumberPattern())
-            .matcher(nationalNumber);
     return isNumberPossibleForDesc(nationalNumber, numberDesc) &&
-        nationalNumberPatternMatcher.matches();
+        numberDesc.getCompiledNationalNumberPattern().matcher(nationalNumber).matches();
   }
 
   /**
@@ -1995,10 +2555,26 @@ public class PhoneNumberUtil {
    * @return  a boolean that indicates whether the number is of a valid pattern
    */
   public boolean isValidNumber(PhoneNumber number) {
-    String regionCode = getRegionCodeForNumber(number);
+    if (classificationCache != null) {
+      return getClassification(number).isValid();
+    }
+    String regionCode = getRegionCodeForNumberHelper(number);
     return isValidNumberForRegion(number, regionCode);
   }
 
+  // Returns the classification of number from the classification cache, classifying it and adding
+  // it to the cache if it is not there yet.
+  private Classification getClassification(PhoneNumber number) {
+    Classification classification = classificationCache.get(number);
+    if (classification == null) {
+      String regionCode = getRegionCodeForNumberHelper(number);
+      classification = new Classification(regionCode, getNumberTypeForRegion(number, regionCode),
+                                          isValidNumberForRegion(number, regionCode));
+      classificationCache.put(number, classification);
+    }
+    return classification;
+  }
+
   /**
    * Tests whether a phone number is valid for a certain region. Note this doesn't verify the number
    * is actually in use, which is impossible to tell by just looking at a number itself. If the
@@ -2047,8 +2623,15 @@ public class PhoneNumberUtil {
    *     code
    */
   public String getRegionCodeForNumber(PhoneNumber number) {
+    if (classificationCache != null) {
+      return getClassification(number).getRegionCode();
+    }
+    return getRegionCodeForNumberHelper(number);
+  }
+
+  private String getRegionCodeForNumberHelper(PhoneNumber number) {
     int countryCode = number.getCountryCode();
-    List<String> regions = countryCallingCodeToRegionCodeMap.get(countryCode);
+    List<String> regions = countryCallingCodeToRegionCodeIndex.getRegionCodes(countryCode);
     if (regions == null) {
       String numberString = getNationalSignificantNumber(number);
       LOGGER.log(Level.WARNING,
@@ -2065,13 +2648,27 @@ public class PhoneNumberUtil {
   private String getRegionCodeForNumberFromRegionList(PhoneNumber number,
                                                       List<String> regionCodes) {
     String nationalNumber = getNationalSignificantNumber(number);
+    if (regionCodes.size() <= RegionCodeForNumberIndex.MAX_REGIONS) {
+      RegionCodeForNumberIndex index =
+          getRegionCodeForNumberIndex(number.getCountryCode(), regionCodes);
+      // Only the regions the index leaves as candidates are checked, in the same order as below.
+      for (long candidates = index.getCandidateRegions(nationalNumber); candidates != 0L;
+           candidates &= candidates - 1) {
+        int regionIndex = Long.numberOfTrailingZeros(candidates);
+        if (index.isIdentifiedByLeadingDigits(regionIndex) ||
+            getNumberTypeHelper(nationalNumber, index.getMetadata(regionIndex))
+                != PhoneNumberType.UNKNOWN) {
+          return regionCodes.get(regionIndex);
+        }
+      }
+      return null;
+    }
     for (String regionCode : regionCodes) {
       // If leadingDigits is present, use this. Otherwise, do full validation.
       // Metadata cannot be null because the region codes come from the country calling code map.
       PhoneMetadata metadata = getMetadataForRegion(regionCode);
       if (metadata.hasLeadingDigits()) {
-        if (regexCache.getPatternForRegex(metadata.getLeadingDigits())
-                .matcher(nationalNumber).lookingAt()) {
+        if (metadata.getCompiledLeadingDigits().matcher(nationalNumber).lookingAt()) {
           return regionCode;
         }
       } else if (getNumberTypeHelper(nationalNumber, metadata) != PhoneNumberType.UNKNOWN) {
@@ -2081,14 +2678,29 @@ public class PhoneNumberUtil {
     return null;
   }
 
+  private RegionCodeForNumberIndex getRegionCodeForNumberIndex(int countryCallingCode,
+                                                               List<String> regionCodes) {
+    RegionCodeForNumberIndex index = regionCodeForNumberIndexes.get(countryCallingCode);
+    if (index == null || !index.isUpToDate()) {
+      PhoneMetadata[] metadata = new PhoneMetadata[regionCodes.size()];
+      for (int i = 0; i < metadata.length; i++) {
+        // Metadata cannot be null because the region codes come from the country calling code map.
+        metadata[i] = getMetadataForRegion(regionCodes.get(i));
+      }
+      index = RegionCodeForNumberIndex.build(metadata);
+      regionCodeForNumberIndexes.put(countryCallingCode, index);
+    }
+    return index;
+  }
+
   /**
    * Returns the region code that matches the specific country calling code. In the case of no
    * region code being found, ZZ will be returned. In the case of multiple regions, the one
    * designated in the metadata as the "main" region for this calling code will be returned.
    */
   public String getRegionCodeForCountryCode(int countryCallingCode) {
-    List<String> regionCodes = countryCallingCodeToRegionCodeMap.get(countryCallingCode);
-    return regionCodes == null ? UNKNOWN_REGION : regionCodes.get(0);
+    String regionCode = countryCallingCodeToRegionCodeIndex.getMainRegionCode(countryCallingCode);
+    return regionCode == null ? UNKNOWN_REGION : regionCode;
   }
 
   /**
@@ -2097,9 +2709,9 @@ public class PhoneNumberUtil {
    * of no region code being found, an empty list is returned.
    */
   public List<String> getRegionCodesForCountryCode(int countryCallingCode) {
-    List<String> regionCodes = countryCallingCodeToRegionCodeMap.get(countryCallingCode);
-    return Collections.unmodifiableList(regionCodes == null ? new ArrayList<String>(0)
-                                                            : regionCodes);
+    List<String> regionCodes =
+        countryCallingCodeToRegionCodeIndex.getRegionCodes(countryCallingCode);
+    return regionCodes == null ? Collections.<String>emptyList() : regionCodes;
   }
 
   /**
@@ -2213,7 +2825,7 @@ public class PhoneNumberUtil {
     }
     StringBuilder strippedNumber = new StringBuilder(number);
     maybeStripExtension(strippedNumber);
-    return VALID_ALPHA_PHONE_PATTERN.matcher(strippedNumber).matches();
+    return ParsingPatterns.VALID_ALPHA_PHONE_PATTERN.matcher(strippedNumber).matches();
   }
 
   /**
@@ -2291,8 +2903,7 @@ public class PhoneNumberUtil {
         return ValidationResult.IS_POSSIBLE;
       }
     }
-    Pattern possibleNumberPattern =
-        regexCache.getPatternForRegex(generalNumDesc.getPossibleNumberPattern());
+    Pattern possibleNumberPattern = generalNumDesc.getCompiledPossibleNumberPattern();
     return testNumberLengthAgainstPattern(possibleNumberPattern, nationalNumber);
   }
 
@@ -2316,11 +2927,8 @@ public class PhoneNumberUtil {
    * @return  true if the number is possible
    */
   public boolean isPossibleNumber(String number, String regionDialingFrom) {
-    try {
-      return isPossibleNumber(parse(number, regionDialingFrom));
-    } catch (NumberParseException e) {
-      return false;
-    }
+    ParseResult result = tryParse(number, regionDialingFrom);
+    return result.isSuccess() && isPossibleNumber(result.getPhoneNumber());
   }
 
   /**
@@ -2357,7 +2965,21 @@ public class PhoneNumberUtil {
    *     to format phone numbers in the specific region "as you type"
    */
   public AsYouTypeFormatter getAsYouTypeFormatter(String regionCode) {
-    return new AsYouTypeFormatter(regionCode);
+    return new AsYouTypeFormatter(this, regionCode);
+  }
+
+  /**
+   * Same as {@link #getAsYouTypeFormatter(String)}, but the formatter compiles its regular
+   * expressions through {@code regexCache}. A single cache created with
+   * {@link RegexCache.EvictionPolicy#CLOCK} may be shared by formatters used on different threads.
+   *
+   * @param regionCode  the region where the phone number is being entered
+   * @param regexCache  the cache used for the formatter's regular expressions
+   * @return  an {@link com.google.i18n.phonenumbers.AsYouTypeFormatter} object, which can be used
+   *     to format phone numbers in the specific region "as you type"
+   */
+  public AsYouTypeFormatter getAsYouTypeFormatter(String regionCode, RegexCache regexCache) {
+    return new AsYouTypeFormatter(this, regionCode, regexCache);
   }
 
   // Extracts country calling code from fullNumber, returns it and places the remaining number in
@@ -2369,16 +2991,12 @@ public class PhoneNumberUtil {
       // Country codes do not begin with a '0'.
       return 0;
     }
-    int potentialCountryCode;
-    int numberLength = fullNumber.length();
-    for (int i = 1; i <= MAX_LENGTH_COUNTRY_CODE && i <= numberLength; i++) {
-      potentialCountryCode = Integer.parseInt(fullNumber.substring(0, i));
-      if (countryCallingCodeToRegionCodeMap.containsKey(potentialCountryCode)) {
-        nationalNumber.append(fullNumber.substring(i));
-        return potentialCountryCode;
-      }
+    int potentialCountryCode =
+        countryCallingCodeToRegionCodeIndex.findCountryCallingCode(fullNumber);
+    if (potentialCountryCode != 0) {
+      nationalNumber.append(fullNumber, getDigitCount(potentialCountryCode), fullNumber.length());
     }
-    return 0;
+    return potentialCountryCode;
   }
 
   /**
@@ -2420,12 +3038,31 @@ public class PhoneNumberUtil {
     if (number.length() == 0) {
       return 0;
     }
+    ParseResult result = tryExtractCountryCode(number, defaultRegionMetadata, nationalNumber,
+                                               keepRawInput, phoneNumber);
+    if (!result.isSuccess()) {
+      throw result.toException();
+    }
+    return phoneNumber.getCountryCode();
+  }
+
+  /**
+   * Same as {@link #maybeExtractCountryCode}, but returns a failed result instead of throwing an
+   * exception. A successful result holds phoneNumber, whose country_code is set to the country
+   * calling code extracted, or to zero if none could be extracted.
+   */
+  private ParseResult tryExtractCountryCode(String number, PhoneMetadata defaultRegionMetadata,
+                                            StringBuilder nationalNumber, boolean keepRawInput,
+                                            PhoneNumber phoneNumber) {
+    if (number.length() == 0) {
+      phoneNumber.setCountryCode(0);
+      return ParseResult.success(phoneNumber);
+    }
     StringBuilder fullNumber = new StringBuilder(number);
     // Set the default prefix to be something that will never match.
-    String possibleCountryIddPrefix = "NonMatch";
-    if (defaultRegionMetadata != null) {
-      possibleCountryIddPrefix = defaultRegionMetadata.getInternationalPrefix();
-    }
+    Pattern possibleCountryIddPrefix = (defaultRegionMetadata != null)
+        ? defaultRegionMetadata.getCompiledInternationalPrefix()
+        : regexCache.getPatternForRegex("NonMatch");
 
     CountryCodeSource countryCodeSource =
         maybeStripInternationalPrefixAndNormalize(fullNumber, possibleCountryIddPrefix);
@@ -2434,20 +3071,20 @@ public class PhoneNumberUtil {
     }
     if (countryCodeSource != CountryCodeSource.FROM_DEFAULT_COUNTRY) {
       if (fullNumber.length() <= MIN_LENGTH_FOR_NSN) {
-        throw new NumberParseException(NumberParseException.ErrorType.TOO_SHORT_AFTER_IDD,
-                                       "Phone number had an IDD, but after this was not "
-                                       + "long enough to be a viable phone number.");
+        return ParseResult.failure(NumberParseException.ErrorType.TOO_SHORT_AFTER_IDD,
+                                   "Phone number had an IDD, but after this was not "
+                                   + "long enough to be a viable phone number.");
       }
       int potentialCountryCode = extractCountryCode(fullNumber, nationalNumber);
       if (potentialCountryCode != 0) {
         phoneNumber.setCountryCode(potentialCountryCode);
-        return potentialCountryCode;
+        return ParseResult.success(phoneNumber);
       }
 
       // If this fails, they must be using a strange country calling code that we don't recognize,
       // or that doesn't exist.
-      throw new NumberParseException(NumberParseException.ErrorType.INVALID_COUNTRY_CODE,
-                                     "Country calling code supplied was not recognised.");
+      return ParseResult.failure(NumberParseException.ErrorType.INVALID_COUNTRY_CODE,
+                                 "Country calling code supplied was not recognised.");
     } else if (defaultRegionMetadata != null) {
       // Check to see if the number starts with the country calling code for the default region. If
       // so, we remove the country calling code, and do some checks on the validity of the number
@@ -2459,12 +3096,10 @@ public class PhoneNumberUtil {
         StringBuilder potentialNationalNumber =
             new StringBuilder(normalizedNumber.substring(defaultCountryCodeString.length()));
         PhoneNumberDesc generalDesc = defaultRegionMetadata.getGeneralDesc();
-        Pattern validNumberPattern =
-            regexCache.getPatternForRegex(generalDesc.getNationalNumberPattern());
+        Pattern validNumberPattern = generalDesc.getCompiledNationalNumberPattern();
         maybeStripNationalPrefixAndCarrierCode(
             potentialNationalNumber, defaultRegionMetadata, null /* Don't need the carrier code */);
-        Pattern possibleNumberPattern =
-            regexCache.getPatternForRegex(generalDesc.getPossibleNumberPattern());
+        Pattern possibleNumberPattern = generalDesc.getCompiledPossibleNumberPattern();
         // If the number was not valid before but is valid now, or if it was too long before, we
         // consider the number with the country calling code stripped to be a better result and
         // keep that instead.
@@ -2477,13 +3112,13 @@ public class PhoneNumberUtil {
             phoneNumber.setCountryCodeSource(CountryCodeSource.FROM_NUMBER_WITHOUT_PLUS_SIGN);
           }
           phoneNumber.setCountryCode(defaultCountryCode);
-          return defaultCountryCode;
+          return ParseResult.success(phoneNumber);
         }
       }
     }
     // No country calling code present.
     phoneNumber.setCountryCode(0);
-    return 0;
+    return ParseResult.success(phoneNumber);
   }
 
   /**
@@ -2496,7 +3131,8 @@ public class PhoneNumberUtil {
       int matchEnd = m.end();
       // Only strip this if the first digit after the match is not a 0, since country calling codes
       // cannot begin with 0.
-      Matcher digitMatcher = CAPTURING_DIGIT_PATTERN.matcher(number.substring(matchEnd));
+      Matcher digitMatcher =
+          ParsingPatterns.CAPTURING_DIGIT_PATTERN.matcher(number.substring(matchEnd));
       if (digitMatcher.find()) {
         String normalizedGroup = normalizeDigitsOnly(digitMatcher.group(1));
         if (normalizedGroup.equals("0")) {
@@ -2525,6 +3161,13 @@ public class PhoneNumberUtil {
   CountryCodeSource maybeStripInternationalPrefixAndNormalize(
       StringBuilder number,
       String possibleIddPrefix) {
+    return maybeStripInternationalPrefixAndNormalize(
+        number, regexCache.getPatternForRegex(possibleIddPrefix));
+  }
+
+  private CountryCodeSource maybeStripInternationalPrefixAndNormalize(
+      StringBuilder number,
+      Pattern iddPattern) {
     if (number.length() == 0) {
       return CountryCodeSource.FROM_DEFAULT_COUNTRY;
     }
@@ -2537,7 +3180,6 @@ public class PhoneNumberUtil {
       return CountryCodeSource.FROM_NUMBER_WITH_PLUS_SIGN;
     }
     // Attempt to parse the first digits as an international prefix.
-    Pattern iddPattern = regexCache.getPatternForRegex(possibleIddPrefix);
     normalize(number);
     return parsePrefixAsIdd(iddPattern, number)
            ? CountryCodeSource.FROM_NUMBER_WITH_IDD
@@ -2563,10 +3205,9 @@ public class PhoneNumberUtil {
       return false;
     }
     // Attempt to parse the first digits as a national prefix.
-    Matcher prefixMatcher = regexCache.getPatternForRegex(possibleNationalPrefix).matcher(number);
+    Matcher prefixMatcher = metadata.getCompiledNationalPrefixForParsing().matcher(number);
     if (prefixMatcher.lookingAt()) {
-      Pattern nationalNumberRule =
-          regexCache.getPatternForRegex(metadata.getGeneralDesc().getNationalNumberPattern());
+      Pattern nationalNumberRule = metadata.getGeneralDesc().getCompiledNationalNumberPattern();
       // Check if the original number is viable.
       boolean isViableOriginalNumber = nationalNumberRule.matcher(number).matches();
       // prefixMatcher.group(numOfGroups) == null implies nothing was captured by the capturing
@@ -2614,7 +3255,7 @@ public class PhoneNumberUtil {
    */
   // @VisibleForTesting
   String maybeStripExtension(StringBuilder number) {
-    Matcher m = EXTN_PATTERN.matcher(number);
+    Matcher m = ParsingPatterns.EXTN_PATTERN.matcher(number);
     // If we find a potential extension, and the number preceding this is a viable number, we assume
     // it is an extension.
     if (m.find() && isViablePhoneNumber(number.substring(0, m.start()))) {
@@ -2684,6 +3325,305 @@ public class PhoneNumberUtil {
     parseHelper(numberToParse, defaultRegion, false, true, phoneNumber);
   }
 
+  /**
+   * Same as {@link #parse(String, String)}, but reports numbers that cannot be parsed through the
+   * returned result instead of throwing a {@link NumberParseException}. Prefer this method when a
+   * large share of the input is expected not to be phone numbers, since creating the exception is
+   * much more expensive than parsing most numbers.
+   *
+   * @param numberToParse  number that we are attempting to parse
+   * @param defaultRegion  region that we are expecting the number to be from
+   * @return  a result holding either the parsed phone number or the reason parsing failed
+   */
+  public ParseResult tryParse(String numberToParse, String defaultRegion) {
+    return tryParseHelper(numberToParse, defaultRegion, false, true, new PhoneNumber());
+  }
+
+  /**
+   * Same as {@link #parse(String, String)}, but parses into the phone number held by
+   * {@code context} and reuses its buffers. Numbers written with only ASCII digits, an optional
+   * leading plus sign and the punctuation characters space, hyphen, full stop, slash and
+   * parentheses are parsed without creating any objects once the context has been used for the
+   * region; all other input goes through the regular parsing code. The result is the same as that
+   * of {@link #parse(String, String)} in either case.
+   *
+   * <p>The returned PhoneNumber belongs to the context and is overwritten by the next call that
+   * uses the same context, so callers that need to keep it should copy it with
+   * {@link PhoneNumber#mergeFrom}.
+   *
+   * @param numberToParse  number that we are attempting to parse
+   * @param defaultRegion  region that we are expecting the number to be from
+   * @param context  the context to parse the number with, which must not be shared between threads
+   * @return  the phone number held by {@code context}, filled with the parsed number
+   * @throws NumberParseException  if the string is not considered to be a viable phone number or if
+   *                               no default region was supplied and the number is not in
+   *                               international format (does not start with +)
+   */
+  public PhoneNumber parse(String numberToParse, String defaultRegion, ParseContext context)
+      throws NumberParseException {
+    ParseResult result = tryParse(numberToParse, defaultRegion, context);
+    if (!result.isSuccess()) {
+      throw result.toException();
+    }
+    return result.getPhoneNumber();
+  }
+
+  /**
+   * Same as {@link #parse(String, String, ParseContext)}, but reports numbers that cannot be parsed
+   * through the returned result instead of throwing a {@link NumberParseException}. Successful
+   * results are owned by the context, like the phone number they hold.
+   *
+   * @param numberToParse  number that we are attempting to parse
+   * @param defaultRegion  region that we are expecting the number to be from
+   * @param context  the context to parse the number with, which must not be shared between threads
+   * @return  a result holding either the phone number of {@code context} or the reason parsing
+   *     failed
+   */
+  public ParseResult tryParse(String numberToParse, String defaultRegion, ParseContext context) {
+    PhoneNumber phoneNumber = context.getPhoneNumber();
+    phoneNumber.clear();
+    if (parseSimpleNumber(numberToParse, defaultRegion, context, phoneNumber)) {
+      return context.getSuccessResult();
+    }
+    phoneNumber.clear();
+    ParseResult result = tryParseHelper(numberToParse, defaultRegion, false, true, phoneNumber);
+    return result.isSuccess() ? context.getSuccessResult() : result;
+  }
+
+  /**
+   * Parses every number in {@code numbersToParse} on the calling thread. This is equivalent to
+   * calling {@link #parse(String, String)} for each of them, except that no exceptions are thrown:
+   * the error type of each number that cannot be parsed is recorded in the result instead.
+   *
+   * @param numbersToParse  numbers that we are attempting to parse
+   * @param defaultRegion  region that we are expecting the numbers to be from
+   * @return  the parsed numbers and error types, in the same order as {@code numbersToParse}
+   */
+  public BatchParseResult parseBatch(String[] numbersToParse, String defaultRegion) {
+    BatchParseResult result = new BatchParseResult(numbersToParse.length);
+    parseBatchRange(numbersToParse, defaultRegion, 0, numbersToParse.length, result);
+    return result;
+  }
+
+  /**
+   * Same as {@link #parseBatch(String[], String)}, but takes the numbers as a list.
+   */
+  public BatchParseResult parseBatch(List<String> numbersToParse, String defaultRegion) {
+    return parseBatch(numbersToParse.toArray(new String[numbersToParse.size()]), defaultRegion);
+  }
+
+  /**
+   * Same as {@link #parseBatch(String[], String)}, but splits the numbers into chunks that are
+   * parsed in parallel by {@code executor}. The result is the same as that of parsing the numbers
+   * on the calling thread.
+   *
+   * @param numbersToParse  numbers that we are attempting to parse
+   * @param defaultRegion  region that we are expecting the numbers to be from
+   * @param executor  the executor to parse the chunks with; it is not shut down by this method
+   * @return  the parsed numbers and error types, in the same order as {@code numbersToParse}
+   * @throws InterruptedException  if the calling thread was interrupted while waiting for the
+   *     chunks to be parsed
+   */
+  public BatchParseResult parseBatch(final String[] numbersToParse, final String defaultRegion,
+                                     ExecutorService executor) throws InterruptedException {
+    final BatchParseResult result = new BatchParseResult(numbersToParse.length);
+    int chunkCount = Math.min(numbersToParse.length / MIN_BATCH_CHUNK_SIZE,
+        Runtime.getRuntime().availableProcessors() * BATCH_CHUNKS_PER_PROCESSOR);
+    if (chunkCount <= 1) {
+      parseBatchRange(numbersToParse, defaultRegion, 0, numbersToParse.length, result);
+      return result;
+    }
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      final int start = (int) ((long) numbersToParse.length * i / chunkCount);
+      final int end = (int) ((long) numbersToParse.length * (i + 1) / chunkCount);
+      tasks.add(new Callable<Void>() {
+        public Void call() {
+          parseBatchRange(numbersToParse, defaultRegion, start, end, result);
+          return null;
+        }
+      });
+    }
+    for (Future<Void> future : executor.invokeAll(tasks)) {
+      getTaskResult(future);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the result of a task run by one of the parallel methods, rethrowing the unchecked
+   * exception it failed with, such as when metadata is missing, on the calling thread.
+   */
+  static <T> T getTaskResult(Future<T> future) throws InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Same as {@link #parseBatch(String[], String, ExecutorService)}, but takes the numbers as a
+   * list.
+   */
+  public BatchParseResult parseBatch(List<String> numbersToParse, String defaultRegion,
+                                     ExecutorService executor) throws InterruptedException {
+    return parseBatch(numbersToParse.toArray(new String[numbersToParse.size()]), defaultRegion,
+                      executor);
+  }
+
+  /**
+   * Parses the numbers from {@code start} (inclusive) to {@code end} (exclusive) into
+   * {@code result}, reusing a single ParseContext for all of them.
+   */
+  private void parseBatchRange(String[] numbersToParse, String defaultRegion, int start, int end,
+                               BatchParseResult result) {
+    ParseContext context = new ParseContext();
+    for (int i = start; i < end; i++) {
+      ParseResult parseResult = tryParse(numbersToParse[i], defaultRegion, context);
+      if (parseResult.isSuccess()) {
+        result.setPhoneNumber(i, new PhoneNumber().mergeFrom(parseResult.getPhoneNumber()));
+      } else {
+        result.setErrorType(i, parseResult.getErrorType());
+      }
+    }
+  }
+
+  /**
+   * Parses numbers made up of ASCII digits, simple punctuation and an optional leading plus sign
+   * without creating any objects. Returns false if the number needs any of the other steps of
+   * {@link #parseHelper}, in which case phoneNumber may have been partially filled in. Numbers that
+   * would not parse successfully always return false, so that the regular parsing code can report
+   * the error.
+   */
+  private boolean parseSimpleNumber(String numberToParse, String defaultRegion,
+                                    ParseContext context, PhoneNumber phoneNumber) {
+    if (numberToParse == null || numberToParse.length() > MAX_INPUT_STRING_LENGTH) {
+      return false;
+    }
+    StringBuilder digits = context.digits;
+    digits.setLength(0);
+    boolean hasPlusSign = false;
+    for (int i = 0; i < numberToParse.length(); i++) {
+      char c = numberToParse.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits.append(c);
+      } else if (c == PLUS_SIGN && !hasPlusSign && digits.length() == 0) {
+        hasPlusSign = true;
+      } else if (c != ' ' && c != '-' && c != '.' && c != '/' && c != '(' && c != ')') {
+        return false;
+      }
+    }
+    // Shorter numbers hit edge cases of the viability and length checks.
+    if (digits.length() <= MIN_LENGTH_FOR_NSN) {
+      return false;
+    }
+
+    int countryCode = 0;
+    int nationalNumberStart = 0;
+    PhoneMetadata regionMetadata;
+    if (hasPlusSign) {
+      if (digits.charAt(0) == '0') {
+        return false;
+      }
+      countryCode = countryCallingCodeToRegionCodeIndex.findCountryCallingCode(digits);
+      nationalNumberStart = getDigitCount(countryCode);
+      String regionCode = countryCallingCodeToRegionCodeIndex.getMainRegionCode(countryCode);
+      if (regionCode == null || REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCode)) {
+        return false;
+      }
+      regionMetadata = getMetadataForRegion(regionCode);
+    } else {
+      regionMetadata = getMetadataForRegion(defaultRegion);
+      if (regionMetadata == null) {
+        return false;
+      }
+      countryCode = regionMetadata.getCountryCode();
+      // Leave numbers that start with an international prefix or with the country calling code of
+      // the default region to the regular parsing code.
+      if (context.matcher(regionMetadata.getCompiledInternationalPrefix(), digits).lookingAt() ||
+          startsWithNumber(digits, countryCode)) {
+        return false;
+      }
+    }
+    if (regionMetadata == null || digits.length() - nationalNumberStart < MIN_LENGTH_FOR_NSN) {
+      return false;
+    }
+    nationalNumberStart =
+        stripNationalPrefixForParseContext(digits, nationalNumberStart, regionMetadata, context);
+    int lengthOfNationalNumber = digits.length() - nationalNumberStart;
+    if (nationalNumberStart < 0 || lengthOfNationalNumber < MIN_LENGTH_FOR_NSN ||
+        lengthOfNationalNumber > MAX_LENGTH_FOR_NSN) {
+      return false;
+    }
+    long nationalNumber = 0;
+    for (int i = nationalNumberStart; i < digits.length(); i++) {
+      nationalNumber = nationalNumber * 10 + (digits.charAt(i) - '0');
+    }
+    phoneNumber.setCountryCode(countryCode);
+    if (digits.charAt(nationalNumberStart) == '0') {
+      phoneNumber.setItalianLeadingZero(true);
+    }
+    phoneNumber.setNationalNumber(nationalNumber);
+    return true;
+  }
+
+  /**
+   * Same as {@link #maybeStripNationalPrefixAndCarrierCode}, but works on the digits from
+   * {@code start} onwards using the matchers held by {@code context}. Returns the index at which
+   * the national significant number starts, or -1 if the national prefix has to be transformed,
+   * which is left to the regular parsing code.
+   */
+  private static int stripNationalPrefixForParseContext(StringBuilder digits, int start,
+                                                        PhoneMetadata metadata,
+                                                        ParseContext context) {
+    if (metadata.getNationalPrefixForParsing().length() == 0) {
+      return start;
+    }
+    int end = digits.length();
+    Matcher prefixMatcher =
+        context.matcher(metadata.getCompiledNationalPrefixForParsing(), digits).region(start, end);
+    if (!prefixMatcher.lookingAt()) {
+      return start;
+    }
+    String transformRule = metadata.getNationalPrefixTransformRule();
+    if (transformRule != null && transformRule.length() > 0 &&
+        prefixMatcher.start(prefixMatcher.groupCount()) != -1) {
+      return -1;
+    }
+    Matcher nationalNumberMatcher = context.matcher(
+        metadata.getGeneralDesc().getCompiledNationalNumberPattern(), digits);
+    // If the original number was viable, and the resultant number is not, we keep the original.
+    if (nationalNumberMatcher.region(start, end).matches() &&
+        !nationalNumberMatcher.region(prefixMatcher.end(), end).matches()) {
+      return start;
+    }
+    return prefixMatcher.end();
+  }
+
+  /**
+   * Returns true if {@code digits} starts with the decimal representation of {@code number}.
+   */
+  private static boolean startsWithNumber(CharSequence digits, int number) {
+    int divisor = 1;
+    while (number / divisor >= 10) {
+      divisor *= 10;
+    }
+    for (int i = 0; divisor > 0; i++, divisor /= 10) {
+      if (i >= digits.length() || digits.charAt(i) - '0' != (number / divisor) % 10) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Parses a string and returns it in proto buffer format. This method differs from {@link #parse}
    * in that it always populates the raw_input field of the protocol buffer with numberToParse as
@@ -2716,6 +3656,14 @@ public class PhoneNumberUtil {
     parseHelper(numberToParse, defaultRegion, true, true, phoneNumber);
   }
 
+  /**
+   * Same as {@link #parseAndKeepRawInput(String, String)}, but reports numbers that cannot be
+   * parsed through the returned result instead of throwing a {@link NumberParseException}.
+   */
+  public ParseResult tryParseAndKeepRawInput(String numberToParse, String defaultRegion) {
+    return tryParseHelper(numberToParse, defaultRegion, true, true, new PhoneNumber());
+  }
+
   /**
    * Returns an iterable over all {@link PhoneNumberMatch PhoneNumberMatches} in {@code text}. This
    * is a shortcut for {@link #findNumbers(CharSequence, String, Leniency, long)
@@ -2758,6 +3706,78 @@ public class PhoneNumberUtil {
     };
   }
 
+  /**
+   * Returns all the {@link PhoneNumberMatch PhoneNumberMatches} in {@code text}, which is split
+   * into chunks that are searched in parallel by {@code executor}, such as a
+   * {@code java.util.concurrent.ForkJoinPool}. The matches are the same, and in the same order, as
+   * those of {@link #findNumbers(CharSequence, String, Leniency, long) findNumbers(text,
+   * defaultRegion, leniency, Long.MAX_VALUE)}. This is meant for long documents; shorter texts are
+   * searched on the calling thread.
+   *
+   * @param text              the text to search for phone numbers, null for no text. It is copied
+   *                          to a String first, unless it is one.
+   * @param defaultRegion     region that we are expecting the number to be from. This is only used
+   *                          if the number being parsed is not written in international format. The
+   *                          country_code for the number in this case would be stored as that of
+   *                          the default region supplied. May be null if only international
+   *                          numbers are expected.
+   * @param leniency          the leniency to use when evaluating candidate phone numbers
+   * @param executor          the executor to search the chunks with; it is not shut down by this
+   *                          method
+   * @throws InterruptedException  if the calling thread was interrupted while waiting for the
+   *     chunks to be searched
+   */
+  public List<PhoneNumberMatch> findNumbers(CharSequence text, String defaultRegion,
+                                            Leniency leniency, ExecutorService executor)
+      throws InterruptedException {
+    if (leniency == null || executor == null) {
+      throw new NullPointerException();
+    }
+    String textString = (text != null) ? text.toString() : "";
+    return new ParallelPhoneNumberFinder(this, textString, defaultRegion, leniency)
+        .findAll(executor);
+  }
+
+  /**
+   * Returns a matcher that finds the same phone numbers as {@link #findNumbers(CharSequence,
+   * String, Leniency, long)} in the text read from {@code text}, while holding only a window of
+   * {@value PhoneNumberStreamMatcher#DEFAULT_WINDOW_SIZE} characters of it in memory. This is meant
+   * for texts too large to load, such as mail archives or log files.
+   *
+   * @param text              the reader to read the text to search for phone numbers from. It is
+   *                          read as matches are asked for, and is not closed.
+   * @param defaultRegion     region that we are expecting the number to be from. This is only used
+   *                          if the number being parsed is not written in international format. The
+   *                          country_code for the number in this case would be stored as that of
+   *                          the default region supplied. May be null if only international
+   *                          numbers are expected.
+   * @param leniency          the leniency to use when evaluating candidate phone numbers
+   * @param maxTries          the maximum number of invalid numbers to try before giving up on the
+   *                          text. This is to cover degenerate cases where the text has a lot of
+   *                          false positives in it. Must be {@code >= 0}.
+   */
+  public PhoneNumberStreamMatcher findNumbersInStream(Reader text, String defaultRegion,
+                                                      Leniency leniency, long maxTries) {
+    return new PhoneNumberStreamMatcher(this, text, defaultRegion, leniency, maxTries,
+                                        PhoneNumberStreamMatcher.DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Returns a matcher that finds phone numbers in the text read from {@code text}, as
+   * {@link #findNumbersInStream(Reader, String, Leniency, long)} does, with the bytes read decoded
+   * with {@code charset}. Like {@link java.io.InputStreamReader}, malformed input is replaced
+   * rather than reported.
+   */
+  public PhoneNumberStreamMatcher findNumbersInStream(ReadableByteChannel text, Charset charset,
+                                                      String defaultRegion, Leniency leniency,
+                                                      long maxTries) {
+    CharsetDecoder decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    return findNumbersInStream(Channels.newReader(text, decoder, -1), defaultRegion, leniency,
+                               maxTries);
+  }
+
   /**
    * Parses a string and fills up the phoneNumber. This method is the same as the public
    * parse() method, with the exception that it allows the default region to be null, for use by
@@ -2767,27 +3787,41 @@ public class PhoneNumberUtil {
   private void parseHelper(String numberToParse, String defaultRegion, boolean keepRawInput,
                            boolean checkRegion, PhoneNumber phoneNumber)
       throws NumberParseException {
+    ParseResult result =
+        tryParseHelper(numberToParse, defaultRegion, keepRawInput, checkRegion, phoneNumber);
+    if (!result.isSuccess()) {
+      throw result.toException();
+    }
+  }
+
+  /**
+   * Same as {@link #parseHelper}, but returns a failed result instead of throwing an exception if
+   * the number cannot be parsed. A successful result holds phoneNumber.
+   */
+  private ParseResult tryParseHelper(String numberToParse, String defaultRegion,
+                                     boolean keepRawInput, boolean checkRegion,
+                                     PhoneNumber phoneNumber) {
     if (numberToParse == null) {
-      throw new NumberParseException(NumberParseException.ErrorType.NOT_A_NUMBER,
-                                     "The phone number supplied was null.");
+      return ParseResult.failure(NumberParseException.ErrorType.NOT_A_NUMBER,
+                                 "The phone number supplied was null.");
     } else if (numberToParse.length() > MAX_INPUT_STRING_LENGTH) {
-      throw new NumberParseException(NumberParseException.ErrorType.TOO_LONG,
-                                     "The string supplied was too long to parse.");
+      return ParseResult.failure(NumberParseException.ErrorType.TOO_LONG,
+                                 "The string supplied was too long to parse.");
     }
 
     StringBuilder nationalNumber = new StringBuilder();
     buildNationalNumberForParsing(numberToParse, nationalNumber);
 
     if (!isViablePhoneNumber(nationalNumber.toString())) {
-      throw new NumberParseException(NumberParseException.ErrorType.NOT_A_NUMBER,
-                                     "The string supplied did not seem to be a phone number.");
+      return ParseResult.failure(NumberParseException.ErrorType.NOT_A_NUMBER,
+                                 "The string supplied did not seem to be a phone number.");
     }
 
     // Check the region supplied is valid, or that the extracted number starts with some sort of +
     // sign so the number's region can be determined.
     if (checkRegion && !checkRegionForParsing(nationalNumber.toString(), defaultRegion)) {
-      throw new NumberParseException(NumberParseException.ErrorType.INVALID_COUNTRY_CODE,
-                                     "Missing or invalid default region.");
+      return ParseResult.failure(NumberParseException.ErrorType.INVALID_COUNTRY_CODE,
+                                 "Missing or invalid default region.");
     }
 
     if (keepRawInput) {
@@ -2804,29 +3838,31 @@ public class PhoneNumberUtil {
     // Check to see if the number is given in international format so we know whether this number is
     // from the default region or not.
     StringBuilder normalizedNationalNumber = new StringBuilder();
-    int countryCode = 0;
-    try {
-      // TODO: This method should really just take in the string buffer that has already
-      // been created, and just remove the prefix, rather than taking in a string and then
-      // outputting a string buffer.
-      countryCode = maybeExtractCountryCode(nationalNumber.toString(), regionMetadata,
-                                            normalizedNationalNumber, keepRawInput, phoneNumber);
-    } catch (NumberParseException e) {
+    // TODO: This method should really just take in the string buffer that has already
+    // been created, and just remove the prefix, rather than taking in a string and then
+    // outputting a string buffer.
+    ParseResult countryCodeResult = tryExtractCountryCode(nationalNumber.toString(),
+        regionMetadata, normalizedNationalNumber, keepRawInput, phoneNumber);
+    if (!countryCodeResult.isSuccess()) {
       Matcher matcher = PLUS_CHARS_PATTERN.matcher(nationalNumber.toString());
-      if (e.getErrorType() == NumberParseException.ErrorType.INVALID_COUNTRY_CODE &&
+      if (countryCodeResult.getErrorType() == NumberParseException.ErrorType.INVALID_COUNTRY_CODE &&
           matcher.lookingAt()) {
         // Strip the plus-char, and try again.
-        countryCode = maybeExtractCountryCode(nationalNumber.substring(matcher.end()),
-                                              regionMetadata, normalizedNationalNumber,
-                                              keepRawInput, phoneNumber);
-        if (countryCode == 0) {
-          throw new NumberParseException(NumberParseException.ErrorType.INVALID_COUNTRY_CODE,
-                                         "Could not interpret numbers after plus-sign.");
+        countryCodeResult = tryExtractCountryCode(nationalNumber.substring(matcher.end()),
+                                                  regionMetadata, normalizedNationalNumber,
+                                                  keepRawInput, phoneNumber);
+        if (!countryCodeResult.isSuccess()) {
+          return countryCodeResult;
+        }
+        if (phoneNumber.getCountryCode() == 0) {
+          return ParseResult.failure(NumberParseException.ErrorType.INVALID_COUNTRY_CODE,
+                                     "Could not interpret numbers after plus-sign.");
         }
       } else {
-        throw new NumberParseException(e.getErrorType(), e.getMessage());
+        return countryCodeResult;
       }
     }
+    int countryCode = phoneNumber.getCountryCode();
     if (countryCode != 0) {
       String phoneNumberRegion = getRegionCodeForCountryCode(countryCode);
       if (!phoneNumberRegion.equals(defaultRegion)) {
@@ -2846,8 +3882,8 @@ public class PhoneNumberUtil {
       }
     }
     if (normalizedNationalNumber.length() < MIN_LENGTH_FOR_NSN) {
-      throw new NumberParseException(NumberParseException.ErrorType.TOO_SHORT_NSN,
-                                     "The string supplied is too short to be a phone number.");
+      return ParseResult.failure(NumberParseException.ErrorType.TOO_SHORT_NSN,
+                                 "The string supplied is too short to be a phone number.");
     }
     if (regionMetadata != null) {
       StringBuilder carrierCode = new StringBuilder();
@@ -2858,17 +3894,18 @@ public class PhoneNumberUtil {
     }
     int lengthOfNationalNumber = normalizedNationalNumber.length();
     if (lengthOfNationalNumber < MIN_LENGTH_FOR_NSN) {
-      throw new NumberParseException(NumberParseException.ErrorType.TOO_SHORT_NSN,
-                                     "The string supplied is too short to be a phone number.");
+      return ParseResult.failure(NumberParseException.ErrorType.TOO_SHORT_NSN,
+                                 "The string supplied is too short to be a phone number.");
     }
     if (lengthOfNationalNumber > MAX_LENGTH_FOR_NSN) {
-      throw new NumberParseException(NumberParseException.ErrorType.TOO_LONG,
-                                     "The string supplied is too long to be a phone number.");
+      return ParseResult.failure(NumberParseException.ErrorType.TOO_LONG,
+                                 "The string supplied is too long to be a phone number.");
     }
     if (normalizedNationalNumber.charAt(0) == '0') {
       phoneNumber.setItalianLeadingZero(true);
     }
     phoneNumber.setNationalNumber(Long.parseLong(normalizedNationalNumber.toString()));
+    return ParseResult.success(phoneNumber);
   }
 
   /**
@@ -3013,26 +4050,21 @@ public class PhoneNumberUtil {
    *     {@link #isNumberMatch(PhoneNumber, PhoneNumber)} for more details.
    */
   public MatchType isNumberMatch(String firstNumber, String secondNumber) {
-    try {
-      PhoneNumber firstNumberAsProto = parse(firstNumber, UNKNOWN_REGION);
-      return isNumberMatch(firstNumberAsProto, secondNumber);
-    } catch (NumberParseException e) {
-      if (e.getErrorType() == NumberParseException.ErrorType.INVALID_COUNTRY_CODE) {
-        try {
-          PhoneNumber secondNumberAsProto = parse(secondNumber, UNKNOWN_REGION);
-          return isNumberMatch(secondNumberAsProto, firstNumber);
-        } catch (NumberParseException e2) {
-          if (e2.getErrorType() == NumberParseException.ErrorType.INVALID_COUNTRY_CODE) {
-            try {
-              PhoneNumber firstNumberProto = new PhoneNumber();
-              PhoneNumber secondNumberProto = new PhoneNumber();
-              parseHelper(firstNumber, null, false, false, firstNumberProto);
-              parseHelper(secondNumber, null, false, false, secondNumberProto);
-              return isNumberMatch(firstNumberProto, secondNumberProto);
-            } catch (NumberParseException e3) {
-              // Fall through and return MatchType.NOT_A_NUMBER.
-            }
-          }
+    ParseResult firstResult = tryParse(firstNumber, UNKNOWN_REGION);
+    if (firstResult.isSuccess()) {
+      return isNumberMatch(firstResult.getPhoneNumber(), secondNumber);
+    }
+    if (firstResult.getErrorType() == NumberParseException.ErrorType.INVALID_COUNTRY_CODE) {
+      ParseResult secondResult = tryParse(secondNumber, UNKNOWN_REGION);
+      if (secondResult.isSuccess()) {
+        return isNumberMatch(secondResult.getPhoneNumber(), firstNumber);
+      }
+      if (secondResult.getErrorType() == NumberParseException.ErrorType.INVALID_COUNTRY_CODE) {
+        PhoneNumber firstNumberProto = new PhoneNumber();
+        PhoneNumber secondNumberProto = new PhoneNumber();
+        if (tryParseHelper(firstNumber, null, false, false, firstNumberProto).isSuccess() &&
+            tryParseHelper(secondNumber, null, false, false, secondNumberProto).isSuccess()) {
+          return isNumberMatch(firstNumberProto, secondNumberProto);
         }
       }
     }
@@ -3053,32 +4085,31 @@ public class PhoneNumberUtil {
   public MatchType isNumberMatch(PhoneNumber firstNumber, String secondNumber) {
     // First see if the second number has an implicit country calling code, by attempting to parse
     // it.
-    try {
-      PhoneNumber secondNumberAsProto = parse(secondNumber, UNKNOWN_REGION);
-      return isNumberMatch(firstNumber, secondNumberAsProto);
-    } catch (NumberParseException e) {
-      if (e.getErrorType() == NumberParseException.ErrorType.INVALID_COUNTRY_CODE) {
-        // The second number has no country calling code. EXACT_MATCH is no longer possible.
-        // We parse it as if the region was the same as that for the first number, and if
-        // EXACT_MATCH is returned, we replace this with NSN_MATCH.
-        String firstNumberRegion = getRegionCodeForCountryCode(firstNumber.getCountryCode());
-        try {
-          if (!firstNumberRegion.equals(UNKNOWN_REGION)) {
-            PhoneNumber secondNumberWithFirstNumberRegion = parse(secondNumber, firstNumberRegion);
-            MatchType match = isNumberMatch(firstNumber, secondNumberWithFirstNumberRegion);
-            if (match == MatchType.EXACT_MATCH) {
-              return MatchType.NSN_MATCH;
-            }
-            return match;
-          } else {
-            // If the first number didn't have a valid country calling code, then we parse the
-            // second number without one as well.
-            PhoneNumber secondNumberProto = new PhoneNumber();
-            parseHelper(secondNumber, null, false, false, secondNumberProto);
-            return isNumberMatch(firstNumber, secondNumberProto);
+    ParseResult secondResult = tryParse(secondNumber, UNKNOWN_REGION);
+    if (secondResult.isSuccess()) {
+      return isNumberMatch(firstNumber, secondResult.getPhoneNumber());
+    }
+    if (secondResult.getErrorType() == NumberParseException.ErrorType.INVALID_COUNTRY_CODE) {
+      // The second number has no country calling code. EXACT_MATCH is no longer possible.
+      // We parse it as if the region was the same as that for the first number, and if
+      // EXACT_MATCH is returned, we replace this with NSN_MATCH.
+      String firstNumberRegion = getRegionCodeForCountryCode(firstNumber.getCountryCode());
+      if (!firstNumberRegion.equals(UNKNOWN_REGION)) {
+        ParseResult secondResultWithFirstNumberRegion = tryParse(secondNumber, firstNumberRegion);
+        if (secondResultWithFirstNumberRegion.isSuccess()) {
+          MatchType match =
+              isNumberMatch(firstNumber, secondResultWithFirstNumberRegion.getPhoneNumber());
+          if (match == MatchType.EXACT_MATCH) {
+            return MatchType.NSN_MATCH;
           }
-        } catch (NumberParseException e2) {
-          // Fall-through to return NOT_A_NUMBER.
+          return match;
+        }
+      } else {
+        // If the first number didn't have a valid country calling code, then we parse the
+        // second number without one as well.
+        PhoneNumber secondNumberProto = new PhoneNumber();
+        if (tryParseHelper(secondNumber, null, false, false, secondNumberProto).isSuccess()) {
+          return isNumberMatch(firstNumber, secondNumberProto);
         }
       }
     }
@@ -26,6 +26,8 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
 
 public final class Phonemetadata {
   private Phonemetadata() {}
@@ -56,8 +58,20 @@ public final class Phonemetadata {
     public NumberFormat setPattern(String value) {
       hasPattern = true;
       pattern_ = value;
+      compiledPattern_ = null;
+      formattingTemplates_ = null;
       return this;
     }
+    // Compiled lazily on first use, and reset whenever the pattern changes.
+    private volatile Pattern compiledPattern_;
+    Pattern getCompiledPattern() {
+      Pattern compiled = compiledPattern_;
+      if (compiled == null) {
+        compiled = Pattern.compile(pattern_);
+        compiledPattern_ = compiled;
+      }
+      return compiled;
+    }
 
     // required string format = 2;
     private boolean hasFormat;
@@ -67,6 +81,7 @@ public final class Phonemetadata {
     public NumberFormat setFormat(String value) {
       hasFormat = true;
       format_ = value;
+      formattingTemplates_ = null;
       return this;
     }
 
@@ -84,8 +99,39 @@ public final class Phonemetadata {
         throw new NullPointerException();
       }
       leadingDigitsPattern_.add(value);
+      compiledLeadingDigitsPatterns_ = null;
       return this;
     }
+    // Compiled lazily on first use, and reset whenever a pattern is added. Entries are filled in
+    // independently through the atomic array, so that a pattern compiled by one thread is safely
+    // published to the others; a race between two threads at worst compiles a pattern twice.
+    private volatile AtomicReferenceArray<Pattern> compiledLeadingDigitsPatterns_;
+    Pattern getCompiledLeadingDigitsPattern(int index) {
+      AtomicReferenceArray<Pattern> compiledPatterns = compiledLeadingDigitsPatterns_;
+      if (compiledPatterns == null || compiledPatterns.length() != leadingDigitsPattern_.size()) {
+        compiledPatterns = new AtomicReferenceArray<Pattern>(leadingDigitsPattern_.size());
+        compiledLeadingDigitsPatterns_ = compiledPatterns;
+      }
+      Pattern compiled = compiledPatterns.get(index);
+      if (compiled == null) {
+        compiled = Pattern.compile(leadingDigitsPattern_.get(index));
+        compiledPatterns.set(index, compiled);
+      }
+      return compiled;
+    }
+    // @VisibleForTesting
+    boolean isLeadingDigitsPatternCompiled(int index) {
+      AtomicReferenceArray<Pattern> compiledPatterns = compiledLeadingDigitsPatterns_;
+      return compiledPatterns != null && compiledPatterns.length() > index
+          && compiledPatterns.get(index) != null;
+    }
+    // Compiles all the patterns of this format now rather than on first use.
+    void compilePatterns() {
+      getCompiledPattern();
+      for (int i = 0; i < leadingDigitsPattern_.size(); i++) {
+        getCompiledLeadingDigitsPattern(i);
+      }
+    }
 
     // optional string national_prefix_formatting_rule = 4;
     private boolean hasNationalPrefixFormattingRule;
@@ -95,11 +141,13 @@ public final class Phonemetadata {
     public NumberFormat setNationalPrefixFormattingRule(String value) {
       hasNationalPrefixFormattingRule = true;
       nationalPrefixFormattingRule_ = value;
+      formattingTemplates_ = null;
       return this;
     }
     public NumberFormat clearNationalPrefixFormattingRule() {
       hasNationalPrefixFormattingRule = false;
       nationalPrefixFormattingRule_ = "";
+      formattingTemplates_ = null;
       return this;
     }
 
@@ -126,9 +174,34 @@ public final class Phonemetadata {
     public NumberFormat setDomesticCarrierCodeFormattingRule(String value) {
       hasDomesticCarrierCodeFormattingRule = true;
       domesticCarrierCodeFormattingRule_ = value;
+      formattingTemplates_ = null;
       return this;
     }
 
+    // Compiled lazily on first use, one for each kind of FormattingTemplate, and reset whenever a
+    // rule they are built from changes. Formats without a template of some kind hold
+    // NO_FORMATTING_TEMPLATE in its place, so that their rules are only parsed once. The atomic
+    // array publishes each template safely to the threads that read it after it is built.
+    private volatile AtomicReferenceArray<Object> formattingTemplates_;
+    private static final Object NO_FORMATTING_TEMPLATE = new Object();
+    // Returns null if the rules of this format cannot be made into a template of the given kind.
+    FormattingTemplate getFormattingTemplate(int kind) {
+      AtomicReferenceArray<Object> templates = formattingTemplates_;
+      if (templates == null) {
+        templates = new AtomicReferenceArray<Object>(FormattingTemplate.KIND_COUNT);
+        formattingTemplates_ = templates;
+      }
+      Object template = templates.get(kind);
+      if (template == null) {
+        template = FormattingTemplate.compile(this, kind);
+        if (template == null) {
+          template = NO_FORMATTING_TEMPLATE;
+        }
+        templates.set(kind, template);
+      }
+      return template == NO_FORMATTING_TEMPLATE ? null : (FormattingTemplate) template;
+    }
+
     public NumberFormat mergeFrom(NumberFormat other) {
       if (other.hasPattern()) {
         setPattern(other.getPattern());
@@ -177,6 +250,7 @@ public final class Phonemetadata {
       for (int i = 0; i < leadingDigitsPatternSize; i++) {
         leadingDigitsPattern_.add(objectInput.readUTF());
       }
+      compiledLeadingDigitsPatterns_ = null;
       if (objectInput.readBoolean()) {
         setNationalPrefixFormattingRule(objectInput.readUTF());
       }
@@ -213,8 +287,40 @@ public final class Phonemetadata {
     public PhoneNumberDesc setNationalNumberPattern(String value) {
       hasNationalNumberPattern = true;
       nationalNumberPattern_ = value;
+      compiledNationalNumberPattern_ = null;
+      nationalNumberAutomaton_ = null;
+      nationalNumberAutomatonUnsupported_ = false;
       return this;
     }
+    // Compiled lazily on first use, and reset whenever the pattern changes.
+    private volatile Pattern compiledNationalNumberPattern_;
+    Pattern getCompiledNationalNumberPattern() {
+      Pattern compiled = compiledNationalNumberPattern_;
+      if (compiled == null) {
+        compiled = Pattern.compile(nationalNumberPattern_);
+        compiledNationalNumberPattern_ = compiled;
+      }
+      return compiled;
+    }
+    // Compiled lazily on first use, and reset whenever the pattern changes. Null if the pattern
+    // cannot be compiled into an automaton, in which case nationalNumberAutomatonUnsupported_ is
+    // set so that compiling is not attempted again.
+    private volatile DigitAutomaton nationalNumberAutomaton_;
+    private volatile boolean nationalNumberAutomatonUnsupported_;
+    DigitAutomaton getNationalNumberAutomaton() {
+      DigitAutomaton automaton = nationalNumberAutomaton_;
+      if (automaton == null) {
+        if (nationalNumberAutomatonUnsupported_) {
+          return null;
+        }
+        automaton = DigitAutomaton.compile(new String[] {nationalNumberPattern_});
+        if (automaton == null) {
+          nationalNumberAutomatonUnsupported_ = true;
+        }
+        nationalNumberAutomaton_ = automaton;
+      }
+      return automaton;
+    }
 
     // optional string possible_number_pattern = 3;
     private boolean hasPossibleNumberPattern;
@@ -224,8 +330,19 @@ public final class Phonemetadata {
     public PhoneNumberDesc setPossibleNumberPattern(String value) {
       hasPossibleNumberPattern = true;
       possibleNumberPattern_ = value;
+      compiledPossibleNumberPattern_ = null;
       return this;
     }
+    // Compiled lazily on first use, and reset whenever the pattern changes.
+    private volatile Pattern compiledPossibleNumberPattern_;
+    Pattern getCompiledPossibleNumberPattern() {
+      Pattern compiled = compiledPossibleNumberPattern_;
+      if (compiled == null) {
+        compiled = Pattern.compile(possibleNumberPattern_);
+        compiledPossibleNumberPattern_ = compiled;
+      }
+      return compiled;
+    }
 
     // optional string example_number = 6;
     private boolean hasExampleNumber;
@@ -547,8 +664,19 @@ public final class Phonemetadata {
     public PhoneMetadata setInternationalPrefix(String value) {
       hasInternationalPrefix = true;
       internationalPrefix_ = value;
+      compiledInternationalPrefix_ = null;
       return this;
     }
+    // Compiled lazily on first use, and reset whenever the prefix changes.
+    private volatile Pattern compiledInternationalPrefix_;
+    Pattern getCompiledInternationalPrefix() {
+      Pattern compiled = compiledInternationalPrefix_;
+      if (compiled == null) {
+        compiled = Pattern.compile(internationalPrefix_);
+        compiledInternationalPrefix_ = compiled;
+      }
+      return compiled;
+    }
 
     // optional string preferred_international_prefix = 17;
     private boolean hasPreferredInternationalPrefix;
@@ -591,8 +719,19 @@ public final class Phonemetadata {
     public PhoneMetadata setNationalPrefixForParsing(String value) {
       hasNationalPrefixForParsing = true;
       nationalPrefixForParsing_ = value;
+      compiledNationalPrefixForParsing_ = null;
       return this;
     }
+    // Compiled lazily on first use, and reset whenever the prefix changes.
+    private volatile Pattern compiledNationalPrefixForParsing_;
+    Pattern getCompiledNationalPrefixForParsing() {
+      Pattern compiled = compiledNationalPrefixForParsing_;
+      if (compiled == null) {
+        compiled = Pattern.compile(nationalPrefixForParsing_);
+        compiledNationalPrefixForParsing_ = compiled;
+      }
+      return compiled;
+    }
 
     // optional string national_prefix_transform_rule = 16;
     private boolean hasNationalPrefixTransformRule;
@@ -678,8 +817,107 @@ public final class Phonemetadata {
     public PhoneMetadata setLeadingDigits(String value) {
       hasLeadingDigits = true;
       leadingDigits_ = value;
+      compiledLeadingDigits_ = null;
       return this;
     }
+    // Compiled lazily on first use, and reset whenever the leading digits change.
+    private volatile Pattern compiledLeadingDigits_;
+    Pattern getCompiledLeadingDigits() {
+      Pattern compiled = compiledLeadingDigits_;
+      if (compiled == null) {
+        compiled = Pattern.compile(leadingDigits_);
+        compiledLeadingDigits_ = compiled;
+      }
+      return compiled;
+    }
+
+    // Compiled lazily on first use, and recompiled if the patterns of the number descriptions have
+    // changed since. Null if the patterns cannot be compiled into an automaton, in which case an
+    // unsupported placeholder is kept so that compiling is only attempted again once they change.
+    private volatile NumberTypeAutomaton numberTypeAutomaton_;
+    NumberTypeAutomaton getNumberTypeAutomaton() {
+      NumberTypeAutomaton automaton = numberTypeAutomaton_;
+      if (automaton == null || !automaton.isCompiledFrom(this)) {
+        automaton = NumberTypeAutomaton.compile(this);
+        if (automaton == null) {
+          automaton = NumberTypeAutomaton.unsupported(this);
+        }
+        numberTypeAutomaton_ = automaton;
+      }
+      return automaton.isSupported() ? automaton : null;
+    }
+
+    // Built lazily on first use, and rebuilt if the formats have changed since. Null if the formats
+    // cannot be indexed, in which case an unsupported placeholder is kept so that building is only
+    // attempted again once they change.
+    private volatile LeadingDigitsIndex numberFormatIndex_;
+    LeadingDigitsIndex getNumberFormatIndex() {
+      LeadingDigitsIndex index = numberFormatIndex_;
+      if (index == null || !index.isBuiltFrom(numberFormat_)) {
+        index = LeadingDigitsIndex.build(numberFormat_);
+        if (index == null) {
+          index = LeadingDigitsIndex.unsupported(numberFormat_);
+        }
+        numberFormatIndex_ = index;
+      }
+      return index.isSupported() ? index : null;
+    }
+
+    // As numberFormatIndex_, for the international formats.
+    private volatile LeadingDigitsIndex intlNumberFormatIndex_;
+    LeadingDigitsIndex getIntlNumberFormatIndex() {
+      LeadingDigitsIndex index = intlNumberFormatIndex_;
+      if (index == null || !index.isBuiltFrom(intlNumberFormat_)) {
+        index = LeadingDigitsIndex.build(intlNumberFormat_);
+        if (index == null) {
+          index = LeadingDigitsIndex.unsupported(intlNumberFormat_);
+        }
+        intlNumberFormatIndex_ = index;
+      }
+      return index.isSupported() ? index : null;
+    }
+
+    // Compiled lazily on first use from the cost descriptions of short number metadata, and
+    // recompiled if their patterns have changed since. Null if the patterns cannot be compiled into
+    // an index, in which case an unsupported placeholder is kept so that compiling is only
+    // attempted again once they change.
+    private volatile ShortNumberCostIndex shortNumberCostIndex_;
+    ShortNumberCostIndex getShortNumberCostIndex() {
+      ShortNumberCostIndex index = shortNumberCostIndex_;
+      if (index == null || !index.isCompiledFrom(this)) {
+        index = ShortNumberCostIndex.compile(this);
+        if (index == null) {
+          index = ShortNumberCostIndex.unsupported(this);
+        }
+        shortNumberCostIndex_ = index;
+      }
+      return index.isSupported() ? index : null;
+    }
+
+    // Compiles all the patterns of this metadata now rather than on first use.
+    void compilePatterns() {
+      PhoneNumberDesc[] descs = {generalDesc_, fixedLine_, mobile_, tollFree_, premiumRate_,
+          sharedCost_, personalNumber_, voip_, pager_, uan_, emergency_, voicemail_, shortCode_,
+          standardRate_, noInternationalDialling_};
+      for (PhoneNumberDesc desc : descs) {
+        if (desc != null) {
+          desc.getCompiledNationalNumberPattern();
+          desc.getCompiledPossibleNumberPattern();
+        }
+      }
+      for (NumberFormat format : numberFormat_) {
+        format.compilePatterns();
+      }
+      for (NumberFormat format : intlNumberFormat_) {
+        format.compilePatterns();
+      }
+      getCompiledInternationalPrefix();
+      getCompiledNationalPrefixForParsing();
+      getCompiledLeadingDigits();
+      getNumberTypeAutomaton();
+      getNumberFormatIndex();
+      getIntlNumberFormatIndex();
+    }
 
     // optional bool leading_zero_possible = 26 [default = false];
     private boolean hasLeadingZeroPossible;
@@ -47,11 +47,13 @@ public final class Phonenumber {
     public PhoneNumber setCountryCode(int value) {
       hasCountryCode = true;
       countryCode_ = value;
+      cachedE164_ = null;
       return this;
     }
     public PhoneNumber clearCountryCode() {
       hasCountryCode = false;
       countryCode_ = 0;
+      cachedE164_ = null;
       return this;
     }
 
@@ -63,11 +65,13 @@ public final class Phonenumber {
     public PhoneNumber setNationalNumber(long value) {
       hasNationalNumber = true;
       nationalNumber_ = value;
+      cachedE164_ = null;
       return this;
     }
     public PhoneNumber clearNationalNumber() {
       hasNationalNumber = false;
       nationalNumber_ = 0L;
+      cachedE164_ = null;
       return this;
     }
 
@@ -98,11 +102,13 @@ public final class Phonenumber {
     public PhoneNumber setItalianLeadingZero(boolean value) {
       hasItalianLeadingZero = true;
       italianLeadingZero_ = value;
+      cachedE164_ = null;
       return this;
     }
     public PhoneNumber clearItalianLeadingZero() {
       hasItalianLeadingZero = false;
       italianLeadingZero_ = false;
+      cachedE164_ = null;
       return this;
     }
 
@@ -117,11 +123,13 @@ public final class Phonenumber {
       }
       hasRawInput = true;
       rawInput_ = value;
+      cachedE164_ = null;
       return this;
     }
     public PhoneNumber clearRawInput() {
       hasRawInput = false;
       rawInput_ = "";
+      cachedE164_ = null;
       return this;
     }
 
@@ -163,6 +171,12 @@ public final class Phonenumber {
       return this;
     }
 
+    // The number in E164 format, kept by PhoneNumberUtil#formatE164 and dropped whenever a field it
+    // depends on changes. It is not part of the number, so it is neither compared nor serialized.
+    private transient String cachedE164_ = null;
+    String getCachedE164() { return cachedE164_; }
+    void setCachedE164(String value) { cachedE164_ = value; }
+
     public final PhoneNumber clear() {
       clearCountryCode();
       clearNationalNumber();
@@ -18,18 +18,43 @@ package com.google.i18n.phonenumbers;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 
 /**
- * LRU Cache for compiled regular expressions used by the libphonenumbers libary.
+ * Cache for compiled regular expressions used by the libphonenumbers libary.
+ *
+ * <p>Two eviction policies are available. {@link EvictionPolicy#LRU} guards an access-ordered map
+ * with a single lock, which keeps memory usage low and suits single-threaded clients such as
+ * Android. {@link EvictionPolicy#CLOCK} uses a concurrent map and the CLOCK (second chance)
+ * approximation of LRU, so that cache hits take no locks at all; only misses, which compile a new
+ * pattern anyway, take a lock to pick a victim. This suits servers where many threads validate or
+ * format numbers at the same time. Both use {@link ReentrantLock}s rather than monitors, which
+ * virtual threads can wait for without pinning their carrier threads.
  *
  * @author Shaopeng Jia
  */
 public class RegexCache {
-  private LRUCache<String, Pattern> cache;
+  /**
+   * The eviction policy used once the cache is full.
+   */
+  public enum EvictionPolicy {
+    /** Evicts the least recently used pattern. Every lookup takes a lock. */
+    LRU,
+    /** Evicts a pattern not used since the clock hand last passed it. Lookups take no locks. */
+    CLOCK
+  }
+
+  private final Cache<String, Pattern> cache;
 
   public RegexCache(int size) {
-    cache = new LRUCache<String, Pattern>(size);
+    this(size, EvictionPolicy.LRU);
+  }
+
+  public RegexCache(int size, EvictionPolicy evictionPolicy) {
+    cache = (evictionPolicy == EvictionPolicy.CLOCK)
+        ? new ClockCache<String, Pattern>(size)
+        : new LRUCache<String, Pattern>(size);
   }
 
   public Pattern getPatternForRegex(String regex) {
@@ -41,15 +66,51 @@ public class RegexCache {
     return pattern;
   }
 
+  /**
+   * Returns the number of lookups that found an already compiled pattern.
+   */
+  public long getHitCount() {
+    return cache.hitCount();
+  }
+
+  /**
+   * Returns the number of lookups that had to compile the pattern.
+   */
+  public long getMissCount() {
+    return cache.missCount();
+  }
+
+  /**
+   * Returns the number of patterns removed from the cache to make room for new ones.
+   */
+  public long getEvictionCount() {
+    return cache.evictionCount();
+  }
+
   // This method is used for testing.
   boolean containsRegex(String regex) {
     return cache.containsKey(regex);
   }
 
-  private static class LRUCache<K, V> {
+  // The operations both eviction policies provide.
+  interface Cache<K, V> {
+    V get(K key);
+    void put(K key, V value);
+    boolean containsKey(K key);
+    long hitCount();
+    long missCount();
+    long evictionCount();
+  }
+
+  private static class LRUCache<K, V> implements Cache<K, V> {
     // LinkedHashMap offers a straightforward implementation of LRU cache.
     private LinkedHashMap<K, V> map;
     private int size;
+    // The map and the counters are guarded by lock.
+    private final ReentrantLock lock = new ReentrantLock();
+    private long hits;
+    private long misses;
+    private long evictions;
 
     @SuppressWarnings("serial")
     public LRUCache(int size) {
@@ -57,22 +118,73 @@ public class RegexCache {
       map = new LinkedHashMap<K, V>(size * 4 / 3 + 1, 0.75f, true) {
         @Override
         protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-          return size() > LRUCache.this.size;
+          if (size() > LRUCache.this.size) {
+            evictions++;
+            return true;
+          }
+          return false;
         }
       };
     }
 
-    public synchronized V get(K key) {
-      return map.get(key);
+    public V get(K key) {
+      lock.lock();
+      try {
+        V value = map.get(key);
+        if (value == null) {
+          misses++;
+        } else {
+          hits++;
+        }
+        return value;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void put(K key, V value) {
+      lock.lock();
+      try {
+        map.put(key, value);
+      } finally {
+        lock.unlock();
+      }
     }
 
-    public synchronized void put(K key, V value) {
-      map.put(key, value);
+    public boolean containsKey(K key) {
+      lock.lock();
+      try {
+        return map.containsKey(key);
+      } finally {
+        lock.unlock();
+      }
     }
 
-    public synchronized boolean containsKey(K key) {
-      return map.containsKey(key);
+    public long hitCount() {
+      lock.lock();
+      try {
+        return hits;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public long missCount() {
+      lock.lock();
+      try {
+        return misses;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public long evictionCount() {
+      lock.lock();
+      try {
+        return evictions;
+      } finally {
+        lock.unlock();
+      }
     }
   }
 }
-
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
+
+/**
+ * An index over the regions that share a country calling code, such as the NANPA regions, which
+ * narrows down the regions a national significant number can belong to in one pass over its
+ * digits. Each region is matched by its leading digits if its metadata has them, which identifies
+ * the region for certain, or else by the national-number pattern of its general description, which
+ * every valid number of the region matches and few numbers of the other regions do. Only the
+ * regions left as candidates then need to be validated in full.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class RegionCodeForNumberIndex {
+  // The number of regions that can be indexed.
+  static final int MAX_REGIONS = DigitAutomaton.MAX_PATTERNS;
+
+  // The metadata of the regions, in the order of the region codes the index was built for.
+  private final PhoneMetadata[] metadata;
+  // The patterns of the regions, which region i is matched by as pattern i of the automaton.
+  private final String[] sourcePatterns;
+  // Null if the patterns cannot be compiled, in which case all regions are candidates and the
+  // leading digits are matched with regular expressions.
+  private final DigitAutomaton automaton;
+  // The regions matched by their leading digits, which the automaton matches against a prefix.
+  private final long leadingDigitsRegions;
+
+  private RegionCodeForNumberIndex(PhoneMetadata[] metadata, String[] sourcePatterns,
+                                   DigitAutomaton automaton, long leadingDigitsRegions) {
+    this.metadata = metadata;
+    this.sourcePatterns = sourcePatterns;
+    this.automaton = automaton;
+    this.leadingDigitsRegions = leadingDigitsRegions;
+  }
+
+  /**
+   * Builds an index over the regions with the given metadata, which must number at most
+   * {@link #MAX_REGIONS}.
+   */
+  static RegionCodeForNumberIndex build(PhoneMetadata[] metadata) {
+    if (metadata.length > MAX_REGIONS) {
+      throw new IllegalArgumentException("Too many regions to index: " + metadata.length);
+    }
+    String[] patterns = new String[metadata.length];
+    long leadingDigitsRegions = 0L;
+    for (int i = 0; i < metadata.length; i++) {
+      patterns[i] = getSourcePattern(metadata[i]);
+      if (metadata[i].hasLeadingDigits()) {
+        leadingDigitsRegions |= 1L << i;
+      }
+    }
+    return new RegionCodeForNumberIndex(metadata.clone(), patterns,
+                                        DigitAutomaton.compile(patterns), leadingDigitsRegions);
+  }
+
+  private static String getSourcePattern(PhoneMetadata metadata) {
+    if (metadata.hasLeadingDigits()) {
+      return metadata.getLeadingDigits();
+    }
+    // Without a national-number pattern no number is valid for the region, and the null pattern
+    // matches nothing.
+    PhoneNumberDesc generalDesc = metadata.getGeneralDesc();
+    return generalDesc.hasNationalNumberPattern() ? generalDesc.getNationalNumberPattern() : null;
+  }
+
+  /**
+   * Returns true if this index was built from the current patterns of its regions. The patterns
+   * are compared by identity, which is enough since metadata is not normally changed after it has
+   * been loaded.
+   */
+  boolean isUpToDate() {
+    for (int i = 0; i < metadata.length; i++) {
+      if (getSourcePattern(metadata[i]) != sourcePatterns[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the regions that {@code nationalNumber} can belong to, as a mask of their indices.
+   * Regions whose leading digits match are certain to be correct, see
+   * {@link #isIdentifiedByLeadingDigits}; other candidates still have to be validated.
+   */
+  long getCandidateRegions(String nationalNumber) {
+    if (automaton != null) {
+      return automaton.match(nationalNumber, leadingDigitsRegions);
+    }
+    long candidates = 0L;
+    for (int i = 0; i < metadata.length; i++) {
+      if (!metadata[i].hasLeadingDigits() ||
+          metadata[i].getCompiledLeadingDigits().matcher(nationalNumber).lookingAt()) {
+        candidates |= 1L << i;
+      }
+    }
+    return candidates;
+  }
+
+  boolean isIdentifiedByLeadingDigits(int regionIndex) {
+    return (leadingDigitsRegions & (1L << regionIndex)) != 0L;
+  }
+
+  PhoneMetadata getMetadata(int regionIndex) {
+    return metadata[regionIndex];
+  }
+}
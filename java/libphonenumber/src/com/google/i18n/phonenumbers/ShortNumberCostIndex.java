@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
+import com.google.i18n.phonenumbers.ShortNumberUtil.ShortNumberCost;
+
+/**
+ * A deterministic automaton over digits that matches a short number against the possible-number
+ * and national-number patterns of the toll-free, standard-rate and premium-rate descriptions of the
+ * short number metadata of a region at once, so that its cost is found in one pass over its digits.
+ *
+ * <p>{@link #compile} returns null for metadata whose patterns {@link DigitAutomaton} does not
+ * support, and the costs of short numbers of such regions are found with regular expressions.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class ShortNumberCostIndex {
+  // The bit positions of the cost descriptions in the masks matched, in the order in which their
+  // precedence is applied.
+  private static final int PREMIUM_RATE = 0;
+  private static final int STANDARD_RATE = 1;
+  private static final int TOLL_FREE = 2;
+  private static final int DESC_COUNT = 3;
+  private static final int ALL_DESCS = (1 << DESC_COUNT) - 1;
+
+  // Matches the possible-number pattern of description i as pattern i, and its national-number
+  // pattern as pattern DESC_COUNT + i. Null if the patterns are not supported.
+  private final DigitAutomaton automaton;
+  // The patterns the automaton was compiled from, to detect if the metadata has changed since.
+  private final String[] sourcePatterns;
+
+  private ShortNumberCostIndex(DigitAutomaton automaton, String[] sourcePatterns) {
+    this.automaton = automaton;
+    this.sourcePatterns = sourcePatterns;
+  }
+
+  /**
+   * Returns the cost descriptions of {@code metadata}, indexed by their bit positions.
+   */
+  private static PhoneNumberDesc[] getDescs(PhoneMetadata metadata) {
+    return new PhoneNumberDesc[] {
+        metadata.getPremiumRate(), metadata.getStandardRate(), metadata.getTollFree()};
+  }
+
+  private static String[] getSourcePatterns(PhoneMetadata metadata) {
+    PhoneNumberDesc[] descs = getDescs(metadata);
+    String[] patterns = new String[2 * DESC_COUNT];
+    for (int i = 0; i < DESC_COUNT; i++) {
+      if (descs[i] != null) {
+        patterns[i] = descs[i].getPossibleNumberPattern();
+        patterns[DESC_COUNT + i] = descs[i].getNationalNumberPattern();
+      }
+    }
+    return patterns;
+  }
+
+  /**
+   * Compiles the cost descriptions of the short number metadata {@code metadata} into an index, or
+   * returns null if one of their patterns is not supported.
+   */
+  static ShortNumberCostIndex compile(PhoneMetadata metadata) {
+    String[] patterns = getSourcePatterns(metadata);
+    // A missing description has null patterns, which match nothing.
+    DigitAutomaton automaton = DigitAutomaton.compile(patterns);
+    return automaton == null ? null : new ShortNumberCostIndex(automaton, patterns);
+  }
+
+  /**
+   * Returns a placeholder for metadata that {@link #compile} returned null for, as
+   * {@link NumberTypeAutomaton#unsupported} does.
+   */
+  static ShortNumberCostIndex unsupported(PhoneMetadata metadata) {
+    return new ShortNumberCostIndex(null, getSourcePatterns(metadata));
+  }
+
+  /**
+   * Returns false if this is a placeholder returned by {@link #unsupported}.
+   */
+  boolean isSupported() {
+    return automaton != null;
+  }
+
+  /**
+   * Returns true if this index was compiled from the current patterns of {@code metadata}. The
+   * patterns are compared by identity, as in {@link NumberTypeAutomaton#isCompiledFrom}.
+   */
+  boolean isCompiledFrom(PhoneMetadata metadata) {
+    PhoneNumberDesc[] descs = getDescs(metadata);
+    for (int i = 0; i < DESC_COUNT; i++) {
+      boolean sameDesc = descs[i] == null
+          ? sourcePatterns[i] == null
+          : descs[i].getPossibleNumberPattern() == sourcePatterns[i] &&
+              descs[i].getNationalNumberPattern() == sourcePatterns[DESC_COUNT + i];
+      if (!sameDesc) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the expected cost of {@code shortNumber}, a string of digits, with the same precedence
+   * between overlapping descriptions as {@link ShortNumberUtil#getExpectedCost}.
+   */
+  ShortNumberCost getExpectedCost(CharSequence shortNumber) {
+    long patterns = automaton.match(shortNumber);
+    int descs = (int) (patterns & (patterns >>> DESC_COUNT)) & ALL_DESCS;
+    if ((descs & (1 << PREMIUM_RATE)) != 0) {
+      return ShortNumberCost.PREMIUM_RATE;
+    }
+    if ((descs & (1 << STANDARD_RATE)) != 0) {
+      return ShortNumberCost.STANDARD_RATE;
+    }
+    if ((descs & (1 << TOLL_FREE)) != 0) {
+      return ShortNumberCost.TOLL_FREE;
+    }
+    return ShortNumberCost.UNKNOWN_COST;
+  }
+}
@@ -19,7 +19,9 @@ package com.google.i18n.phonenumbers;
 import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
 import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -121,6 +123,78 @@ public class ShortNumberUtil {
     }
   }
 
+  /**
+   * Gets the expected cost category of a short number dialed from a region. The cost categories
+   * are matched in order of decreasing expense, so that if the patterns of several of them match,
+   * the most expensive one is returned. Short numbers that match none of them, and all short
+   * numbers of regions without short number metadata, are of UNKNOWN_COST.
+   *
+   * @param shortNumber  the short number, as a string of digits without formatting
+   * @param regionDialingFrom  the region from which the number is dialed
+   * @return  the expected cost category of the short number
+   */
+  public ShortNumberCost getExpectedCost(String shortNumber, String regionDialingFrom) {
+    PhoneMetadata phoneMetadata =
+        MetadataManager.getShortNumberMetadataForRegion(regionDialingFrom);
+    if (phoneMetadata == null) {
+      return ShortNumberCost.UNKNOWN_COST;
+    }
+    return getExpectedCost(shortNumber, phoneMetadata, phoneMetadata.getShortNumberCostIndex());
+  }
+
+  /**
+   * Gets the expected cost categories of many short numbers dialed from the same region, as
+   * {@link #getExpectedCost} does, but looking up the metadata of the region only once.
+   *
+   * @param shortNumbers  the short numbers, as strings of digits without formatting
+   * @param regionDialingFrom  the region from which the numbers are dialed
+   * @return  the expected cost categories of the short numbers, in the same order
+   */
+  public ShortNumberCost[] getExpectedCosts(String[] shortNumbers, String regionDialingFrom) {
+    ShortNumberCost[] costs = new ShortNumberCost[shortNumbers.length];
+    PhoneMetadata phoneMetadata =
+        MetadataManager.getShortNumberMetadataForRegion(regionDialingFrom);
+    if (phoneMetadata == null) {
+      Arrays.fill(costs, ShortNumberCost.UNKNOWN_COST);
+      return costs;
+    }
+    ShortNumberCostIndex index = phoneMetadata.getShortNumberCostIndex();
+    for (int i = 0; i < shortNumbers.length; i++) {
+      costs[i] = getExpectedCost(shortNumbers[i], phoneMetadata, index);
+    }
+    return costs;
+  }
+
+  /**
+   * Same as {@link #getExpectedCosts(String[], String)}, but takes the short numbers as a list.
+   */
+  public ShortNumberCost[] getExpectedCosts(List<String> shortNumbers, String regionDialingFrom) {
+    return getExpectedCosts(shortNumbers.toArray(new String[shortNumbers.size()]),
+                            regionDialingFrom);
+  }
+
+  // Uses the cost index of the metadata, or regular expressions if there is none.
+  private ShortNumberCost getExpectedCost(String shortNumber, PhoneMetadata phoneMetadata,
+                                          ShortNumberCostIndex index) {
+    if (index != null) {
+      return index.getExpectedCost(shortNumber);
+    }
+    if (matchesDesc(shortNumber, phoneMetadata.getPremiumRate())) {
+      return ShortNumberCost.PREMIUM_RATE;
+    }
+    if (matchesDesc(shortNumber, phoneMetadata.getStandardRate())) {
+      return ShortNumberCost.STANDARD_RATE;
+    }
+    if (matchesDesc(shortNumber, phoneMetadata.getTollFree())) {
+      return ShortNumberCost.TOLL_FREE;
+    }
+    return ShortNumberCost.UNKNOWN_COST;
+  }
+
+  private boolean matchesDesc(String shortNumber, PhoneNumberDesc desc) {
+    return desc != null && phoneUtil.isNumberMatchingDesc(shortNumber, desc);
+  }
+
   /**
    * Returns true if the number might be used to connect to an emergency service in the given
    * region.
@@ -152,8 +226,10 @@ public class ShortNumberUtil {
 
   private boolean matchesEmergencyNumberHelper(String number, String regionCode,
       boolean allowPrefixMatch) {
-    number = PhoneNumberUtil.extractPossibleNumber(number);
-    if (PhoneNumberUtil.PLUS_CHARS_PATTERN.matcher(number).lookingAt()) {
+    // This works on the number in place, as extractPossibleNumber and normalizeDigitsOnly would
+    // leave it, so that it is quick and creates no objects, as dialers check every call made.
+    int start = findPossibleNumberStart(number);
+    if (start < number.length() && PhoneNumberUtil.PLUS_CHARS.indexOf(number.charAt(start)) >= 0) {
       // Returns false if the number starts with a plus sign. We don't believe dialing the country
       // code before emergency numbers (e.g. +1911) works, but later, if that proves to work, we can
       // add additional logic here to handle it.
@@ -163,12 +239,56 @@ public class ShortNumberUtil {
     if (metadata == null || !metadata.hasEmergency()) {
       return false;
     }
-    Pattern emergencyNumberPattern =
-        Pattern.compile(metadata.getEmergency().getNationalNumberPattern());
-    String normalizedNumber = PhoneNumberUtil.normalizeDigitsOnly(number);
+    int end = findSecondNumberStart(number, start);
     // In Brazil, emergency numbers don't work when additional digits are appended.
-    return (!allowPrefixMatch || regionCode.equals("BR"))
-        ? emergencyNumberPattern.matcher(normalizedNumber).matches()
-        : emergencyNumberPattern.matcher(normalizedNumber).lookingAt();
+    boolean prefixMatch = allowPrefixMatch && !regionCode.equals("BR");
+    DigitAutomaton emergencyNumberAutomaton = metadata.getEmergency().getNationalNumberAutomaton();
+    if (emergencyNumberAutomaton != null) {
+      return emergencyNumberAutomaton.matchDigitsOf(number, start, end, prefixMatch ? 1L : 0L) != 0;
+    }
+    Pattern emergencyNumberPattern = metadata.getEmergency().getCompiledNationalNumberPattern();
+    String normalizedNumber = PhoneNumberUtil.normalizeDigitsOnly(number.substring(start, end));
+    return prefixMatch
+        ? emergencyNumberPattern.matcher(normalizedNumber).lookingAt()
+        : emergencyNumberPattern.matcher(normalizedNumber).matches();
+  }
+
+  /**
+   * Returns the index of the first plus sign or digit in {@code number}, where
+   * {@link PhoneNumberUtil#extractPossibleNumber} starts the number, or its length if there is
+   * none.
+   */
+  private static int findPossibleNumberStart(String number) {
+    for (int i = 0; i < number.length(); i++) {
+      char c = number.charAt(i);
+      if (PhoneNumberUtil.PLUS_CHARS.indexOf(c) >= 0 || Character.isDigit(c)
+          || (Character.isHighSurrogate(c) && Character.isDigit(number.codePointAt(i)))) {
+        return i;
+      }
+    }
+    return number.length();
+  }
+
+  /**
+   * Returns the index in {@code number} from {@code start} where
+   * {@link PhoneNumberUtil.ParsingPatterns#SECOND_NUMBER_START_PATTERN} finds the start of a second
+   * number, which is where extractPossibleNumber ends the number, or its length if there is none.
+   * The trailing characters that extractPossibleNumber also removes are not digits, so they are
+   * left in.
+   */
+  private static int findSecondNumberStart(String number, int start) {
+    for (int i = start; i < number.length(); i++) {
+      char c = number.charAt(i);
+      if (c == '\\' || c == '/') {
+        int next = i + 1;
+        while (next < number.length() && number.charAt(next) == ' ') {
+          next++;
+        }
+        if (next < number.length() && number.charAt(next) == 'x') {
+          return i;
+        }
+      }
+    }
+    return number.length();
   }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.Phonemetadata.NumberFormat;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+/**
+ * What the checks of a {@link PhoneNumberUtil.Leniency} need to know about a candidate found in
+ * text and the number parsed from it. The checks, and the alternate formats that the grouping of
+ * the candidate is compared against, use the same values, so each is only worked out once, when it
+ * is first needed.
+ */
+final class VerificationContext {
+  private final PhoneNumberUtil util;
+  private final PhoneNumber number;
+  private final String candidate;
+
+  private String nationalSignificantNumber = null;
+  private String regionCode = null;
+  private boolean metadataLoaded = false;
+  private PhoneMetadata metadata = null;
+  private boolean nationalFormatChosen = false;
+  private NumberFormat nationalFormat = null;
+  private String[] nationalNumberGroups = null;
+  private StringBuilder normalizedCandidate = null;
+  private String[] candidateGroups = null;
+
+  VerificationContext(PhoneNumberUtil util, PhoneNumber number, String candidate) {
+    this.util = util;
+    this.number = number;
+    this.candidate = candidate;
+  }
+
+  PhoneNumberUtil getUtil() {
+    return util;
+  }
+
+  PhoneNumber getNumber() {
+    return number;
+  }
+
+  String getCandidate() {
+    return candidate;
+  }
+
+  String getNationalSignificantNumber() {
+    if (nationalSignificantNumber == null) {
+      nationalSignificantNumber = util.getNationalSignificantNumber(number);
+    }
+    return nationalSignificantNumber;
+  }
+
+  /**
+   * Returns the region code of the country calling code of the number, which is the region whose
+   * metadata holds the formats of all the regions that share it.
+   */
+  String getRegionCode() {
+    if (regionCode == null) {
+      regionCode = util.getRegionCodeForCountryCode(number.getCountryCode());
+    }
+    return regionCode;
+  }
+
+  /**
+   * Returns the metadata of {@link #getRegionCode}, or null if the country calling code of the
+   * number is not valid.
+   */
+  PhoneMetadata getMetadata() {
+    if (!metadataLoaded) {
+      metadata = util.getMetadataForRegionOrCallingCode(number.getCountryCode(), getRegionCode());
+      metadataLoaded = true;
+    }
+    return metadata;
+  }
+
+  /**
+   * Returns the format that the number is written in when it is formatted nationally, or null if
+   * there is none. Must only be called when {@link #getMetadata} is not null.
+   */
+  NumberFormat getNationalFormat() {
+    if (!nationalFormatChosen) {
+      nationalFormat = util.chooseFormattingPatternForNumber(
+          getMetadata(), false, getNationalSignificantNumber());
+      nationalFormatChosen = true;
+    }
+    return nationalFormat;
+  }
+
+  /**
+   * Returns the national-number part of the number, formatted without any national prefix, as the
+   * blocks of digits that would be formatted together.
+   */
+  String[] getNationalNumberGroups() {
+    if (nationalNumberGroups == null) {
+      PhoneMetadata metadata = getMetadata();
+      if (metadata == null || (number.getNationalNumber() == 0 && number.hasRawInput())) {
+        // Left to format(), which has special cases for these numbers.
+        nationalNumberGroups = splitRfc3966Format(util.format(number, PhoneNumberFormat.RFC3966));
+      } else {
+        // This is the national significant number as format() writes it in RFC3966 format, the
+        // international formats being used when there are any.
+        NumberFormat formattingPattern = metadata.intlNumberFormatSize() != 0
+            ? util.chooseFormattingPatternForNumber(metadata, true, getNationalSignificantNumber())
+            : getNationalFormat();
+        String nationalNumber = getNationalSignificantNumber();
+        nationalNumberGroups = (formattingPattern == null)
+            ? new String[] {nationalNumber}
+            : util.formatNsnUsingPattern(nationalNumber, formattingPattern,
+                                         PhoneNumberFormat.RFC3966).split("-");
+      }
+    }
+    return nationalNumberGroups;
+  }
+
+  /**
+   * Returns the national significant number formatted with {@code alternateFormat} in RFC3966
+   * format, as the blocks of digits that would be formatted together.
+   */
+  String[] getNationalNumberGroups(NumberFormat alternateFormat) {
+    return util.formatNsnUsingPattern(getNationalSignificantNumber(), alternateFormat,
+                                      PhoneNumberFormat.RFC3966).split("-");
+  }
+
+  // The number will be in the format +CC-DG;ext=EXT where DG represents groups of digits.
+  private static String[] splitRfc3966Format(String rfc3966Format) {
+    // We remove the extension part from the formatted string before splitting it into different
+    // groups.
+    int endIndex = rfc3966Format.indexOf(';');
+    if (endIndex < 0) {
+      endIndex = rfc3966Format.length();
+    }
+    // The country-code will have a '-' following it.
+    int startIndex = rfc3966Format.indexOf('-') + 1;
+    return rfc3966Format.substring(startIndex, endIndex).split("-");
+  }
+
+  /**
+   * Returns the candidate, normalized to only contain ASCII digits, but with non-digits (spaces
+   * etc) retained. Callers must not modify it.
+   */
+  StringBuilder getNormalizedCandidate() {
+    if (normalizedCandidate == null) {
+      normalizedCandidate = PhoneNumberUtil.normalizeDigits(candidate, true /* keep non-digits */);
+    }
+    return normalizedCandidate;
+  }
+
+  /** Returns the groups of digits of the candidate. Callers must not modify it. */
+  String[] getCandidateGroups() {
+    if (candidateGroups == null) {
+      candidateGroups = PhoneNumberUtil.NON_DIGITS_PATTERN.split(getNormalizedCandidate());
+    }
+    return candidateGroups;
+  }
+}
@@ -724,6 +724,36 @@ public class AsYouTypeFormatterTest extends TestMetadataTestCase {
     assertEquals("+800123456789", formatter.inputDigit('9'));
   }
 
+  public void testAYTFWithSharedClockRegexCache() {
+    RegexCache regexCache = new RegexCache(64, RegexCache.EvictionPolicy.CLOCK);
+    AsYouTypeFormatter formatter = phoneUtil.getAsYouTypeFormatter(RegionCode.US, regexCache);
+    // +800 1234 5678
+    assertEquals("+", formatter.inputDigit('+'));
+    assertEquals("+8", formatter.inputDigit('8'));
+    assertEquals("+80", formatter.inputDigit('0'));
+    assertEquals("+800 ", formatter.inputDigit('0'));
+    assertEquals("+800 1", formatter.inputDigit('1'));
+    assertEquals("+800 12", formatter.inputDigit('2'));
+    assertEquals("+800 123", formatter.inputDigit('3'));
+    assertEquals("+800 1234", formatter.inputDigit('4'));
+    long missCount = regexCache.getMissCount();
+    assertTrue(missCount > 0);
+
+    // A second formatter sharing the cache finds the patterns already compiled.
+    AsYouTypeFormatter secondFormatter =
+        phoneUtil.getAsYouTypeFormatter(RegionCode.US, regexCache);
+    assertEquals("+", secondFormatter.inputDigit('+'));
+    assertEquals("+8", secondFormatter.inputDigit('8'));
+    assertEquals("+80", secondFormatter.inputDigit('0'));
+    assertEquals("+800 ", secondFormatter.inputDigit('0'));
+    assertEquals("+800 1", secondFormatter.inputDigit('1'));
+    assertEquals("+800 12", secondFormatter.inputDigit('2'));
+    assertEquals("+800 123", secondFormatter.inputDigit('3'));
+    assertEquals("+800 1234", secondFormatter.inputDigit('4'));
+    assertEquals(missCount, regexCache.getMissCount());
+    assertTrue(regexCache.getHitCount() > 0);
+  }
+
   public void testAYTFMultipleLeadingDigitPatterns() {
     // +81 50 2345 6789
     AsYouTypeFormatter formatter = phoneUtil.getAsYouTypeFormatter(RegionCode.JP);
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for ClassificationCache.java and its use by PhoneNumberUtil.
+ */
+public class ClassificationCacheTest extends TestCase {
+  private static final PhoneNumber US_NUMBER =
+      new PhoneNumber().setCountryCode(1).setNationalNumber(6502530000L);
+  private static final PhoneNumber BS_NUMBER =
+      new PhoneNumber().setCountryCode(1).setNationalNumber(2423570000L);
+  private static final PhoneNumber IT_NUMBER =
+      new PhoneNumber().setCountryCode(39).setNationalNumber(236618300L)
+          .setItalianLeadingZero(true);
+  private static final PhoneNumber INVALID_NUMBER =
+      new PhoneNumber().setCountryCode(2).setNationalNumber(12345L);
+
+  private final ClassificationCache cache = new ClassificationCache(2);
+  private final PhoneNumberUtil phoneUtil =
+      PhoneNumberUtil.newBuilder().setClassificationCache(cache).build();
+  private final PhoneNumberUtil uncachedPhoneUtil = PhoneNumberUtil.newBuilder().build();
+
+  public void testSameResultsAsWithoutCache() {
+    PhoneNumber[] numbers = {US_NUMBER, BS_NUMBER, IT_NUMBER, INVALID_NUMBER};
+    // Look each number up twice, so that the second results come from the cache.
+    for (int i = 0; i < 2; i++) {
+      for (PhoneNumber number : numbers) {
+        assertEquals(uncachedPhoneUtil.getRegionCodeForNumber(number),
+                     phoneUtil.getRegionCodeForNumber(number));
+        assertEquals(uncachedPhoneUtil.getNumberType(number), phoneUtil.getNumberType(number));
+        assertEquals(uncachedPhoneUtil.isValidNumber(number), phoneUtil.isValidNumber(number));
+      }
+    }
+    assertEquals(PhoneNumberType.FIXED_LINE, phoneUtil.getNumberType(IT_NUMBER));
+    assertEquals("BS", phoneUtil.getRegionCodeForNumber(BS_NUMBER));
+  }
+
+  public void testCountsHitsAndMisses() {
+    assertEquals(0.0, cache.getHitRate());
+    phoneUtil.getRegionCodeForNumber(US_NUMBER);
+    phoneUtil.getNumberType(US_NUMBER);
+    // A different object for the same number is a hit as well.
+    phoneUtil.isValidNumber(new PhoneNumber().mergeFrom(US_NUMBER).setRawInput("650 253 0000"));
+    assertEquals(2, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+
+    // The leading zero is part of the key.
+    PhoneNumber withoutLeadingZero = new PhoneNumber().mergeFrom(IT_NUMBER)
+        .setItalianLeadingZero(false);
+    phoneUtil.isValidNumber(IT_NUMBER);
+    phoneUtil.isValidNumber(withoutLeadingZero);
+    assertEquals(3, cache.getMissCount());
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  public void testRejectsNullCache() {
+    try {
+      PhoneNumberUtil.newBuilder().setClassificationCache(null);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+}
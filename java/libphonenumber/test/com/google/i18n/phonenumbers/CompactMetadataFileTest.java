@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for CompactMetadataFile.java, and for PhoneNumberUtil instances that load their
+ * metadata from it.
+ */
+public class CompactMetadataFileTest extends TestMetadataTestCase {
+
+  // Writes the test metadata for all regions in the compact format.
+  private byte[] writeTestMetadata() throws IOException {
+    List<PhoneMetadata> metadataList = new ArrayList<PhoneMetadata>();
+    for (Map.Entry<Integer, List<String>> entry :
+         CountryCodeToRegionCodeMapForTesting.getCountryCodeToRegionCodeMap().entrySet()) {
+      for (String regionCode : entry.getValue()) {
+        metadataList.add(PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY.equals(regionCode)
+            ? phoneUtil.getMetadataForNonGeographicalRegion(entry.getKey())
+            : phoneUtil.getMetadataForRegion(regionCode));
+      }
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    CompactMetadataFile.write(metadataList, output);
+    return output.toByteArray();
+  }
+
+  public void testReadsIndexAndMetadata() throws IOException {
+    CompactMetadataFile file = new CompactMetadataFile(ByteBuffer.wrap(writeTestMetadata()));
+    assertEquals(CountryCodeToRegionCodeMapForTesting.getCountryCodeToRegionCodeMap(),
+                 file.getCountryCallingCodeToRegionCodeMap());
+    PhoneMetadata usMetadata = file.getMetadataForRegion(RegionCode.US);
+    assertEquals(RegionCode.US, usMetadata.getId());
+    assertEquals(1, usMetadata.getCountryCode());
+    assertEquals(phoneUtil.getMetadataForRegion(RegionCode.US).numberFormatSize(),
+                 usMetadata.numberFormatSize());
+    assertEquals(800, file.getMetadataForNonGeographicalRegion(800).getCountryCode());
+    assertNull(file.getMetadataForRegion(RegionCode.ZZ));
+    assertNull(file.getMetadataForNonGeographicalRegion(1));
+  }
+
+  public void testRejectsOtherFormats() throws IOException {
+    byte[] contents = writeTestMetadata();
+    contents[7] = (byte) (CompactMetadataFile.VERSION + 1);
+    try {
+      new CompactMetadataFile(ByteBuffer.wrap(contents));
+      fail("Expected an IOException for an unsupported version");
+    } catch (IOException e) {
+      // Expected.
+    }
+    try {
+      new CompactMetadataFile(ByteBuffer.wrap(new byte[] {0, 1, 2, 3}));
+      fail("Expected an IOException for a file that is too short");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  public void testCreateInstanceFromMappedFile() throws IOException {
+    File file = File.createTempFile("PhoneNumberMetadataForTesting", ".bin");
+    try {
+      FileOutputStream output = new FileOutputStream(file);
+      try {
+        output.write(writeTestMetadata());
+      } finally {
+        output.close();
+      }
+      assertSameBehaviour(PhoneNumberUtil.createInstance(file));
+    } finally {
+      file.delete();
+    }
+  }
+
+  public void testCreateInstanceFromStream() throws IOException {
+    assertSameBehaviour(
+        PhoneNumberUtil.createInstance(new ByteArrayInputStream(writeTestMetadata())));
+  }
+
+  private void assertSameBehaviour(PhoneNumberUtil compactPhoneUtil) {
+    assertEquals(phoneUtil.getSupportedRegions(), compactPhoneUtil.getSupportedRegions());
+    assertEquals(phoneUtil.getSupportedGlobalNetworkCallingCodes(),
+                 compactPhoneUtil.getSupportedGlobalNetworkCallingCodes());
+    String[][] numbers = {{"033316005", RegionCode.NZ}, {"+1 650 253 0000", RegionCode.US},
+                          {"+800 1234 5678", RegionCode.ZZ},
+                          {"011 54 9 11 8765 4321", RegionCode.US},
+                          {"02 3661 8300", RegionCode.IT}, {"+1 242 357 1234", RegionCode.US}};
+    for (String[] number : numbers) {
+      ParseResult expected = phoneUtil.tryParse(number[0], number[1]);
+      ParseResult actual = compactPhoneUtil.tryParse(number[0], number[1]);
+      assertEquals(expected.getPhoneNumber(), actual.getPhoneNumber());
+      PhoneNumber phoneNumber = actual.getPhoneNumber();
+      assertEquals(phoneUtil.isValidNumber(phoneNumber),
+                   compactPhoneUtil.isValidNumber(phoneNumber));
+      assertEquals(phoneUtil.getRegionCodeForNumber(phoneNumber),
+                   compactPhoneUtil.getRegionCodeForNumber(phoneNumber));
+      for (PhoneNumberFormat format : PhoneNumberFormat.values()) {
+        assertEquals(phoneUtil.format(phoneNumber, format),
+                     compactPhoneUtil.format(phoneNumber, format));
+      }
+    }
+  }
+}
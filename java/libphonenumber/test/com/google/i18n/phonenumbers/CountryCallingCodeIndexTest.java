@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for CountryCallingCodeIndex.java
+ */
+public class CountryCallingCodeIndexTest extends TestCase {
+  private final CountryCallingCodeIndex index = new CountryCallingCodeIndex(
+      CountryCodeToRegionCodeMapForTesting.getCountryCodeToRegionCodeMap());
+
+  public void testLookUp() {
+    assertTrue(index.contains(1));
+    assertTrue(index.contains(800));
+    assertFalse(index.contains(2));
+    assertFalse(index.contains(0));
+    assertFalse(index.contains(-1));
+    assertFalse(index.contains(1000));
+    assertEquals(Arrays.asList(RegionCode.US, RegionCode.BS), index.getRegionCodes(1));
+    assertNull(index.getRegionCodes(2));
+    assertEquals(RegionCode.RE, index.getMainRegionCode(262));
+    assertEquals(PhoneNumberUtil.REGION_CODE_FOR_NON_GEO_ENTITY, index.getMainRegionCode(800));
+    assertNull(index.getMainRegionCode(999));
+  }
+
+  public void testFindCountryCallingCode() {
+    assertEquals(1, index.findCountryCallingCode("16502530000"));
+    assertEquals(44, index.findCountryCallingCode("442070313000"));
+    assertEquals(376, index.findCountryCallingCode("376123456"));
+    assertEquals(0, index.findCountryCallingCode("2221234567"));
+    assertEquals(0, index.findCountryCallingCode("37"));
+    assertEquals(0, index.findCountryCallingCode(""));
+    // The country calling code must be at the very start of the digits.
+    assertEquals(0, index.findCountryCallingCode("0116502530000"));
+    assertEquals(0, index.findCountryCallingCode("01"));
+  }
+
+  public void testIndexOfArraysMatchesIndexOfMap() {
+    CountryCallingCodeIndex indexOfArrays =
+        CountryCodeToRegionCodeMapForTesting.getCountryCallingCodeIndex();
+    Map<Integer, List<String>> map =
+        CountryCodeToRegionCodeMapForTesting.getCountryCodeToRegionCodeMap();
+    int[] countryCallingCodes = indexOfArrays.getCountryCallingCodes();
+    assertEquals(map.size(), countryCallingCodes.length);
+    for (int i = 0; i < countryCallingCodes.length; i++) {
+      if (i > 0) {
+        assertTrue(countryCallingCodes[i - 1] < countryCallingCodes[i]);
+      }
+      assertEquals(map.get(countryCallingCodes[i]),
+                   indexOfArrays.getRegionCodes(countryCallingCodes[i]));
+    }
+    assertEquals(Arrays.toString(index.getCountryCallingCodes()),
+                 Arrays.toString(countryCallingCodes));
+  }
+
+  public void testRegionCodesCannotBeModified() {
+    CountryCallingCodeIndex indexOfArrays = new CountryCallingCodeIndex(
+        new int[] {1, 44, 2}, new String[][] {{"US", "BS"}, {"GB"}, {}});
+    assertFalse(indexOfArrays.contains(2));
+    try {
+      indexOfArrays.getRegionCodes(1).set(0, "BS");
+      fail("The region codes should not be modifiable.");
+    } catch (UnsupportedOperationException e) { /* success */ }
+    assertEquals(RegionCode.US, indexOfArrays.getMainRegionCode(1));
+  }
+}
@@ -21,6 +21,7 @@
 package com.google.i18n.phonenumbers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,96 +31,47 @@ public class CountryCodeToRegionCodeMapForTesting {
   // country/region represented by that country code. In the case of multiple
   // countries sharing a calling code, such as the NANPA countries, the one
   // indicated with "isMainCountryForCode" in the metadata should be first.
+  private static final int[] COUNTRY_CALLING_CODES = {
+    1, 39, 44, 48, 49, 52, 54, 55, 61, 64, 65, 81, 82, 244, 262, 375, 376, 800, 971, 979
+  };
+
+  // The region codes for each entry of COUNTRY_CALLING_CODES.
+  private static final String[][] REGION_CODES = {
+    {"US", "BS"},
+    {"IT"},
+    {"GB"},
+    {"PL"},
+    {"DE"},
+    {"MX"},
+    {"AR"},
+    {"BR"},
+    {"AU"},
+    {"NZ"},
+    {"SG"},
+    {"JP"},
+    {"KR"},
+    {"AO"},
+    {"RE", "YT"},
+    {"BY"},
+    {"AD"},
+    {"001"},
+    {"AE"},
+    {"001"},
+  };
+
+  static CountryCallingCodeIndex getCountryCallingCodeIndex() {
+    return new CountryCallingCodeIndex(COUNTRY_CALLING_CODES, REGION_CODES);
+  }
+
   static Map<Integer, List<String>> getCountryCodeToRegionCodeMap() {
     // The capacity is set to 26 as there are 20 different entries,
     // and this offers a load factor of roughly 0.75.
     Map<Integer, List<String>> countryCodeToRegionCodeMap =
         new HashMap<Integer, List<String>>(26);
-
-    ArrayList<String> listWithRegionCode;
-
-    listWithRegionCode = new ArrayList<String>(2);
-    listWithRegionCode.add("US");
-    listWithRegionCode.add("BS");
-    countryCodeToRegionCodeMap.put(1, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("IT");
-    countryCodeToRegionCodeMap.put(39, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("GB");
-    countryCodeToRegionCodeMap.put(44, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("PL");
-    countryCodeToRegionCodeMap.put(48, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("DE");
-    countryCodeToRegionCodeMap.put(49, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("MX");
-    countryCodeToRegionCodeMap.put(52, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("AR");
-    countryCodeToRegionCodeMap.put(54, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("BR");
-    countryCodeToRegionCodeMap.put(55, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("AU");
-    countryCodeToRegionCodeMap.put(61, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("NZ");
-    countryCodeToRegionCodeMap.put(64, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("SG");
-    countryCodeToRegionCodeMap.put(65, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("JP");
-    countryCodeToRegionCodeMap.put(81, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("KR");
-    countryCodeToRegionCodeMap.put(82, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("AO");
-    countryCodeToRegionCodeMap.put(244, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(2);
-    listWithRegionCode.add("RE");
-    listWithRegionCode.add("YT");
-    countryCodeToRegionCodeMap.put(262, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("BY");
-    countryCodeToRegionCodeMap.put(375, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("AD");
-    countryCodeToRegionCodeMap.put(376, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("001");
-    countryCodeToRegionCodeMap.put(800, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("AE");
-    countryCodeToRegionCodeMap.put(971, listWithRegionCode);
-
-    listWithRegionCode = new ArrayList<String>(1);
-    listWithRegionCode.add("001");
-    countryCodeToRegionCodeMap.put(979, listWithRegionCode);
-
+    for (int i = 0; i < COUNTRY_CALLING_CODES.length; i++) {
+      countryCodeToRegionCodeMap.put(COUNTRY_CALLING_CODES[i],
+          new ArrayList<String>(Arrays.asList(REGION_CODES[i])));
+    }
     return countryCodeToRegionCodeMap;
   }
 }
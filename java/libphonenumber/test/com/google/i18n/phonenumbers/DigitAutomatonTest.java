@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import junit.framework.TestCase;
+
+import java.util.regex.Pattern;
+
+/**
+ * Unit tests for DigitAutomaton.java
+ */
+public class DigitAutomatonTest extends TestCase {
+
+  private static void assertMatchesLikeRegex(String pattern, String... inputs) {
+    DigitAutomaton automaton = DigitAutomaton.compile(new String[] {pattern});
+    assertNotNull("Expected " + pattern + " to be supported", automaton);
+    Pattern regex = Pattern.compile(pattern);
+    for (String input : inputs) {
+      assertEquals(pattern + " on " + input,
+                   regex.matcher(input).matches(), automaton.match(input) == 1L);
+      assertEquals(pattern + " on a prefix of " + input,
+                   regex.matcher(input).lookingAt(), automaton.match(input, 1L) == 1L);
+    }
+  }
+
+  public void testSupportedSyntax() {
+    assertMatchesLikeRegex("[2-9]\\d{2}", "200", "999", "123", "20", "2000");
+    assertMatchesLikeRegex("1(?:2|3[4-6])\\d?", "12", "125", "135", "1369", "137", "1");
+    assertMatchesLikeRegex("(?:1|23)+4*", "1", "123231", "14444", "234", "2", "");
+    assertMatchesLikeRegex("5\\d{2,}", "5", "51", "512", "5123456", "6123");
+    assertMatchesLikeRegex("6[0-35-7]{1,3}", "6", "60", "6333", "64", "65757", "67");
+    assertMatchesLikeRegex("7(?:0|1)??8", "78", "708", "718", "7008");
+    assertMatchesLikeRegex("(\\d{3})(\\d{4})", "1234567", "123456", "12345678", "123-4567");
+    // Stray closing brackets are literals, which never match a number.
+    assertMatchesLikeRegex("8(?:2|3-5]|4)", "82", "84", "83", "835");
+  }
+
+  public void testUnsupportedSyntax() {
+    assertNull(DigitAutomaton.compile(new String[] {"1(?=2)\\d"}));
+    assertNull(DigitAutomaton.compile(new String[] {"[^1]\\d"}));
+    assertNull(DigitAutomaton.compile(new String[] {"(1)\\1"}));
+    assertNull(DigitAutomaton.compile(new String[] {"1.2"}));
+    assertNull(DigitAutomaton.compile(new String[] {"\\d++"}));
+  }
+
+  public void testTooLargeAutomaton() {
+    // Nested counts multiply the size of the automaton, so they are rejected while it is built.
+    assertNull(DigitAutomaton.compile(new String[] {"(?:\\d{200}){200}"}));
+    assertNull(DigitAutomaton.compile(new String[] {"(?:(?:\\d{99}){99}){99}"}));
+    // Counts beyond what any metadata uses are not supported.
+    assertNull(DigitAutomaton.compile(new String[] {"(?:\\d{999}){999}"}));
+    assertNull(DigitAutomaton.compile(new String[] {"(?:\\d{9999}){9999}"}));
+    assertNull(DigitAutomaton.compile(new String[] {"\\d{257}"}));
+    assertNotNull(DigitAutomaton.compile(new String[] {"\\d{256}"}));
+  }
+
+  public void testMatchesSeveralPatternsAtOnce() {
+    DigitAutomaton automaton =
+        DigitAutomaton.compile(new String[] {"1\\d{3}", null, "12", "[12]\\d*"});
+    assertEquals(0x9L, automaton.match("1234"));
+    assertEquals(0xcL, automaton.match("12"));
+    assertEquals(0x0L, automaton.match("3"));
+    // Only pattern 2 is matched against prefixes.
+    assertEquals(0xdL, automaton.match("1234", 0x4L));
+    assertEquals(0x4L, automaton.match("12a", 0x4L));
+  }
+
+  public void testMatchDigitsOf() {
+    DigitAutomaton automaton = DigitAutomaton.compile(new String[] {"911|1(?:12|19)"});
+    assertEquals(1L, automaton.matchDigitsOf("(9-1-1)", 0, 7, 0L));
+    assertEquals(1L, automaton.matchDigitsOf("\uFF11\u0661 2", 0, 4, 0L));
+    assertEquals(0L, automaton.matchDigitsOf("9112", 0, 4, 0L));
+    assertEquals(1L, automaton.matchDigitsOf("9112", 0, 4, 1L));
+    // Only the characters from start to end are read.
+    assertEquals(1L, automaton.matchDigitsOf("11911/x2", 2, 5, 0L));
+    assertEquals(0L, automaton.matchDigitsOf("", 0, 0, 1L));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.NumberFormat;
+
+import junit.framework.TestCase;
+
+import java.util.regex.Matcher;
+
+/**
+ * Unit tests for FormattingTemplate.java
+ */
+public class FormattingTemplateTest extends TestCase {
+
+  private static String format(NumberFormat numberFormat, int kind, String nationalNumber,
+                               String carrierCode) {
+    FormattingTemplate template = numberFormat.getFormattingTemplate(kind);
+    if (template == null) {
+      return null;
+    }
+    Matcher matcher = numberFormat.getCompiledPattern().matcher(nationalNumber);
+    assertTrue(matcher.matches());
+    StringBuilder formatted = new StringBuilder();
+    return template.appendTo(matcher, nationalNumber, carrierCode, formatted)
+        ? formatted.toString() : null;
+  }
+
+  public void testSameAsReplaceAll() {
+    // With three groups, $12 is the first group followed by a 2.
+    String[] rules = {"$1 $2", "($1) $2-$3", "\\$1 $2\\\\", "$12", "$0"};
+    for (String rule : rules) {
+      NumberFormat numberFormat =
+          new NumberFormat().setPattern("(\\d)(\\d{3})(\\d)").setFormat(rule);
+      assertEquals(rule, "12345".replaceAll(numberFormat.getPattern(), rule),
+                   format(numberFormat, FormattingTemplate.PLAIN, "12345", null));
+    }
+    NumberFormat tenGroups = new NumberFormat()
+        .setPattern("(\\d)(\\d)(\\d)(\\d)(\\d)(\\d)(\\d)(\\d)(\\d)(\\d)")
+        .setFormat("$1$2$3$4$5$6$7$8$9 $10");
+    assertEquals("123456789 0", format(tenGroups, FormattingTemplate.PLAIN, "1234567890", null));
+  }
+
+  public void testSplicesRules() {
+    NumberFormat numberFormat = new NumberFormat().setPattern("(\\d{2})(\\d{4})(\\d{4})")
+        .setFormat("$1 $2-$3").setNationalPrefixFormattingRule("0$1")
+        .setDomesticCarrierCodeFormattingRule("0 $CC ($1)");
+    assertEquals("011 2345-6789",
+                 format(numberFormat, FormattingTemplate.WITH_NATIONAL_PREFIX, "1123456789", null));
+    assertEquals("0 15 (11) 2345-6789",
+                 format(numberFormat, FormattingTemplate.WITH_CARRIER_CODE, "1123456789", "15"));
+    assertEquals("11-2345-6789",
+                 format(numberFormat, FormattingTemplate.RFC3966, "1123456789", null));
+  }
+
+  public void testRfc3966RequiresDigitGroups() {
+    NumberFormat numberFormat =
+        new NumberFormat().setPattern("(\\d{2})([\\dx]*)").setFormat("($1) $2");
+    assertEquals("12-345", format(numberFormat, FormattingTemplate.RFC3966, "12345", null));
+    // An empty group would leave two runs of punctuation next to each other, and an x is itself
+    // punctuation, so these are left to regular expressions.
+    assertNull(format(numberFormat, FormattingTemplate.RFC3966, "12", null));
+    assertNull(format(numberFormat, FormattingTemplate.RFC3966, "12x345", null));
+  }
+
+  public void testUnsupportedRules() {
+    String[] rules = {"$1 $", "$1 \\", "$1 $2", "${first} $1", "$a"};
+    for (String rule : rules) {
+      NumberFormat numberFormat = new NumberFormat().setPattern("(\\d{3})").setFormat(rule);
+      assertNull(rule, numberFormat.getFormattingTemplate(FormattingTemplate.PLAIN));
+    }
+  }
+
+  public void testRecompiledWhenRulesChange() {
+    NumberFormat numberFormat = new NumberFormat().setPattern("(\\d{3})(\\d{4})")
+        .setFormat("$1 $2").setNationalPrefixFormattingRule("0$1");
+    assertEquals("0123 4567",
+                 format(numberFormat, FormattingTemplate.WITH_NATIONAL_PREFIX, "1234567", null));
+    numberFormat.setNationalPrefixFormattingRule("($1)");
+    assertEquals("(123) 4567",
+                 format(numberFormat, FormattingTemplate.WITH_NATIONAL_PREFIX, "1234567", null));
+    numberFormat.setFormat("$1-$2");
+    assertEquals("123-4567", format(numberFormat, FormattingTemplate.PLAIN, "1234567", null));
+    numberFormat.setPattern("(\\d{4})(\\d{3})");
+    assertEquals("1234-567", format(numberFormat, FormattingTemplate.PLAIN, "1234567", null));
+  }
+}
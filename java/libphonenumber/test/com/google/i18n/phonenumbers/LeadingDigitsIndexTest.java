@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.NumberFormat;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for LeadingDigitsIndex.java
+ */
+public class LeadingDigitsIndexTest extends TestMetadataTestCase {
+
+  public void testChoosesFirstMatchingFormat() {
+    List<NumberFormat> formats = new ArrayList<NumberFormat>();
+    formats.add(new NumberFormat().setPattern("(\\d{2})(\\d{4})").setFormat("$1 $2")
+        .addLeadingDigitsPattern("[1-4]").addLeadingDigitsPattern("1|2[0-4]|3"));
+    formats.add(new NumberFormat().setPattern("(\\d{3})(\\d{3})").setFormat("$1 $2")
+        .addLeadingDigitsPattern("[2-5]"));
+    formats.add(new NumberFormat().setPattern("(\\d)(\\d{5})").setFormat("$1 $2"));
+    LeadingDigitsIndex index = LeadingDigitsIndex.build(formats);
+    assertNotNull(index);
+    assertSame(formats.get(0), index.chooseFormattingPattern("123456"));
+    // Only the last leading-digits pattern is used.
+    assertSame(formats.get(1), index.chooseFormattingPattern("256789"));
+    assertSame(formats.get(1), index.chooseFormattingPattern("456789"));
+    // A format without leading-digits patterns applies to any number its pattern matches.
+    assertSame(formats.get(2), index.chooseFormattingPattern("912345"));
+    assertNull(index.chooseFormattingPattern("1234567"));
+    assertNull(index.chooseFormattingPattern(""));
+  }
+
+  public void testAgreesWithLinearSearch() {
+    String[][] numbers = {
+        {RegionCode.US, "6502530000"}, {RegionCode.US, "2530000"}, {RegionCode.US, "80025300"},
+        {RegionCode.GB, "2070313000"}, {RegionCode.GB, "7912345678"},
+        {RegionCode.GB, "1234567"}, {RegionCode.DE, "30123456"}, {RegionCode.DE, "9123123"},
+        {RegionCode.DE, "80212345"}, {RegionCode.IT, "0236618300"},
+        {RegionCode.IT, "345678901"}, {RegionCode.AR, "91187654321"},
+        {RegionCode.AR, "1187654321"}, {RegionCode.AU, "236618300"},
+        {RegionCode.AU, "1800123456"}, {RegionCode.MX, "12345678900"}};
+    for (String[] number : numbers) {
+      PhoneMetadata metadata = phoneUtil.getMetadataForRegion(number[0]);
+      assertChoosesLikeLinearSearch(metadata.numberFormats(), number[1]);
+      assertChoosesLikeLinearSearch(metadata.intlNumberFormats(), number[1]);
+    }
+  }
+
+  private void assertChoosesLikeLinearSearch(List<NumberFormat> formats, String nationalNumber) {
+    LeadingDigitsIndex index = LeadingDigitsIndex.build(formats);
+    assertNotNull(index);
+    assertSame(nationalNumber, phoneUtil.chooseFormattingPatternForNumber(formats, nationalNumber),
+               index.chooseFormattingPattern(nationalNumber));
+  }
+
+  public void testRebuiltWhenFormatsChange() {
+    PhoneMetadata metadata = new PhoneMetadata();
+    metadata.addNumberFormat(new NumberFormat().setPattern("(\\d{3})(\\d{4})").setFormat("$1 $2"));
+    LeadingDigitsIndex index = metadata.getNumberFormatIndex();
+    assertSame(index, metadata.getNumberFormatIndex());
+    assertTrue(index.isBuiltFrom(metadata.numberFormats()));
+
+    metadata.getNumberFormat(0).addLeadingDigitsPattern("2");
+    assertFalse(index.isBuiltFrom(metadata.numberFormats()));
+    assertNull(metadata.getNumberFormatIndex().chooseFormattingPattern("3456789"));
+
+    metadata.addNumberFormat(new NumberFormat().setPattern("(\\d)(\\d{6})").setFormat("$1 $2"));
+    assertSame(metadata.getNumberFormat(1),
+               metadata.getNumberFormatIndex().chooseFormattingPattern("3456789"));
+  }
+
+  public void testTooManyFormats() {
+    List<NumberFormat> formats = new ArrayList<NumberFormat>();
+    for (int i = 0; i <= LeadingDigitsIndex.MAX_FORMATS; i++) {
+      formats.add(new NumberFormat().setPattern("\\d{" + (i + 1) + "}").setFormat("$1"));
+    }
+    assertNull(LeadingDigitsIndex.build(formats));
+  }
+
+  public void testRebuiltWhenUnsupportedFormatsChange() {
+    PhoneMetadata metadata = new PhoneMetadata();
+    metadata.addNumberFormat(new NumberFormat().setPattern("(\\d{3})(?=4)(\\d{4})")
+        .setFormat("$1 $2"));
+    assertNull(metadata.getNumberFormatIndex());
+    assertNull(metadata.getNumberFormatIndex());
+    metadata.getNumberFormat(0).setPattern("(\\d{3})(\\d{4})");
+    assertSame(metadata.getNumberFormat(0),
+               metadata.getNumberFormatIndex().chooseFormattingPattern("3456789"));
+
+    for (int i = 0; i < LeadingDigitsIndex.MAX_FORMATS; i++) {
+      metadata.addNumberFormat(new NumberFormat().setPattern("\\d{" + (i + 1) + "}")
+          .setFormat("$1"));
+    }
+    assertNull(metadata.getNumberFormatIndex());
+    metadata.numberFormats().remove(LeadingDigitsIndex.MAX_FORMATS);
+    assertSame(metadata.getNumberFormat(0),
+               metadata.getNumberFormatIndex().chooseFormattingPattern("3456789"));
+  }
+}
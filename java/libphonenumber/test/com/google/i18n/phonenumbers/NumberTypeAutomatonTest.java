@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
+
+/**
+ * Unit tests for NumberTypeAutomaton.java
+ */
+public class NumberTypeAutomatonTest extends TestMetadataTestCase {
+
+  // Returns metadata with a general description that accepts any number of up to ten digits, and
+  // a fixed-line description with the given national-number pattern.
+  private static PhoneMetadata createMetadata(String fixedLinePattern) {
+    PhoneMetadata metadata = new PhoneMetadata();
+    metadata.setGeneralDesc(new PhoneNumberDesc().setNationalNumberPattern("\\d{1,10}")
+        .setPossibleNumberPattern("\\d{1,10}"));
+    metadata.setFixedLine(new PhoneNumberDesc().setNationalNumberPattern(fixedLinePattern)
+        .setPossibleNumberPattern("\\d{1,10}"));
+    PhoneNumberDesc none = new PhoneNumberDesc().setNationalNumberPattern("NA")
+        .setPossibleNumberPattern("NA");
+    metadata.setMobile(none).setTollFree(none).setPremiumRate(none).setSharedCost(none)
+        .setPersonalNumber(none).setVoip(none).setPager(none).setUan(none).setVoicemail(none);
+    return metadata;
+  }
+
+  public void testUnsupportedPatterns() {
+    assertNull(NumberTypeAutomaton.compile(createMetadata("1(?=2)\\d")));
+  }
+
+  public void testRecompiledWhenUnsupportedPatternsChange() {
+    PhoneMetadata metadata = createMetadata("1(?=2)\\d");
+    assertNull(metadata.getNumberTypeAutomaton());
+    assertNull(metadata.getNumberTypeAutomaton());
+    metadata.getFixedLine().setNationalNumberPattern("12\\d");
+    NumberTypeAutomaton automaton = metadata.getNumberTypeAutomaton();
+    assertNotNull(automaton);
+    assertEquals(PhoneNumberType.FIXED_LINE, automaton.getNumberType("123", false));
+  }
+
+  public void testAgreesWithRegexClassification() {
+    String[][] numbers = {
+        {RegionCode.US, "6502530000"}, {RegionCode.US, "8002530000"},
+        {RegionCode.US, "9002530000"}, {RegionCode.US, "1234567"},
+        {RegionCode.GB, "2070313000"}, {RegionCode.GB, "7912345678"},
+        {RegionCode.GB, "9187654321"}, {RegionCode.GB, "5612345678"},
+        {RegionCode.GB, "7031300000"}, {RegionCode.IT, "0236618300"},
+        {RegionCode.IT, "345678901"}, {RegionCode.AR, "91187654321"},
+        {RegionCode.AR, "1187654321"}, {RegionCode.DE, "30123456"}};
+    for (String[] number : numbers) {
+      PhoneMetadata metadata = phoneUtil.getMetadataForRegion(number[0]);
+      NumberTypeAutomaton automaton = NumberTypeAutomaton.compile(metadata);
+      assertNotNull(automaton);
+      assertEquals(number[0] + " " + number[1],
+                   getNumberTypeWithRegex(number[1], metadata),
+                   automaton.getNumberType(number[1], metadata.isSameMobileAndFixedLinePattern()));
+    }
+  }
+
+  // The classification that PhoneNumberUtil does for metadata that has no automaton.
+  private PhoneNumberType getNumberTypeWithRegex(String nationalNumber, PhoneMetadata metadata) {
+    if (!phoneUtil.isNumberMatchingDesc(nationalNumber, metadata.getGeneralDesc())) {
+      return PhoneNumberType.UNKNOWN;
+    }
+    PhoneNumberDesc[] descs = {metadata.getPremiumRate(), metadata.getTollFree(),
+        metadata.getSharedCost(), metadata.getVoip(), metadata.getPersonalNumber(),
+        metadata.getPager(), metadata.getUan(), metadata.getVoicemail()};
+    PhoneNumberType[] types = {PhoneNumberType.PREMIUM_RATE, PhoneNumberType.TOLL_FREE,
+        PhoneNumberType.SHARED_COST, PhoneNumberType.VOIP, PhoneNumberType.PERSONAL_NUMBER,
+        PhoneNumberType.PAGER, PhoneNumberType.UAN, PhoneNumberType.VOICEMAIL};
+    for (int i = 0; i < descs.length; i++) {
+      if (phoneUtil.isNumberMatchingDesc(nationalNumber, descs[i])) {
+        return types[i];
+      }
+    }
+    boolean isFixedLine = phoneUtil.isNumberMatchingDesc(nationalNumber, metadata.getFixedLine());
+    boolean isMobile = phoneUtil.isNumberMatchingDesc(nationalNumber, metadata.getMobile());
+    if (isFixedLine) {
+      return metadata.isSameMobileAndFixedLinePattern() || isMobile
+          ? PhoneNumberType.FIXED_LINE_OR_MOBILE
+          : PhoneNumberType.FIXED_LINE;
+    }
+    return !metadata.isSameMobileAndFixedLinePattern() && isMobile
+        ? PhoneNumberType.MOBILE
+        : PhoneNumberType.UNKNOWN;
+  }
+
+  public void testRecompiledWhenPatternsChange() {
+    PhoneMetadata metadata = createMetadata("1\\d");
+    NumberTypeAutomaton automaton = metadata.getNumberTypeAutomaton();
+    assertSame(automaton, metadata.getNumberTypeAutomaton());
+    assertTrue(automaton.isCompiledFrom(metadata));
+
+    metadata.getFixedLine().setNationalNumberPattern("2\\d");
+    assertFalse(automaton.isCompiledFrom(metadata));
+    NumberTypeAutomaton recompiled = metadata.getNumberTypeAutomaton();
+    assertNotSame(automaton, recompiled);
+    assertEquals(1 << NumberTypeAutomaton.FIXED_LINE,
+                 recompiled.match("23") & (1 << NumberTypeAutomaton.FIXED_LINE));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.Leniency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Unit tests for ParallelPhoneNumberFinder.java
+ */
+public class ParallelPhoneNumberFinderTest extends TestMetadataTestCase {
+  private ExecutorService executor;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    executor.shutdown();
+    super.tearDown();
+  }
+
+  // Builds a text where numbers, and candidates that are not numbers, fall across the boundaries
+  // of chunks of many different sizes.
+  private static String buildText() {
+    String[] pieces = {"Call 650 253 0000 now. ", "+44 20 7031 3000 ext. 1234, ",
+        "2012-01-02 08:00:33 ", "211-227 (2003) ", "abc8005001234 ", "(650) 253-0000x",
+        "+1 650 253 0000 / 68 ", "31/10/96 ", "lorem ipsum ", "\n"};
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; text.length() < 3 * ParallelPhoneNumberFinder.MIN_CHUNK_SIZE; i++) {
+      text.append(pieces[i % pieces.length]);
+      for (int j = 0; j < i % 13; j++) {
+        text.append(j % 2 == 0 ? '9' : ' ');
+      }
+    }
+    return text.toString();
+  }
+
+  private List<PhoneNumberMatch> findSequentially(String text, Leniency leniency) {
+    List<PhoneNumberMatch> matches = new ArrayList<PhoneNumberMatch>();
+    for (PhoneNumberMatch match :
+         phoneUtil.findNumbers(text, RegionCode.US, leniency, Long.MAX_VALUE)) {
+      matches.add(match);
+    }
+    return matches;
+  }
+
+  public void testSameMatchesAsSequentialSearch() throws Exception {
+    String text = buildText();
+    for (Leniency leniency : Leniency.values()) {
+      List<PhoneNumberMatch> expected = findSequentially(text, leniency);
+      ParallelPhoneNumberFinder finder =
+          new ParallelPhoneNumberFinder(phoneUtil, text, RegionCode.US, leniency);
+      for (int chunkCount : new int[] {1, 2, 7, 64, 997}) {
+        assertEquals(leniency + " in " + chunkCount + " chunks", expected,
+                     finder.findAll(executor, chunkCount));
+      }
+    }
+    assertFalse(findSequentially(text, Leniency.VALID).isEmpty());
+  }
+
+  public void testFindNumbersWithExecutor() throws Exception {
+    String text = buildText();
+    assertEquals(findSequentially(text, Leniency.VALID),
+                 phoneUtil.findNumbers(new StringBuilder(text), RegionCode.US, Leniency.VALID,
+                                       executor));
+    assertTrue(phoneUtil.findNumbers(null, RegionCode.US, Leniency.VALID, executor).isEmpty());
+  }
+}
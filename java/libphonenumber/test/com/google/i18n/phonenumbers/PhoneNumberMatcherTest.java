@@ -280,6 +280,24 @@ public class PhoneNumberMatcherTest extends TestMetadataTestCase {
     assertFalse(PhoneNumberMatcher.isLatinLetter('\u306E'));  // Hiragana letter no
   }
 
+  public void testSkipToPossibleCandidateStart() throws Exception {
+    assertEquals(5, PhoneNumberMatcher.skipToPossibleCandidateStart("Call 650", 0));
+    assertEquals(5, PhoneNumberMatcher.skipToPossibleCandidateStart("Call (650)", 2));
+    assertEquals(6, PhoneNumberMatcher.skipToPossibleCandidateStart("Call: +1", 0));
+    assertEquals(1, PhoneNumberMatcher.skipToPossibleCandidateStart("a[1]", 0));
+    // Non-ASCII digits and lead characters.
+    assertEquals(2, PhoneNumberMatcher.skipToPossibleCandidateStart("\u00E9 \uFF16", 0));
+    assertEquals(1, PhoneNumberMatcher.skipToPossibleCandidateStart("a\u0666", 0));
+    assertEquals(1, PhoneNumberMatcher.skipToPossibleCandidateStart("a\uFF0B1", 0));
+    assertEquals(1, PhoneNumberMatcher.skipToPossibleCandidateStart("a\uFF081", 0));
+    // Mathematical bold digit one, outside the Basic Multilingual Plane.
+    assertEquals(1, PhoneNumberMatcher.skipToPossibleCandidateStart("a\uD835\uDFCF", 0));
+    // Nothing that a number can start with.
+    assertEquals(15, PhoneNumberMatcher.skipToPossibleCandidateStart("No numbers - ok", 0));
+    assertEquals(3, PhoneNumberMatcher.skipToPossibleCandidateStart("-)\u6211", 0));
+    assertEquals(0, PhoneNumberMatcher.skipToPossibleCandidateStart("", 0));
+  }
+
   public void testMatchesWithSurroundingLatinChars() throws Exception {
     ArrayList<NumberContext> possibleOnlyContexts = new ArrayList<NumberContext>();
     possibleOnlyContexts.add(new NumberContext("abc", "def"));
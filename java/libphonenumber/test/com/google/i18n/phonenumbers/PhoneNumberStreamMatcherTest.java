@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.Leniency;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for PhoneNumberStreamMatcher.java
+ */
+public class PhoneNumberStreamMatcherTest extends TestMetadataTestCase {
+  private static final int SMALL_WINDOW_SIZE = 2 * PhoneNumberStreamMatcher.MAX_CANDIDATE_LENGTH;
+
+  /** A reader that returns a few characters at a time, as readers of sockets or pipes can. */
+  private static final class SlowReader extends Reader {
+    private final String text;
+    private int position = 0;
+
+    SlowReader(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+      if (position == text.length()) {
+        return -1;
+      }
+      int read = Math.min(Math.min(length, 7), text.length() - position);
+      text.getChars(position, position + read, buffer, offset);
+      position += read;
+      return read;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  // Builds a text several windows long, with numbers, and things that look like numbers, across
+  // the places where the window is moved.
+  private static String buildText() {
+    String[] pieces = {"Call 650 253 0000 now. ", "+44 20 7031 3000 ext. 1234, ",
+        "2012-01-02 08:00:33 ", "211-227 (2003) ", "abc8005001234 ", "(650) 253-0000x",
+        "+1 650 253 0000 / 68 ", "31/10/96 ", "lorem ipsum ", "\n"};
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; text.length() < 5 * SMALL_WINDOW_SIZE; i++) {
+      text.append(pieces[i % pieces.length]);
+      for (int j = 0; j < i % 13; j++) {
+        text.append(j % 2 == 0 ? '9' : ' ');
+      }
+    }
+    return text.toString();
+  }
+
+  private static List<String> describe(Iterable<PhoneNumberMatch> matches) {
+    List<String> descriptions = new ArrayList<String>();
+    for (PhoneNumberMatch match : matches) {
+      descriptions.add(match.start() + "-" + match.end() + " " + match.number());
+    }
+    return descriptions;
+  }
+
+  private static List<String> describe(PhoneNumberStreamMatcher matcher) throws IOException {
+    List<String> descriptions = new ArrayList<String>();
+    while (matcher.find()) {
+      assertEquals(matcher.end(), matcher.start() + matcher.rawString().length());
+      descriptions.add(matcher.start() + "-" + matcher.end() + " " + matcher.number());
+    }
+    return descriptions;
+  }
+
+  public void testSameMatchesAsWholeText() throws Exception {
+    String text = buildText();
+    for (Leniency leniency : Leniency.values()) {
+      List<String> expected =
+          describe(phoneUtil.findNumbers(text, RegionCode.US, leniency, Long.MAX_VALUE));
+      assertEquals(leniency.toString(), expected, describe(new PhoneNumberStreamMatcher(
+          phoneUtil, new SlowReader(text), RegionCode.US, leniency, Long.MAX_VALUE,
+          SMALL_WINDOW_SIZE)));
+      assertEquals(leniency.toString(), expected, describe(phoneUtil.findNumbersInStream(
+          new StringReader(text), RegionCode.US, leniency, Long.MAX_VALUE)));
+    }
+    assertFalse(describe(phoneUtil.findNumbers(text, RegionCode.US)).isEmpty());
+  }
+
+  public void testSameMatchesWithMaxTries() throws Exception {
+    String text = buildText();
+    List<String> expected =
+        describe(phoneUtil.findNumbers(text, RegionCode.US, Leniency.VALID, 30));
+    assertEquals(expected, describe(new PhoneNumberStreamMatcher(
+        phoneUtil, new SlowReader(text), RegionCode.US, Leniency.VALID, 30, SMALL_WINDOW_SIZE)));
+  }
+
+  public void testFindNumbersInChannel() throws Exception {
+    String text = "T\u00E9l\u00E9phone : +1 650 253 0000, fax \uFF0B\uFF11 650 253 0001";
+    List<String> expected = describe(phoneUtil.findNumbers(text, RegionCode.FR));
+    assertEquals(2, expected.size());
+    Charset utf8 = Charset.forName("UTF-8");
+    PhoneNumberStreamMatcher matcher = phoneUtil.findNumbersInStream(
+        Channels.newChannel(new ByteArrayInputStream(text.getBytes(utf8))), utf8, RegionCode.FR,
+        Leniency.VALID, Long.MAX_VALUE);
+    assertEquals(expected, describe(matcher));
+  }
+
+  public void testNoMatchAvailable() throws Exception {
+    PhoneNumberStreamMatcher matcher = phoneUtil.findNumbersInStream(
+        new StringReader("No numbers here."), RegionCode.US, Leniency.VALID, Long.MAX_VALUE);
+    assertFalse(matcher.find());
+    assertFalse(matcher.find());
+    try {
+      matcher.start();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  public void testWindowTooSmall() {
+    try {
+      new PhoneNumberStreamMatcher(phoneUtil, new StringReader(""), RegionCode.US, Leniency.VALID,
+                                   Long.MAX_VALUE, SMALL_WINDOW_SIZE - 1);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+}
@@ -23,8 +23,17 @@ import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
 import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
 import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber.CountryCodeSource;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Unit tests for PhoneNumberUtil.java
@@ -117,6 +126,32 @@ public class PhoneNumberUtilTest extends TestMetadataTestCase {
     assertTrue(phoneUtil.getSupportedRegions().size() > 0);
   }
 
+  public void testGetInstanceFromManyThreadsReturnsOneInstance() throws Exception {
+    final int threadCount = 16;
+    PhoneNumberUtil.resetInstance();
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Future<PhoneNumberUtil>> instances = new ArrayList<Future<PhoneNumberUtil>>();
+      for (int i = 0; i < threadCount; i++) {
+        instances.add(executor.submit(new Callable<PhoneNumberUtil>() {
+          public PhoneNumberUtil call() throws Exception {
+            start.await();
+            return PhoneNumberUtil.getInstance();
+          }
+        }));
+      }
+      start.countDown();
+      PhoneNumberUtil instance = PhoneNumberUtil.getInstance();
+      for (Future<PhoneNumberUtil> future : instances) {
+        assertSame(instance, future.get());
+      }
+    } finally {
+      executor.shutdown();
+      initializePhoneUtilForTesting();
+    }
+  }
+
   public void testGetInstanceLoadBadMetadata() {
     assertNull(phoneUtil.getMetadataForRegion("No Such Region"));
     assertNull(phoneUtil.getMetadataForNonGeographicalRegion(-1));
@@ -141,6 +176,33 @@ public class PhoneNumberUtilTest extends TestMetadataTestCase {
     }
   }
 
+  public void testGetMetadataConcurrently() throws Exception {
+    final String[] regionCodes = {RegionCode.US, RegionCode.DE, RegionCode.GB, RegionCode.IT};
+    final PhoneMetadata[][] results = new PhoneMetadata[8][regionCodes.length];
+    Thread[] threads = new Thread[results.length];
+    for (int i = 0; i < threads.length; i++) {
+      final int thread = i;
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < regionCodes.length; j++) {
+            results[thread][j] = phoneUtil.getMetadataForRegion(regionCodes[j]);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    // Every thread sees the same instance, so each region was loaded once.
+    for (PhoneMetadata[] result : results) {
+      for (int j = 0; j < regionCodes.length; j++) {
+        assertSame(phoneUtil.getMetadataForRegion(regionCodes[j]), result[j]);
+      }
+    }
+  }
+
   public void testGetInstanceLoadUSMetadata() {
     PhoneMetadata metadata = phoneUtil.getMetadataForRegion(RegionCode.US);
     assertEquals("US", metadata.getId());
@@ -834,6 +896,72 @@ public class PhoneNumberUtilTest extends TestMetadataTestCase {
     assertEquals("+80012345678", phoneUtil.format(INTERNATIONAL_TOLL_FREE, PhoneNumberFormat.E164));
   }
 
+  public void testFormatE164IntoBuffers() {
+    PhoneNumber[] numbers = {US_NUMBER, IT_NUMBER, INTERNATIONAL_TOLL_FREE,
+        new PhoneNumber().mergeFrom(NZ_NUMBER).setExtension("1234"), new PhoneNumber(),
+        new PhoneNumber().setCountryCode(-1).setNationalNumber(-12L)};
+    for (PhoneNumber number : numbers) {
+      String expected = phoneUtil.format(number, PhoneNumberFormat.E164);
+
+      char[] chars = new char[expected.length() + 3];
+      assertEquals(expected.length(), phoneUtil.formatE164(number, chars, 2));
+      assertEquals(expected, new String(chars, 2, expected.length()));
+
+      ByteBuffer bytes = ByteBuffer.allocate(expected.length() + 3);
+      bytes.put((byte) 'x');
+      phoneUtil.formatE164(number, bytes);
+      assertEquals(expected.length() + 1, bytes.position());
+      assertEquals("x" + expected, new String(bytes.array(), 0, bytes.position()));
+    }
+  }
+
+  public void testFormatE164IntoTooSmallBuffers() {
+    char[] chars = new char[12];
+    try {
+      phoneUtil.formatE164(US_NUMBER, chars, 1);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      // Expected; nothing is written.
+      assertEquals(0, chars[11]);
+    }
+    ByteBuffer bytes = ByteBuffer.allocate(11);
+    try {
+      phoneUtil.formatE164(US_NUMBER, bytes);
+      fail("Expected BufferOverflowException");
+    } catch (BufferOverflowException e) {
+      assertEquals(0, bytes.position());
+    }
+  }
+
+  public void testGetDigitCount() {
+    assertEquals(1, PhoneNumberUtil.getDigitCount(0));
+    assertEquals(1, PhoneNumberUtil.getDigitCount(1));
+    assertEquals(2, PhoneNumberUtil.getDigitCount(44));
+    assertEquals(3, PhoneNumberUtil.getDigitCount(800));
+    assertEquals(10, PhoneNumberUtil.getDigitCount(6502530000L));
+    assertEquals(19, PhoneNumberUtil.getDigitCount(Long.MAX_VALUE));
+  }
+
+  public void testFormatE164KeepsResult() {
+    PhoneNumber number = new PhoneNumber().mergeFrom(US_NUMBER);
+    String formatted = phoneUtil.formatE164(number);
+    assertEquals("+16502530000", formatted);
+    assertSame(formatted, phoneUtil.formatE164(number));
+    // Changing the number drops the kept result.
+    number.setNationalNumber(2530000L);
+    assertEquals("+12530000", phoneUtil.formatE164(number));
+    number.setItalianLeadingZero(true);
+    assertEquals("+102530000", phoneUtil.formatE164(number));
+    number.clear().setRawInput("abc");
+    assertEquals("abc", phoneUtil.formatE164(number));
+    // Extensions are not formatted, so changing them keeps the result.
+    number.mergeFrom(US_NUMBER);
+    formatted = phoneUtil.formatE164(number);
+    number.setExtension("1234");
+    assertSame(formatted, phoneUtil.formatE164(number));
+    assertEquals(new PhoneNumber().mergeFrom(number), number);
+  }
+
   public void testFormatNumberWithExtension() {
     PhoneNumber nzNumber = new PhoneNumber().mergeFrom(NZ_NUMBER).setExtension("1234");
     // Uses default extension prefix:
@@ -2201,6 +2329,188 @@ public class PhoneNumberUtilTest extends TestMetadataTestCase {
     assertEquals(usWithExtension, phoneUtil.parse("+1 (645) 123 1234 ext. 910#", RegionCode.US));
   }
 
+  public void testParseWithContext() throws Exception {
+    ParseContext context = new ParseContext();
+    String[] regions = {RegionCode.US, RegionCode.GB, RegionCode.NZ, RegionCode.AR, RegionCode.MX,
+                        RegionCode.IT, RegionCode.DE, RegionCode.AU, RegionCode.JP, RegionCode.ZZ,
+                        null};
+    String[] numbers = {
+        // Handled without creating objects.
+        "033316005", "03-331 6005", "03 331 6005", "(03) 331-6005", "3316005", "64 3 331 6005",
+        "+64 3 331 6005", "+64(0)3 331 6005", "650 253 0000", "1-650-253-0000", "+1 650.253.0000",
+        "+44 7912 345 678", "07912 345678", "0236618300", "+39 02 3661 8300", "+800 1234 5678",
+        "011 54 9 11 8765 4321", "0343 15 555 1212", "044 (33) 1234-5678", "01 33 1234-5678",
+        "+52 1 33 1234-5678", "+49 30/1234/5678", "123 456 7890 1234 5678", "+0 123 4567",
+        "+999 1234 5678", "+1 2", "+44", "12", "0", "",
+        // Handled by the regular parsing code.
+        "tel:331-6005;phone-context=+64-3", "0800 DDA 005", "+1 650 253 0000 ext. 1234",
+        "\uFF0B1 (650) 333-6000", "+1 650-253-0000 x456", "(650) 253-0000 abc",
+        "This is not a phone number"};
+    for (String region : regions) {
+      for (String number : numbers) {
+        PhoneNumber expected = null;
+        NumberParseException expectedException = null;
+        try {
+          expected = phoneUtil.parse(number, region);
+        } catch (NumberParseException e) {
+          expectedException = e;
+        }
+        try {
+          PhoneNumber actual = phoneUtil.parse(number, region, context);
+          assertNull("Expected an exception for " + number + " in " + region, expectedException);
+          assertSame(context.getPhoneNumber(), actual);
+          assertEquals("Parsing " + number + " in " + region, expected, actual);
+        } catch (NumberParseException e) {
+          assertNotNull("Unexpected exception for " + number + " in " + region, expectedException);
+          assertEquals(expectedException.getErrorType(), e.getErrorType());
+        }
+      }
+    }
+  }
+
+  public void testParseWithContextClearsPreviousResult() throws Exception {
+    ParseContext context = new ParseContext();
+    PhoneNumber usWithExtension = new PhoneNumber();
+    usWithExtension.setCountryCode(1).setNationalNumber(2033331234L).setExtension("456");
+    assertEquals(usWithExtension, phoneUtil.parse("(203) 333-1234 x456", RegionCode.US, context));
+    assertEquals(NZ_NUMBER, phoneUtil.parse("03-331 6005", RegionCode.NZ, context));
+    assertEquals(IT_NUMBER, phoneUtil.parse("+39 02 3661 8300", RegionCode.NZ, context));
+    assertTrue(context.getPhoneNumber().isItalianLeadingZero());
+    assertEquals(US_NUMBER, phoneUtil.parse("+1 650 253 0000", RegionCode.NZ, context));
+    assertFalse(context.getPhoneNumber().hasItalianLeadingZero());
+  }
+
+  public void testTryParse() throws Exception {
+    ParseResult result = phoneUtil.tryParse("033316005", RegionCode.NZ);
+    assertTrue(result.isSuccess());
+    assertEquals(NZ_NUMBER, result.getPhoneNumber());
+    assertNull(result.getErrorType());
+    assertNull(result.getErrorMessage());
+
+    String[] invalidNumbers = {null, "This is not a phone number", "+0 123 4567", "+44",
+                               "123 456 7890 1234 5678 9012", "+49 0", "0044------"};
+    for (String number : invalidNumbers) {
+      result = phoneUtil.tryParse(number, RegionCode.NZ);
+      assertFalse(result.isSuccess());
+      assertNull(result.getPhoneNumber());
+      try {
+        phoneUtil.parse(number, RegionCode.NZ);
+        fail("Expected a NumberParseException for " + number);
+      } catch (NumberParseException e) {
+        assertEquals(e.getErrorType(), result.getErrorType());
+        assertEquals(e.getMessage(), result.getErrorMessage());
+      }
+    }
+
+    result = phoneUtil.tryParse("123 456 7890", RegionCode.ZZ);
+    assertEquals(NumberParseException.ErrorType.INVALID_COUNTRY_CODE, result.getErrorType());
+  }
+
+  public void testTryParseWithContext() throws Exception {
+    ParseContext context = new ParseContext();
+    ParseResult result = phoneUtil.tryParse("03-331 6005", RegionCode.NZ, context);
+    assertTrue(result.isSuccess());
+    assertSame(context.getPhoneNumber(), result.getPhoneNumber());
+    assertEquals(NZ_NUMBER, result.getPhoneNumber());
+    result = phoneUtil.tryParse("0800 DDA 005", RegionCode.NZ, context);
+    assertTrue(result.isSuccess());
+    assertSame(context.getPhoneNumber(), result.getPhoneNumber());
+    result = phoneUtil.tryParse("+0 123", RegionCode.NZ, context);
+    assertEquals(NumberParseException.ErrorType.INVALID_COUNTRY_CODE, result.getErrorType());
+  }
+
+  public void testTryParseAndKeepRawInput() throws Exception {
+    ParseResult result = phoneUtil.tryParseAndKeepRawInput("800 six-flags", RegionCode.US);
+    assertTrue(result.isSuccess());
+    assertEquals(phoneUtil.parseAndKeepRawInput("800 six-flags", RegionCode.US),
+                 result.getPhoneNumber());
+    result = phoneUtil.tryParseAndKeepRawInput("1", RegionCode.US);
+    assertEquals(NumberParseException.ErrorType.NOT_A_NUMBER, result.getErrorType());
+  }
+
+  public void testParseBatch() throws Exception {
+    String[] numbers = {"033316005", "+1 650 253 0000", "+39 02 3661 8300", "0800 DDA 005",
+                        "+1 650 253 0000 ext. 1234", null, "This is not a phone number", "+0 123"};
+    BatchParseResult result = phoneUtil.parseBatch(Arrays.asList(numbers), RegionCode.NZ);
+    assertEquals(numbers.length, result.size());
+    assertEquals(5, result.getParsedCount());
+    assertEquals(NZ_NUMBER, result.getPhoneNumber(0));
+    assertEquals(US_NUMBER, result.getPhoneNumber(1));
+    assertEquals(IT_NUMBER, result.getPhoneNumber(2));
+    assertTrue(result.isParsed(3));
+    assertEquals("1234", result.getPhoneNumber(4).getExtension());
+    assertFalse(result.isParsed(5));
+    assertNull(result.getPhoneNumber(5));
+    assertEquals(NumberParseException.ErrorType.NOT_A_NUMBER, result.getErrorType(5));
+    assertEquals(NumberParseException.ErrorType.NOT_A_NUMBER, result.getErrorType(6));
+    assertEquals(NumberParseException.ErrorType.INVALID_COUNTRY_CODE, result.getErrorType(7));
+    assertNull(result.getErrorType(0));
+    // The numbers must not share the parse context's phone number.
+    assertNotSame(result.getPhoneNumber(0), result.getPhoneNumber(1));
+  }
+
+  public void testParseBatchInParallel() throws Exception {
+    String[] numbers = new String[5000];
+    for (int i = 0; i < numbers.length; i++) {
+      numbers[i] = (i % 7 == 0) ? "not a number " + i : "+1 650 253 " + (1000 + i);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      BatchParseResult parallel = phoneUtil.parseBatch(numbers, RegionCode.US, executor);
+      BatchParseResult sequential = phoneUtil.parseBatch(numbers, RegionCode.US);
+      assertEquals(numbers.length, parallel.size());
+      for (int i = 0; i < numbers.length; i++) {
+        assertEquals(sequential.getPhoneNumber(i), parallel.getPhoneNumber(i));
+        assertEquals(sequential.getErrorType(i), parallel.getErrorType(i));
+      }
+      assertEquals(6502531001L, parallel.getPhoneNumber(1).getNationalNumber());
+      assertEquals(NumberParseException.ErrorType.NOT_A_NUMBER, parallel.getErrorType(7));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testPreloadMetadata() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PhoneMetadata loadedBefore = phoneUtil.getMetadataForRegion(RegionCode.DE);
+      Map<String, Long> loadTimes = phoneUtil.preloadMetadata(
+          Arrays.asList(RegionCode.US, RegionCode.GB, RegionCode.DE), executor);
+      assertEquals(Arrays.asList(RegionCode.US, RegionCode.GB, RegionCode.DE),
+                   new ArrayList<String>(loadTimes.keySet()));
+      for (long loadTime : loadTimes.values()) {
+        assertTrue(loadTime >= 0);
+      }
+      // Metadata that was already loaded is kept.
+      assertSame(loadedBefore, phoneUtil.getMetadataForRegion(RegionCode.DE));
+      assertEquals(RegionCode.GB, phoneUtil.getMetadataForRegion(RegionCode.GB).getId());
+      assertTrue(phoneUtil.isValidNumber(phoneUtil.parse("+1 650 253 0000", RegionCode.US)));
+
+      try {
+        phoneUtil.preloadMetadata(Arrays.asList(RegionCode.US, RegionCode.ZZ), executor);
+        fail("Expected an IllegalArgumentException for an unsupported region");
+      } catch (IllegalArgumentException e) {
+        // Expected.
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testPreloadAllMetadata() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Map<String, Long> loadTimes = phoneUtil.preloadAllMetadata(executor);
+      assertEquals(phoneUtil.getSupportedRegions().size()
+                   + phoneUtil.getSupportedGlobalNetworkCallingCodes().size(), loadTimes.size());
+      assertTrue(loadTimes.containsKey(RegionCode.US));
+      assertTrue(loadTimes.containsKey("800"));
+      assertEquals(800, phoneUtil.getMetadataForNonGeographicalRegion(800).getCountryCode());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   public void testParseAndKeepRaw() throws Exception {
     PhoneNumber alphaNumericNumber = new PhoneNumber().mergeFrom(ALPHA_NUMERIC_NUMBER).
         setRawInput("800 six-flags").
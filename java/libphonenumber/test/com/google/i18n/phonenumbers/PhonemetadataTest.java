@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.NumberFormat;
+
+import junit.framework.TestCase;
+
+import java.util.regex.Pattern;
+
+/**
+ * Unit tests for the patterns compiled lazily by Phonemetadata.NumberFormat.
+ */
+public class PhonemetadataTest extends TestCase {
+
+  public void testLeadingDigitsPatternsAreCompiledOnFirstUse() {
+    NumberFormat numberFormat = new NumberFormat();
+    numberFormat.addLeadingDigitsPattern("[2-4]").addLeadingDigitsPattern("5[01]");
+    assertFalse(numberFormat.isLeadingDigitsPatternCompiled(0));
+    assertFalse(numberFormat.isLeadingDigitsPatternCompiled(1));
+
+    Pattern compiled = numberFormat.getCompiledLeadingDigitsPattern(1);
+    assertEquals("5[01]", compiled.pattern());
+    assertFalse(numberFormat.isLeadingDigitsPatternCompiled(0));
+    assertTrue(numberFormat.isLeadingDigitsPatternCompiled(1));
+    // Once compiled, the same pattern is returned on every call.
+    assertSame(compiled, numberFormat.getCompiledLeadingDigitsPattern(1));
+  }
+
+  public void testCompiledLeadingDigitsPatternsAreResetWhenPatternIsAdded() {
+    NumberFormat numberFormat = new NumberFormat();
+    numberFormat.addLeadingDigitsPattern("[2-4]");
+    Pattern compiled = numberFormat.getCompiledLeadingDigitsPattern(0);
+    assertTrue(numberFormat.isLeadingDigitsPatternCompiled(0));
+
+    numberFormat.addLeadingDigitsPattern("5[01]");
+    assertFalse(numberFormat.isLeadingDigitsPatternCompiled(0));
+    assertFalse(numberFormat.isLeadingDigitsPatternCompiled(1));
+    assertNotSame(compiled, numberFormat.getCompiledLeadingDigitsPattern(0));
+    assertEquals("[2-4]", numberFormat.getCompiledLeadingDigitsPattern(0).pattern());
+    assertEquals("5[01]", numberFormat.getCompiledLeadingDigitsPattern(1).pattern());
+  }
+
+  public void testCompilePatternsCompilesAllLeadingDigitsPatterns() {
+    NumberFormat numberFormat = new NumberFormat();
+    numberFormat.setPattern("(\\d{3})(\\d{4})");
+    numberFormat.addLeadingDigitsPattern("[2-4]").addLeadingDigitsPattern("5[01]");
+    numberFormat.compilePatterns();
+    assertTrue(numberFormat.isLeadingDigitsPatternCompiled(0));
+    assertTrue(numberFormat.isLeadingDigitsPatternCompiled(1));
+  }
+
+  public void testCompiledPatternIsResetWhenPatternIsSet() {
+    NumberFormat numberFormat = new NumberFormat();
+    numberFormat.setPattern("(\\d{3})(\\d{4})");
+    Pattern compiled = numberFormat.getCompiledPattern();
+    assertSame(compiled, numberFormat.getCompiledPattern());
+
+    numberFormat.setPattern("(\\d{2})(\\d{4})");
+    assertEquals("(\\d{2})(\\d{4})", numberFormat.getCompiledPattern().pattern());
+  }
+}
@@ -52,4 +52,49 @@ public class RegexCacheTest extends TestCase {
     assertFalse(regexCache.containsRegex(regex2));
     assertTrue(regexCache.containsRegex(regex1));
   }
+
+  public void testCountersForLRU() {
+    final String regex1 = "[1-5]";
+    final String regex2 = "(?:12|34)";
+    final String regex3 = "[1-3][58]";
+
+    regexCache.getPatternForRegex(regex1);
+    regexCache.getPatternForRegex(regex1);
+    regexCache.getPatternForRegex(regex2);
+    regexCache.getPatternForRegex(regex3);
+
+    assertEquals(1, regexCache.getHitCount());
+    assertEquals(3, regexCache.getMissCount());
+    assertEquals(1, regexCache.getEvictionCount());
+  }
+
+  public void testClockRegexInsertion() {
+    RegexCache clockCache = new RegexCache(2, RegexCache.EvictionPolicy.CLOCK);
+    final String regex1 = "[1-5]";
+    final String regex2 = "(?:12|34)";
+    final String regex3 = "[1-3][58]";
+
+    clockCache.getPatternForRegex(regex1);
+    assertTrue(clockCache.containsRegex(regex1));
+
+    clockCache.getPatternForRegex(regex2);
+    assertTrue(clockCache.containsRegex(regex2));
+    assertTrue(clockCache.containsRegex(regex1));
+
+    // Only regex1 is referenced again, so regex2 is the one to go when the cache is full.
+    clockCache.getPatternForRegex(regex1);
+    clockCache.getPatternForRegex(regex3);
+    assertTrue(clockCache.containsRegex(regex3));
+    assertFalse(clockCache.containsRegex(regex2));
+    assertTrue(clockCache.containsRegex(regex1));
+
+    assertEquals(1, clockCache.getHitCount());
+    assertEquals(3, clockCache.getMissCount());
+    assertEquals(1, clockCache.getEvictionCount());
+  }
+
+  public void testClockCacheReturnsSamePatternInstance() {
+    RegexCache clockCache = new RegexCache(2, RegexCache.EvictionPolicy.CLOCK);
+    assertSame(clockCache.getPatternForRegex("\\d{3}"), clockCache.getPatternForRegex("\\d{3}"));
+  }
 }
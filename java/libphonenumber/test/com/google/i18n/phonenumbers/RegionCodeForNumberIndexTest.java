@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
+
+/**
+ * Unit tests for RegionCodeForNumberIndex.java
+ */
+public class RegionCodeForNumberIndexTest extends TestMetadataTestCase {
+
+  private RegionCodeForNumberIndex buildIndex(String... regionCodes) {
+    PhoneMetadata[] metadata = new PhoneMetadata[regionCodes.length];
+    for (int i = 0; i < regionCodes.length; i++) {
+      metadata[i] = phoneUtil.getMetadataForRegion(regionCodes[i]);
+    }
+    return RegionCodeForNumberIndex.build(metadata);
+  }
+
+  public void testCandidatesByGeneralDesc() {
+    RegionCodeForNumberIndex index = buildIndex(RegionCode.US, RegionCode.BS);
+    assertFalse(index.isIdentifiedByLeadingDigits(0));
+    assertFalse(index.isIdentifiedByLeadingDigits(1));
+    assertEquals(0x1L, index.getCandidateRegions("6502530000"));
+    assertEquals(0x2L, index.getCandidateRegions("2423651234"));
+    // Toll-free numbers match the general descriptions of both regions.
+    assertEquals(0x3L, index.getCandidateRegions("8002530000"));
+    assertEquals(0x0L, index.getCandidateRegions("7123456789"));
+    assertEquals(0x0L, index.getCandidateRegions("650253000"));
+  }
+
+  public void testCandidatesByLeadingDigits() {
+    RegionCodeForNumberIndex index = buildIndex(RegionCode.RE, RegionCode.YT);
+    assertTrue(index.isIdentifiedByLeadingDigits(0));
+    assertTrue(index.isIdentifiedByLeadingDigits(1));
+    assertEquals(0x1L, index.getCandidateRegions("262123456"));
+    assertEquals(0x2L, index.getCandidateRegions("269601234"));
+    assertEquals(0x0L, index.getCandidateRegions("123456789"));
+  }
+
+  public void testIsUpToDate() {
+    PhoneMetadata metadata = new PhoneMetadata().setGeneralDesc(
+        new PhoneNumberDesc().setNationalNumberPattern("1\\d{3}"));
+    RegionCodeForNumberIndex index =
+        RegionCodeForNumberIndex.build(new PhoneMetadata[] {metadata});
+    assertTrue(index.isUpToDate());
+    metadata.getGeneralDesc().setNationalNumberPattern("2\\d{3}");
+    assertFalse(index.isUpToDate());
+  }
+}
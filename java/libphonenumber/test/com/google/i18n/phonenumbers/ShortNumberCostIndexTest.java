@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneMetadata;
+import com.google.i18n.phonenumbers.Phonemetadata.PhoneNumberDesc;
+import com.google.i18n.phonenumbers.ShortNumberUtil.ShortNumberCost;
+
+import java.util.Random;
+
+/**
+ * Unit tests for ShortNumberCostIndex.java
+ */
+public class ShortNumberCostIndexTest extends TestMetadataTestCase {
+
+  private static PhoneMetadata createMetadata(String tollFreePattern, String premiumRatePattern) {
+    PhoneMetadata metadata = new PhoneMetadata();
+    metadata.setTollFree(new PhoneNumberDesc().setNationalNumberPattern(tollFreePattern)
+        .setPossibleNumberPattern("\\d{3,4}"));
+    metadata.setPremiumRate(new PhoneNumberDesc().setNationalNumberPattern(premiumRatePattern)
+        .setPossibleNumberPattern("\\d{3,4}"));
+    metadata.setStandardRate(new PhoneNumberDesc().setNationalNumberPattern("NA")
+        .setPossibleNumberPattern("NA"));
+    return metadata;
+  }
+
+  public void testUnsupportedPatterns() {
+    assertNull(ShortNumberCostIndex.compile(createMetadata("1(?=2)\\d", "NA")));
+  }
+
+  public void testMostExpensiveCostWins() {
+    ShortNumberCostIndex index = ShortNumberCostIndex.compile(createMetadata("1\\d{2}", "12\\d"));
+    assertEquals(ShortNumberCost.PREMIUM_RATE, index.getExpectedCost("123"));
+    assertEquals(ShortNumberCost.TOLL_FREE, index.getExpectedCost("113"));
+    // Too long for the possible-number patterns.
+    assertEquals(ShortNumberCost.UNKNOWN_COST, index.getExpectedCost("12345"));
+    assertEquals(ShortNumberCost.UNKNOWN_COST, index.getExpectedCost("223"));
+    assertEquals(ShortNumberCost.UNKNOWN_COST, index.getExpectedCost(""));
+  }
+
+  public void testRecompiledWhenPatternsChange() {
+    PhoneMetadata metadata = createMetadata("1\\d{2}", "NA");
+    ShortNumberCostIndex index = metadata.getShortNumberCostIndex();
+    assertSame(index, metadata.getShortNumberCostIndex());
+    metadata.setTollFree(new PhoneNumberDesc().setNationalNumberPattern("2\\d{2}")
+        .setPossibleNumberPattern("\\d{3}"));
+    assertFalse(index.isCompiledFrom(metadata));
+    assertEquals(ShortNumberCost.TOLL_FREE,
+                 metadata.getShortNumberCostIndex().getExpectedCost("211"));
+  }
+
+  public void testRecompiledWhenUnsupportedPatternsChange() {
+    PhoneMetadata metadata = createMetadata("1(?=2)\\d", "NA");
+    assertNull(metadata.getShortNumberCostIndex());
+    assertNull(metadata.getShortNumberCostIndex());
+    metadata.getTollFree().setNationalNumberPattern("12\\d");
+    assertEquals(ShortNumberCost.TOLL_FREE,
+                 metadata.getShortNumberCostIndex().getExpectedCost("123"));
+  }
+
+  public void testAgreesWithRegexForAllShortNumberRegions() {
+    for (String regionCode : MetadataManager.getShortNumberMetadataSupportedRegions()) {
+      PhoneMetadata metadata = MetadataManager.getShortNumberMetadataForRegion(regionCode);
+      ShortNumberCostIndex index = ShortNumberCostIndex.compile(metadata);
+      assertNotNull(regionCode, index);
+      // All short numbers of up to three digits, and a sample of longer ones.
+      Random random = new Random(regionCode.hashCode());
+      for (int length = 1; length <= 6; length++) {
+        int count = (int) Math.min(Math.pow(10, length), 2000);
+        for (int i = 0; i < count; i++) {
+          int number = length <= 3 ? i : random.nextInt((int) Math.pow(10, length));
+          String shortNumber = String.format("%0" + length + "d", number);
+          assertEquals(regionCode + " " + shortNumber,
+                       getExpectedCostWithRegex(shortNumber, metadata),
+                       index.getExpectedCost(shortNumber));
+        }
+      }
+    }
+  }
+
+  private ShortNumberCost getExpectedCostWithRegex(String shortNumber, PhoneMetadata metadata) {
+    if (phoneUtil.isNumberMatchingDesc(shortNumber, metadata.getPremiumRate())) {
+      return ShortNumberCost.PREMIUM_RATE;
+    }
+    if (phoneUtil.isNumberMatchingDesc(shortNumber, metadata.getStandardRate())) {
+      return ShortNumberCost.STANDARD_RATE;
+    }
+    if (phoneUtil.isNumberMatchingDesc(shortNumber, metadata.getTollFree())) {
+      return ShortNumberCost.TOLL_FREE;
+    }
+    return ShortNumberCost.UNKNOWN_COST;
+  }
+}
@@ -16,6 +16,8 @@
 
 package com.google.i18n.phonenumbers;
 
+import java.util.Arrays;
+
 /**
  * Unit tests for ShortNumberUtil.java
  *
@@ -46,6 +48,35 @@ public class ShortNumberUtilTest extends TestMetadataTestCase {
         ShortNumberUtil.ShortNumberCost.UNKNOWN_COST));
   }
 
+  public void testGetExpectedCost() {
+    assertEquals(ShortNumberUtil.ShortNumberCost.TOLL_FREE,
+        shortUtil.getExpectedCost("3010", RegionCode.FR));
+    assertEquals(ShortNumberUtil.ShortNumberCost.STANDARD_RATE,
+        shortUtil.getExpectedCost("118777", RegionCode.FR));
+    assertEquals(ShortNumberUtil.ShortNumberCost.PREMIUM_RATE,
+        shortUtil.getExpectedCost("3200", RegionCode.FR));
+    assertEquals(ShortNumberUtil.ShortNumberCost.UNKNOWN_COST,
+        shortUtil.getExpectedCost("2000", RegionCode.FR));
+    assertEquals(ShortNumberUtil.ShortNumberCost.UNKNOWN_COST,
+        shortUtil.getExpectedCost("3010", RegionCode.ZZ));
+  }
+
+  public void testGetExpectedCosts() {
+    String[] shortNumbers = {"3010", "118777", "3200", "2000"};
+    ShortNumberUtil.ShortNumberCost[] costs =
+        shortUtil.getExpectedCosts(shortNumbers, RegionCode.FR);
+    assertEquals(shortNumbers.length, costs.length);
+    for (int i = 0; i < shortNumbers.length; i++) {
+      assertEquals(shortUtil.getExpectedCost(shortNumbers[i], RegionCode.FR), costs[i]);
+    }
+    assertEquals(Arrays.asList(costs),
+        Arrays.asList(shortUtil.getExpectedCosts(Arrays.asList(shortNumbers), RegionCode.FR)));
+    for (ShortNumberUtil.ShortNumberCost cost :
+         shortUtil.getExpectedCosts(shortNumbers, RegionCode.ZZ)) {
+      assertEquals(ShortNumberUtil.ShortNumberCost.UNKNOWN_COST, cost);
+    }
+  }
+
   public void testConnectsToEmergencyNumber_US() {
     assertTrue(shortUtil.connectsToEmergencyNumber("911", RegionCode.US));
     assertTrue(shortUtil.connectsToEmergencyNumber("119", RegionCode.US));
@@ -128,6 +159,15 @@ public class ShortNumberUtilTest extends TestMetadataTestCase {
     assertFalse(shortUtil.isEmergencyNumber("+999", RegionCode.US));
   }
 
+  public void testIsEmergencyNumberWithOtherCharacters_US() {
+    assertTrue(shortUtil.isEmergencyNumber("Call 911.", RegionCode.US));
+    assertTrue(shortUtil.isEmergencyNumber("\uFF19\uFF11\uFF11", RegionCode.US));
+    // What follows the start of a second number is ignored.
+    assertTrue(shortUtil.isEmergencyNumber("911 / x123", RegionCode.US));
+    assertFalse(shortUtil.isEmergencyNumber("911 / 123", RegionCode.US));
+    assertFalse(shortUtil.isEmergencyNumber("", RegionCode.US));
+  }
+
   public void testIsEmergencyNumber_BR() {
     assertTrue(shortUtil.isEmergencyNumber("911", RegionCode.BR));
     assertTrue(shortUtil.isEmergencyNumber("190", RegionCode.BR));
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2013 The Libphonenumber Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.i18n.phonenumbers;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberFormat;
+import com.google.i18n.phonenumbers.Phonenumber.PhoneNumber;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for VerificationContext.java
+ */
+public class VerificationContextTest extends TestMetadataTestCase {
+
+  // Splits the number as formatted in RFC3966 format, as the groups used to be worked out.
+  private String[] formatAndSplit(PhoneNumber number) {
+    String rfc3966Format = phoneUtil.format(number, PhoneNumberFormat.RFC3966);
+    int endIndex = rfc3966Format.indexOf(';');
+    if (endIndex < 0) {
+      endIndex = rfc3966Format.length();
+    }
+    return rfc3966Format.substring(rfc3966Format.indexOf('-') + 1, endIndex).split("-");
+  }
+
+  public void testNationalNumberGroups() throws Exception {
+    PhoneNumber number = phoneUtil.parse("650 253 0000 ext. 1234", RegionCode.US);
+    VerificationContext context = new VerificationContext(phoneUtil, number, "650 253 0000");
+    String[] groups = context.getNationalNumberGroups();
+    assertEquals(Arrays.asList("650", "253", "0000"), Arrays.asList(groups));
+    assertSame(groups, context.getNationalNumberGroups());
+    assertEquals(RegionCode.US, context.getRegionCode());
+    assertEquals("6502530000", context.getNationalSignificantNumber());
+  }
+
+  public void testNationalNumberGroupsAsFormatted() throws Exception {
+    PhoneNumber[] numbers = {
+        // International formats differ from the national ones in Argentina.
+        phoneUtil.parse("+54 9 11 8765 4321", RegionCode.AR),
+        phoneUtil.parse("+49 30 123456", RegionCode.DE),
+        phoneUtil.parse("+39 02 3661 8300", RegionCode.IT),
+        phoneUtil.parse("+800 1234 5678", RegionCode.ZZ),
+        // Invalid country calling code.
+        new PhoneNumber().setCountryCode(999).setNationalNumber(12345678L),
+    };
+    for (PhoneNumber number : numbers) {
+      assertEquals(number.toString(), Arrays.asList(formatAndSplit(number)),
+          Arrays.asList(new VerificationContext(phoneUtil, number, "").getNationalNumberGroups()));
+    }
+  }
+
+  public void testCandidateGroups() throws Exception {
+    PhoneNumber number = phoneUtil.parse("+1 (650) 253-0000 ext 1234", RegionCode.US);
+    VerificationContext context =
+        new VerificationContext(phoneUtil, number, "+1 (650) 253-0000 ext 1234");
+    assertEquals("+1 (650) 253-0000 ext 1234", context.getNormalizedCandidate().toString());
+    assertEquals(Arrays.asList("", "1", "650", "253", "0000", "1234"),
+                 Arrays.asList(context.getCandidateGroups()));
+  }
+}
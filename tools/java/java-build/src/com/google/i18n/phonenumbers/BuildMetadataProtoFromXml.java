@@ -26,7 +26,9 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Formatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +56,7 @@ public class BuildMetadataProtoFromXml extends Command {
   private static final String MAPPING_CLASS = "mapping-class";
   private static final String COPYRIGHT = "copyright";
   private static final String LITE_BUILD = "lite-build";
+  private static final String COMPACT_FILE = "compact-file";
 
   private static final String HELP_MESSAGE =
       "Usage: " + CLASS_NAME + " [OPTION]...\n" +
@@ -71,6 +74,10 @@ public class BuildMetadataProtoFromXml extends Command {
       "  [--" + LITE_BUILD + "=<true|false>]  Optional (default: false). In a lite build,\n" +
       "                               certain metadata will be omitted. At this\n" +
       "                               moment, example numbers information is omitted.\n" +
+      "  [--" + COMPACT_FILE + "=PATH]  Optional. Also write the metadata for all regions to\n" +
+      "                        PATH (relative to " + OUTPUT_DIR + ") in the compact binary\n" +
+      "                        format, which PhoneNumberUtil.createInstance(File) can\n" +
+      "                        memory-map.\n" +
       "\n" +
       "Example command line invocation:\n" +
       CLASS_NAME + " \\\n" +
@@ -101,6 +108,7 @@ public class BuildMetadataProtoFromXml extends Command {
     String dataPrefix = null;
     String mappingClass = null;
     String copyright = null;
+    String compactFile = null;
     boolean liteBuild = false;
 
     for (int i = 1; i < getArgs().length; i++) {
@@ -122,6 +130,8 @@ public class BuildMetadataProtoFromXml extends Command {
         mappingClass = value;
       } else if (COPYRIGHT.equals(key)) {
         copyright = value;
+      } else if (COMPACT_FILE.equals(key)) {
+        compactFile = value;
       } else if (LITE_BUILD.equals(key) &&
                  ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value))) {
         liteBuild = "true".equalsIgnoreCase(value);
@@ -167,6 +177,11 @@ public class BuildMetadataProtoFromXml extends Command {
 
       writeCountryCallingCodeMappingToJavaFile(
           countryCodeToRegionCodeMap, outputDir, mappingClass, copyright);
+
+      if (compactFile != null) {
+        writeCompactMetadataFile(metadataCollection, countryCodeToRegionCodeMap,
+                                 new File(outputDir, compactFile));
+      }
     } catch (Exception e) {
       e.printStackTrace();
       return false;
@@ -175,6 +190,39 @@ public class BuildMetadataProtoFromXml extends Command {
     return true;
   }
 
+  /**
+   * Writes all the metadata to a single file in the compact format read by
+   * {@link CompactMetadataFile}, ordered like {@code countryCodeToRegionCodeMap} so that the main
+   * region for each country calling code comes first.
+   */
+  private static void writeCompactMetadataFile(
+      PhoneMetadataCollection metadataCollection,
+      Map<Integer, List<String>> countryCodeToRegionCodeMap, File file) throws IOException {
+    Map<String, PhoneMetadata> metadataByRegion = new HashMap<String, PhoneMetadata>();
+    Map<Integer, PhoneMetadata> metadataByNonGeoCountryCode = new HashMap<Integer, PhoneMetadata>();
+    for (PhoneMetadata metadata : metadataCollection.getMetadataList()) {
+      if (metadata.getId().equals("001")) {
+        metadataByNonGeoCountryCode.put(metadata.getCountryCode(), metadata);
+      } else {
+        metadataByRegion.put(metadata.getId(), metadata);
+      }
+    }
+    List<PhoneMetadata> orderedMetadata = new ArrayList<PhoneMetadata>();
+    for (Map.Entry<Integer, List<String>> entry : countryCodeToRegionCodeMap.entrySet()) {
+      for (String regionCode : entry.getValue()) {
+        orderedMetadata.add(regionCode.equals("001")
+            ? metadataByNonGeoCountryCode.get(entry.getKey())
+            : metadataByRegion.get(regionCode));
+      }
+    }
+    FileOutputStream output = new FileOutputStream(file);
+    try {
+      CompactMetadataFile.write(orderedMetadata, output);
+    } finally {
+      output.close();
+    }
+  }
+
   private static final String MAP_COMMENT =
       "  // A mapping from a country code to the region codes which denote the\n" +
       "  // country/region represented by that country code. In the case of multiple\n" +
@@ -185,6 +233,8 @@ public class BuildMetadataProtoFromXml extends Command {
   private static final String REGION_CODE_SET_COMMENT =
       "  // A set of all region codes for which data is available.\n";
   private static final double CAPACITY_FACTOR = 0.75;
+  // The maximum length of the lines of generated code.
+  private static final int MAX_LINE_LENGTH = 100;
   private static final String CAPACITY_COMMENT =
       "    // The capacity is set to %d as there are %d different entries,\n" +
       "    // and this offers a load factor of roughly " + CAPACITY_FACTOR + ".\n";
@@ -219,36 +269,56 @@ public class BuildMetadataProtoFromXml extends Command {
     writer.writeToFile();
   }
 
+  /**
+   * Writes the mapping as two parallel constant arrays, the country calling codes and their region
+   * codes, which are only turned into a map when it is requested. This keeps the generated class
+   * small, unlike writing one statement per region code. PhoneNumberUtil indexes the arrays
+   * directly, without building the map.
+   */
   private static void writeMap(ClassWriter writer, int capacity,
                                Map<Integer, List<String>> countryCodeToRegionCodeMap) {
     writer.addToBody(MAP_COMMENT);
 
     writer.addToImports("java.util.ArrayList");
+    writer.addToImports("java.util.Arrays");
     writer.addToImports("java.util.HashMap");
     writer.addToImports("java.util.List");
     writer.addToImports("java.util.Map");
 
-    writer.addToBody("  static Map<Integer, List<String>> getCountryCodeToRegionCodeMap() {\n");
-    writer.formatToBody(CAPACITY_COMMENT, capacity, countryCodeToRegionCodeMap.size());
-    writer.addToBody("    Map<Integer, List<String>> countryCodeToRegionCodeMap =\n");
-    writer.addToBody("        new HashMap<Integer, List<String>>(" + capacity + ");\n");
-    writer.addToBody("\n");
-    writer.addToBody("    ArrayList<String> listWithRegionCode;\n");
-    writer.addToBody("\n");
-
-    for (Map.Entry<Integer, List<String>> entry : countryCodeToRegionCodeMap.entrySet()) {
-      int countryCallingCode = entry.getKey();
-      List<String> regionCodes = entry.getValue();
-      writer.addToBody("    listWithRegionCode = new ArrayList<String>(" +
-                       regionCodes.size() + ");\n");
+    List<String> countryCallingCodes = new ArrayList<String>();
+    for (int countryCallingCode : countryCodeToRegionCodeMap.keySet()) {
+      countryCallingCodes.add(Integer.toString(countryCallingCode));
+    }
+    writer.addToBody("  private static final int[] COUNTRY_CALLING_CODES = {\n    ");
+    writer.addListToBody(countryCallingCodes, "    ");
+    writer.addToBody("\n  };\n\n");
+
+    writer.addToBody("  // The region codes for each entry of COUNTRY_CALLING_CODES.\n");
+    writer.addToBody("  private static final String[][] REGION_CODES = {\n");
+    for (List<String> regionCodes : countryCodeToRegionCodeMap.values()) {
+      List<String> quotedRegionCodes = new ArrayList<String>();
       for (String regionCode : regionCodes) {
-        writer.addToBody("    listWithRegionCode.add(\"" + regionCode + "\");\n");
+        quotedRegionCodes.add("\"" + regionCode + "\"");
       }
-      writer.addToBody("    countryCodeToRegionCodeMap.put(" + countryCallingCode +
-                       ", listWithRegionCode);\n");
-      writer.addToBody("\n");
+      writer.addToBody("    {");
+      writer.addListToBody(quotedRegionCodes, "     ");
+      writer.addToBody("},\n");
     }
+    writer.addToBody("  };\n\n");
 
+    writer.addToBody("  static CountryCallingCodeIndex getCountryCallingCodeIndex() {\n");
+    writer.addToBody(
+        "    return new CountryCallingCodeIndex(COUNTRY_CALLING_CODES, REGION_CODES);\n");
+    writer.addToBody("  }\n\n");
+
+    writer.addToBody("  static Map<Integer, List<String>> getCountryCodeToRegionCodeMap() {\n");
+    writer.formatToBody(CAPACITY_COMMENT, capacity, countryCodeToRegionCodeMap.size());
+    writer.addToBody("    Map<Integer, List<String>> countryCodeToRegionCodeMap =\n");
+    writer.addToBody("        new HashMap<Integer, List<String>>(" + capacity + ");\n");
+    writer.addToBody("    for (int i = 0; i < COUNTRY_CALLING_CODES.length; i++) {\n");
+    writer.addToBody("      countryCodeToRegionCodeMap.put(COUNTRY_CALLING_CODES[i],\n");
+    writer.addToBody("          new ArrayList<String>(Arrays.asList(REGION_CODES[i])));\n");
+    writer.addToBody("    }\n");
     writer.addToBody("    return countryCodeToRegionCodeMap;\n");
     writer.addToBody("  }\n");
   }
@@ -326,6 +396,28 @@ public class BuildMetadataProtoFromXml extends Command {
       formatter.format(format, args);
     }
 
+    /**
+     * Adds {@code items} separated by commas, continuing on a new line indented by {@code indent}
+     * whenever the current line would grow longer than {@link #MAX_LINE_LENGTH}. Leaves room for
+     * a closing bracket and comma after the last item.
+     */
+    void addListToBody(List<String> items, String indent) {
+      int lineStart = body.lastIndexOf("\n") + 1;
+      for (int i = 0; i < items.size(); i++) {
+        String item = items.get(i) + (i < items.size() - 1 ? "," : "");
+        if (i > 0) {
+          if (body.length() - lineStart + 1 + item.length() + 2 > MAX_LINE_LENGTH) {
+            body.append("\n");
+            lineStart = body.length();
+            body.append(indent);
+          } else {
+            body.append(" ");
+          }
+        }
+        body.append(item);
+      }
+    }
+
     void writeToFile() throws IOException {
       CopyrightNotice.writeTo(writer, Integer.valueOf(copyright));
       writer.write(GENERATION_COMMENT);